@@ -0,0 +1,284 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.auth.signed;
+
+import io.stargate.auth.AuthenticationService;
+import io.stargate.auth.StoredCredentials;
+import io.stargate.auth.UnauthorizedException;
+import io.stargate.auth.signed.SigningKeys.SigningKey;
+import io.stargate.db.Persistence;
+import io.stargate.db.datastore.DataStore;
+import io.stargate.db.datastore.ResultSet;
+import io.stargate.db.datastore.Row;
+import io.stargate.db.datastore.query.WhereCondition;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues tokens that carry their own role name and expiry, signed with one of the {@link
+ * SigningKeys} loaded from {@code stargate.auth_signed_token_keys}.
+ *
+ * <p>Unlike {@code AuthTableBasedService}, tokens are not stored: validating one only checks its
+ * signature and expiry, without any I/O. The flip side is that a token can't be revoked before it
+ * expires, other than by removing the key that signed it. Creating a token still checks the
+ * credentials against {@code system_auth.roles}.
+ *
+ * <p>Tokens have the form {@code <key id>.<base64url role>.<expiry epoch seconds>.<base64url
+ * signature>}. The key file is checked for changes every {@code
+ * stargate.auth_signed_token_reload_ms} milliseconds, so keys can be rotated without a restart.
+ */
+public class SignedTokenService implements AuthenticationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(SignedTokenService.class);
+
+  private static final String KEYS_FILE =
+      System.getProperty("stargate.auth_signed_token_keys", "signed-token-keys.properties");
+  private static final long RELOAD_INTERVAL_MS =
+      Long.getLong("stargate.auth_signed_token_reload_ms", 10_000);
+  private static final int tokenTTL =
+      Integer.parseInt(System.getProperty("stargate.auth_tokenttl", "1800"));
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private Persistence persistence;
+  private DataStore dataStore;
+
+  private final Path keysFile;
+  private volatile SigningKeys keys;
+  private volatile FileTime keysLastModified;
+  private ScheduledExecutorService reloader;
+
+  public SignedTokenService() {
+    this.keysFile = Paths.get(KEYS_FILE);
+  }
+
+  SignedTokenService(SigningKeys keys) {
+    this.keysFile = null;
+    this.keys = keys;
+  }
+
+  public Persistence getPersistence() {
+    return persistence;
+  }
+
+  public void setPersistence(Persistence persistence) {
+    this.persistence = persistence;
+    this.dataStore = DataStore.create(persistence);
+  }
+
+  /** Loads the keys, and starts watching the key file for changes. */
+  public void start() {
+    try {
+      reloadKeys();
+    } catch (Exception e) {
+      logger.error("Failed to load signing keys from {}", keysFile, e);
+      throw new RuntimeException(e);
+    }
+    reloader =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "signed-token-keys-reloader");
+              thread.setDaemon(true);
+              return thread;
+            });
+    reloader.scheduleWithFixedDelay(
+        () -> {
+          try {
+            reloadKeys();
+          } catch (Exception e) {
+            // Keep the current keys, the file might be in the middle of being rewritten
+            logger.warn(
+                "Failed to reload signing keys from {}, keeping previous keys", keysFile, e);
+          }
+        },
+        RELOAD_INTERVAL_MS,
+        RELOAD_INTERVAL_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (reloader != null) {
+      reloader.shutdownNow();
+    }
+  }
+
+  private void reloadKeys() throws Exception {
+    FileTime lastModified = Files.getLastModifiedTime(keysFile);
+    if (lastModified.equals(keysLastModified)) {
+      return;
+    }
+    keys = SigningKeys.load(keysFile);
+    keysLastModified = lastModified;
+    logger.info("Loaded signing keys from {}, active key is {}", keysFile, keys.active().id);
+  }
+
+  @Override
+  public String createToken(String key, String secret) throws UnauthorizedException {
+    String hash;
+    try {
+      hash = queryHashedPassword(key);
+    } catch (Exception e) {
+      throw new UnauthorizedException(e.getMessage());
+    }
+    if (hash == null || hash.isEmpty() || !checkpw(secret, hash)) {
+      throw new UnauthorizedException(
+          String.format("Provided username %s and/or password are incorrect", key));
+    }
+
+    return issueToken(key, System.currentTimeMillis() / 1000 + tokenTTL);
+  }
+
+  @Override
+  public String createToken(String key) throws UnauthorizedException {
+    String username;
+    try {
+      username = queryUsername(key);
+    } catch (Exception e) {
+      throw new UnauthorizedException(e.getMessage());
+    }
+
+    if (username == null || username.isEmpty()) {
+      throw new UnauthorizedException(
+          String.format("Provided username %s and/or password are incorrect", key));
+    }
+
+    return issueToken(key, System.currentTimeMillis() / 1000 + tokenTTL);
+  }
+
+  String issueToken(String roleName, long expiryEpochSeconds) {
+    SigningKey key = keys.active();
+    String content =
+        key.id
+            + '.'
+            + ENCODER.encodeToString(roleName.getBytes(StandardCharsets.UTF_8))
+            + '.'
+            + expiryEpochSeconds;
+    try {
+      byte[] signature = key.sign(content.getBytes(StandardCharsets.UTF_8));
+      return content + '.' + ENCODER.encodeToString(signature);
+    } catch (GeneralSecurityException e) {
+      logger.error("Failed to sign token", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  private String queryUsername(String key) throws ExecutionException, InterruptedException {
+    ResultSet resultSet =
+        dataStore
+            .query()
+            .select()
+            .column("role")
+            .from("system_auth", "roles")
+            .where("role", WhereCondition.Predicate.Eq, key)
+            .execute();
+
+    if (resultSet.hasNoMoreFetchedRows()) {
+      throw new RuntimeException(String.format("Provided username %s is incorrect", key));
+    }
+
+    Row row = resultSet.one();
+    if (row.isNull("role")) {
+      throw new RuntimeException(String.format("Provided username %s is incorrect", key));
+    }
+
+    return row.getString("role");
+  }
+
+  private String queryHashedPassword(String key) throws ExecutionException, InterruptedException {
+    ResultSet resultSet =
+        dataStore
+            .query()
+            .select()
+            .column("salted_hash")
+            .from("system_auth", "roles")
+            .where("role", WhereCondition.Predicate.Eq, key)
+            .execute();
+
+    if (resultSet.hasNoMoreFetchedRows()) {
+      throw new RuntimeException(
+          String.format("Provided username %s and/or password are incorrect", key));
+    }
+
+    Row row = resultSet.one();
+    if (row.isNull("salted_hash")) {
+      throw new RuntimeException(
+          String.format("Provided username %s and/or password are incorrect", key));
+    }
+
+    return row.getString("salted_hash");
+  }
+
+  private static boolean checkpw(String password, String hash) {
+    try {
+      return BCrypt.checkpw(password, hash);
+    } catch (Exception e) {
+      // Improperly formatted hashes may cause BCrypt.checkpw to throw, so trap any other exception
+      // as a failure
+      logger.warn("Error: invalid password hash encountered, rejecting user", e);
+      return false;
+    }
+  }
+
+  @Override
+  public StoredCredentials validateToken(String token) throws UnauthorizedException {
+    if (token == null || token.isEmpty()) {
+      throw new UnauthorizedException("authorization failed - missing token");
+    }
+
+    String[] parts = token.split("\\.", -1);
+    if (parts.length != 4) {
+      throw new UnauthorizedException("authorization failed - bad token");
+    }
+
+    SigningKey key = keys.get(parts[0]);
+    if (key == null) {
+      throw new UnauthorizedException("authorization failed");
+    }
+
+    String roleName;
+    long expiry;
+    boolean valid;
+    try {
+      roleName = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8);
+      expiry = Long.parseLong(parts[2]);
+      String content = token.substring(0, token.lastIndexOf('.'));
+      valid = key.verify(content.getBytes(StandardCharsets.UTF_8), DECODER.decode(parts[3]));
+    } catch (IllegalArgumentException | GeneralSecurityException e) {
+      throw new UnauthorizedException("authorization failed - bad token");
+    }
+
+    if (!valid || expiry < System.currentTimeMillis() / 1000) {
+      throw new UnauthorizedException("authorization failed");
+    }
+
+    StoredCredentials storedCredentials = new StoredCredentials();
+    storedCredentials.setRoleName(roleName);
+    return storedCredentials;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.auth.signed;
+
+import io.stargate.auth.AuthenticationService;
+import io.stargate.db.Persistence;
+import java.util.Hashtable;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SignedTokenServiceActivator implements BundleActivator, ServiceListener {
+  private static final Logger log = LoggerFactory.getLogger(SignedTokenServiceActivator.class);
+
+  private BundleContext context;
+  private final SignedTokenService signedTokenService = new SignedTokenService();
+  private ServiceReference persistenceReference;
+  private ServiceRegistration<?> registration;
+  static Hashtable<String, String> props = new Hashtable<>();
+  static String PERSISTENCE_IDENTIFIER =
+      System.getProperty("stargate.persistence_id", "CassandraPersistence");
+  static String AUTH_IDENTIFIER = System.getProperty("stargate.auth_id", "AuthTableBasedService");
+  static final String SIGNED_TOKEN_SERVICE_IDENTIFIER = "SignedTokenService";
+
+  static {
+    props.put("AuthIdentifier", SIGNED_TOKEN_SERVICE_IDENTIFIER);
+  }
+
+  @Override
+  public void start(BundleContext context) {
+    this.context = context;
+    if (!SIGNED_TOKEN_SERVICE_IDENTIFIER.equals(AUTH_IDENTIFIER)) {
+      // Unlike the table-based service, this one needs a key file to start, so don't fail the
+      // startup when it's not the one in use.
+      log.info("Not starting signedTokenService, the selected auth service is {}", AUTH_IDENTIFIER);
+      return;
+    }
+    log.info("Starting signedTokenService....");
+
+    synchronized (signedTokenService) {
+      signedTokenService.start();
+
+      try {
+        context.addServiceListener(this, String.format("(Identifier=%s)", PERSISTENCE_IDENTIFIER));
+      } catch (InvalidSyntaxException ise) {
+        throw new RuntimeException(ise);
+      }
+
+      persistenceReference = context.getServiceReference(Persistence.class.getName());
+      if (persistenceReference != null
+          && persistenceReference.getProperty("Identifier").equals(PERSISTENCE_IDENTIFIER)) {
+        log.info("Setting persistence in SignedTokenServiceActivator");
+        this.signedTokenService.setPersistence(
+            (Persistence) context.getService(persistenceReference));
+      }
+
+      if (persistenceReference != null) {
+        log.info("Registering signedTokenService in SignedTokenServiceActivator");
+        registration =
+            context.registerService(
+                AuthenticationService.class.getName(), signedTokenService, props);
+      }
+    }
+  }
+
+  @Override
+  public void stop(BundleContext context) {
+    signedTokenService.stop();
+    if (persistenceReference != null) {
+      context.ungetService(persistenceReference);
+    }
+    // Do not need to unregister the service, because the OSGi framework will automatically do so
+  }
+
+  @Override
+  public void serviceChanged(ServiceEvent serviceEvent) {
+    int type = serviceEvent.getType();
+    String[] objectClass = (String[]) serviceEvent.getServiceReference().getProperty("objectClass");
+    synchronized (signedTokenService) {
+      switch (type) {
+        case (ServiceEvent.REGISTERED):
+          log.info("Service of type " + objectClass[0] + " registered.");
+          Object service = context.getService(serviceEvent.getServiceReference());
+
+          if (service instanceof Persistence) {
+            log.info("Setting persistence in SignedTokenServiceActivator");
+            this.signedTokenService.setPersistence((Persistence) service);
+          }
+
+          if (this.signedTokenService.getPersistence() != null && registration == null) {
+            log.info("Registering signedTokenService in SignedTokenServiceActivator");
+            registration =
+                context.registerService(
+                    AuthenticationService.class.getName(), signedTokenService, props);
+          }
+          break;
+        case (ServiceEvent.UNREGISTERING):
+          log.info("Service of type " + objectClass[0] + " unregistered.");
+          context.ungetService(serviceEvent.getServiceReference());
+          break;
+        case (ServiceEvent.MODIFIED):
+          log.info("Service of type " + objectClass[0] + " modified.");
+          break;
+        default:
+          break;
+      }
+    }
+  }
+}
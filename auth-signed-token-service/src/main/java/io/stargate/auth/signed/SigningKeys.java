@@ -0,0 +1,229 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.auth.signed;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * An immutable set of keys used to sign and verify tokens.
+ *
+ * <p>The keys are loaded from a properties file with the following entries:
+ *
+ * <pre>
+ * # The id of the key used to sign new tokens
+ * active=k2
+ *
+ * # An HMAC key: the base64-encoded secret
+ * k1.algorithm=HmacSHA256
+ * k1.secret=c2VjcmV0...
+ *
+ * # An RSA key pair: base64-encoded (or PEM) X.509 public key and PKCS#8 private key. The private
+ * # key can be omitted for keys that are only used to verify tokens.
+ * k2.algorithm=SHA256withRSA
+ * k2.public=MIIBIjANBgkqhkiG9w0B...
+ * k2.private=MIIEvQIBADANBgkqhkiG...
+ * </pre>
+ *
+ * Key ids can't contain dots. Keeping the previous key in the file after switching the active one
+ * lets the tokens that it signed remain valid until they expire.
+ */
+class SigningKeys {
+
+  private final String activeKeyId;
+  private final Map<String, SigningKey> keys;
+
+  SigningKeys(String activeKeyId, Map<String, SigningKey> keys) {
+    if (!keys.containsKey(activeKeyId)) {
+      throw new IllegalArgumentException(
+          String.format("Active key %s is not defined", activeKeyId));
+    }
+    if (!keys.get(activeKeyId).canSign()) {
+      throw new IllegalArgumentException(
+          String.format("Active key %s can't be used to sign tokens", activeKeyId));
+    }
+    this.activeKeyId = activeKeyId;
+    this.keys = Collections.unmodifiableMap(new HashMap<>(keys));
+  }
+
+  static SigningKeys load(Path file) throws IOException, GeneralSecurityException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    return parse(properties);
+  }
+
+  static SigningKeys parse(Properties properties) throws GeneralSecurityException {
+    String activeKeyId = properties.getProperty("active");
+    if (activeKeyId == null) {
+      throw new IllegalArgumentException("Missing 'active' entry");
+    }
+
+    Map<String, SigningKey> keys = new HashMap<>();
+    for (String name : properties.stringPropertyNames()) {
+      if (!name.endsWith(".algorithm")) {
+        continue;
+      }
+      String keyId = name.substring(0, name.length() - ".algorithm".length());
+      // Key ids are the first part of the dot-separated tokens
+      if (keyId.isEmpty() || keyId.contains(".")) {
+        throw new IllegalArgumentException(
+            String.format("Invalid key id '%s': ids can't be empty or contain '.'", keyId));
+      }
+      String algorithm = properties.getProperty(name).trim();
+      if (algorithm.startsWith("Hmac")) {
+        String secret = required(properties, keyId + ".secret");
+        keys.put(keyId, new HmacKey(keyId, algorithm, decode(secret)));
+      } else if (algorithm.endsWith("withRSA")) {
+        KeyFactory factory = KeyFactory.getInstance("RSA");
+        PublicKey publicKey =
+            factory.generatePublic(
+                new X509EncodedKeySpec(decode(required(properties, keyId + ".public"))));
+        String encodedPrivateKey = properties.getProperty(keyId + ".private");
+        PrivateKey privateKey =
+            encodedPrivateKey == null
+                ? null
+                : factory.generatePrivate(new PKCS8EncodedKeySpec(decode(encodedPrivateKey)));
+        keys.put(keyId, new RsaKey(keyId, algorithm, publicKey, privateKey));
+      } else {
+        throw new IllegalArgumentException(
+            String.format("Unsupported algorithm %s for key %s", algorithm, keyId));
+      }
+    }
+    return new SigningKeys(activeKeyId.trim(), keys);
+  }
+
+  private static String required(Properties properties, String name) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      throw new IllegalArgumentException(String.format("Missing '%s' entry", name));
+    }
+    return value;
+  }
+
+  /** Decodes base64 content, ignoring PEM armor and whitespace. */
+  private static byte[] decode(String value) {
+    return Base64.getDecoder()
+        .decode(value.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", ""));
+  }
+
+  SigningKey active() {
+    return keys.get(activeKeyId);
+  }
+
+  SigningKey get(String keyId) {
+    return keys.get(keyId);
+  }
+
+  abstract static class SigningKey {
+    final String id;
+    final String algorithm;
+
+    SigningKey(String id, String algorithm) {
+      this.id = id;
+      this.algorithm = algorithm;
+    }
+
+    abstract boolean canSign();
+
+    abstract byte[] sign(byte[] content) throws GeneralSecurityException;
+
+    abstract boolean verify(byte[] content, byte[] signature) throws GeneralSecurityException;
+  }
+
+  static class HmacKey extends SigningKey {
+    private final SecretKeySpec secret;
+
+    HmacKey(String id, String algorithm, byte[] secret) throws GeneralSecurityException {
+      super(id, algorithm);
+      this.secret = new SecretKeySpec(secret, algorithm);
+      // Fail fast if the algorithm is not available
+      Mac.getInstance(algorithm).init(this.secret);
+    }
+
+    @Override
+    boolean canSign() {
+      return true;
+    }
+
+    @Override
+    byte[] sign(byte[] content) throws GeneralSecurityException {
+      // Mac instances are not thread-safe
+      Mac mac = Mac.getInstance(algorithm);
+      mac.init(secret);
+      return mac.doFinal(content);
+    }
+
+    @Override
+    boolean verify(byte[] content, byte[] signature) throws GeneralSecurityException {
+      return MessageDigest.isEqual(sign(content), signature);
+    }
+  }
+
+  static class RsaKey extends SigningKey {
+    private final PublicKey publicKey;
+    private final PrivateKey privateKey;
+
+    RsaKey(String id, String algorithm, PublicKey publicKey, PrivateKey privateKey)
+        throws GeneralSecurityException {
+      super(id, algorithm);
+      this.publicKey = publicKey;
+      this.privateKey = privateKey;
+      // Fail fast if the algorithm is not available
+      Signature.getInstance(algorithm);
+    }
+
+    @Override
+    boolean canSign() {
+      return privateKey != null;
+    }
+
+    @Override
+    byte[] sign(byte[] content) throws GeneralSecurityException {
+      Signature signature = Signature.getInstance(algorithm);
+      signature.initSign(privateKey);
+      signature.update(content);
+      return signature.sign();
+    }
+
+    @Override
+    boolean verify(byte[] content, byte[] signature) throws GeneralSecurityException {
+      Signature verifier = Signature.getInstance(algorithm);
+      verifier.initVerify(publicKey);
+      verifier.update(content);
+      return verifier.verify(signature);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package io.stargate.auth.signed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.stargate.auth.UnauthorizedException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+public class SignedTokenServiceTest {
+
+  private static final long IN_ONE_HOUR = System.currentTimeMillis() / 1000 + 3600;
+
+  private static Properties hmacKey(String keyId, String secret) {
+    Properties properties = new Properties();
+    properties.setProperty("active", keyId);
+    properties.setProperty(keyId + ".algorithm", "HmacSHA256");
+    properties.setProperty(
+        keyId + ".secret", Base64.getEncoder().encodeToString(secret.getBytes()));
+    return properties;
+  }
+
+  @Test
+  public void shouldValidateHmacToken() throws Exception {
+    SignedTokenService service = new SignedTokenService(SigningKeys.parse(hmacKey("k1", "secret")));
+
+    String token = service.issueToken("cassandra", IN_ONE_HOUR);
+
+    assertThat(token).startsWith("k1.");
+    assertThat(service.validateToken(token).getRoleName()).isEqualTo("cassandra");
+  }
+
+  @Test
+  public void shouldValidateRsaToken() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+    Properties properties = new Properties();
+    properties.setProperty("active", "rsa");
+    properties.setProperty("rsa.algorithm", "SHA256withRSA");
+    properties.setProperty(
+        "rsa.public",
+        "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+            + "\n-----END PUBLIC KEY-----");
+    properties.setProperty(
+        "rsa.private", Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+    SignedTokenService service = new SignedTokenService(SigningKeys.parse(properties));
+
+    String token = service.issueToken("role.with.dots", IN_ONE_HOUR);
+
+    assertThat(service.validateToken(token).getRoleName()).isEqualTo("role.with.dots");
+  }
+
+  @Test
+  public void shouldRejectInvalidTokens() throws Exception {
+    SignedTokenService service = new SignedTokenService(SigningKeys.parse(hmacKey("k1", "secret")));
+    SignedTokenService otherService =
+        new SignedTokenService(SigningKeys.parse(hmacKey("k1", "other secret")));
+
+    String expired = service.issueToken("cassandra", System.currentTimeMillis() / 1000 - 1);
+    String forged = otherService.issueToken("cassandra", IN_ONE_HOUR);
+    String valid = service.issueToken("cassandra", IN_ONE_HOUR);
+    String[] parts = valid.split("\\.");
+    String tampered = parts[0] + "." + parts[1] + "." + (IN_ONE_HOUR + 3600) + "." + parts[3];
+
+    for (String token :
+        new String[] {
+          null, "", "not a token", expired, forged, tampered, "k2" + valid.substring(2)
+        }) {
+      assertThatThrownBy(() -> service.validateToken(token))
+          .isInstanceOf(UnauthorizedException.class);
+    }
+  }
+
+  @Test
+  public void shouldKeepValidatingTokensOfInactiveKeys() throws Exception {
+    SignedTokenService before = new SignedTokenService(SigningKeys.parse(hmacKey("k1", "one")));
+    String token = before.issueToken("cassandra", IN_ONE_HOUR);
+
+    Properties rotated = hmacKey("k2", "two");
+    rotated.setProperty("k1.algorithm", "HmacSHA256");
+    rotated.setProperty("k1.secret", Base64.getEncoder().encodeToString("one".getBytes()));
+    SignedTokenService after = new SignedTokenService(SigningKeys.parse(rotated));
+
+    assertThat(after.validateToken(token).getRoleName()).isEqualTo("cassandra");
+    assertThat(after.issueToken("cassandra", IN_ONE_HOUR)).startsWith("k2.");
+  }
+
+  @Test
+  public void shouldRejectInvalidKeyFiles() {
+    Properties missingActive = hmacKey("k1", "secret");
+    missingActive.setProperty("active", "k2");
+    assertThatThrownBy(() -> SigningKeys.parse(missingActive))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("k2");
+
+    Properties unknownAlgorithm = hmacKey("k1", "secret");
+    unknownAlgorithm.setProperty("k1.algorithm", "ROT13");
+    assertThatThrownBy(() -> SigningKeys.parse(unknownAlgorithm))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    Properties dottedId = hmacKey("k1.v2", "secret");
+    assertThatThrownBy(() -> SigningKeys.parse(dottedId))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("k1.v2");
+  }
+}
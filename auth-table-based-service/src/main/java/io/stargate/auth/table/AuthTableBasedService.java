@@ -17,6 +17,7 @@ package io.stargate.auth.table;
 
 import com.datastax.oss.driver.shaded.guava.common.base.Strings;
 import io.stargate.auth.AuthenticationService;
+import io.stargate.auth.InvalidTokenCache;
 import io.stargate.auth.StoredCredentials;
 import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.Persistence;
@@ -27,6 +28,7 @@ import io.stargate.db.datastore.query.WhereCondition;
 import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.cassandra.stargate.db.ConsistencyLevel;
 import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
@@ -46,6 +48,13 @@ public class AuthTableBasedService implements AuthenticationService {
   private static final boolean shouldInitializeAuthKeyspace =
       Boolean.parseBoolean(System.getProperty("stargate.auth_tablebased_init", "true"));
 
+  // Tokens that were not found recently, to avoid querying again when clients retry with them
+  private final InvalidTokenCache invalidTokens =
+      new InvalidTokenCache(
+          Integer.getInteger("stargate.auth_invalid_token_cache_size", 10_000),
+          Long.getLong("stargate.auth_invalid_token_cache_ttl_ms", 10_000),
+          TimeUnit.MILLISECONDS);
+
   public Persistence getPersistence() {
     return persistence;
   }
@@ -214,6 +223,10 @@ public class AuthTableBasedService implements AuthenticationService {
       throw new UnauthorizedException("authorization failed - bad token");
     }
 
+    if (invalidTokens.isInvalid(token)) {
+      throw new UnauthorizedException("authorization failed");
+    }
+
     StoredCredentials storedCredentials = new StoredCredentials();
     try {
       ResultSet resultSet =
@@ -226,6 +239,7 @@ public class AuthTableBasedService implements AuthenticationService {
               .execute();
 
       if (resultSet.hasNoMoreFetchedRows()) {
+        invalidTokens.markInvalid(token);
         throw new UnauthorizedException("authorization failed");
       }
 
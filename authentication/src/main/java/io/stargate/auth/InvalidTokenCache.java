@@ -0,0 +1,88 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.auth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of tokens that are known to be invalid, so that clients retrying with an expired
+ * or bogus token don't trigger a lookup each time.
+ *
+ * <p>Entries expire shortly after being added, which bounds how long a token that becomes valid
+ * later (which doesn't happen with randomly generated tokens) would keep being rejected. When the
+ * cache is full, the oldest entries are evicted first.
+ */
+public class InvalidTokenCache {
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<String, Long> expirations;
+
+  public InvalidTokenCache(int maxSize, long ttl, TimeUnit unit) {
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.expirations =
+        new LinkedHashMap<String, Long>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > InvalidTokenCache.this.maxSize;
+          }
+        };
+  }
+
+  /** Whether the cache is enabled, i.e. it can hold at least one token for some time. */
+  public boolean isEnabled() {
+    return maxSize > 0 && ttlNanos > 0;
+  }
+
+  /** Whether the token was recently marked invalid. */
+  public boolean isInvalid(String token) {
+    if (!isEnabled() || token == null) {
+      return false;
+    }
+    synchronized (expirations) {
+      Long expiration = expirations.get(token);
+      if (expiration == null) {
+        return false;
+      }
+      if (expiration - System.nanoTime() <= 0) {
+        expirations.remove(token);
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /** Records that the token is invalid. */
+  public void markInvalid(String token) {
+    if (!isEnabled() || token == null) {
+      return;
+    }
+    synchronized (expirations) {
+      // Remove first so that the entry moves to the end of the eviction order
+      expirations.remove(token);
+      expirations.put(token, System.nanoTime() + ttlNanos);
+    }
+  }
+
+  public int size() {
+    synchronized (expirations) {
+      return expirations.size();
+    }
+  }
+}
@@ -16,21 +16,23 @@
 package io.stargate.cql.impl;
 
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.core.metrics.api.Metrics;
 import io.stargate.db.Persistence;
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.internal.NativeTransport;
+import org.apache.cassandra.stargate.transport.internal.PreparedStatementRegistry;
+import org.apache.cassandra.stargate.transport.internal.PreparedStatementWarmer;
 import org.apache.cassandra.stargate.transport.internal.Server;
 import org.apache.cassandra.stargate.transport.internal.TransportDescriptor;
-import org.apache.cassandra.utils.NativeLibrary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +46,9 @@ public class CqlImpl {
   private final Metrics metrics;
   private final AuthenticationService authentication;
 
+  private final PreparedStatementRegistry preparedStatements = new PreparedStatementRegistry();
+  private final PreparedStatementWarmer preparedStatementWarmer;
+
   public CqlImpl(
       Config config,
       Persistence persistence,
@@ -54,14 +59,9 @@ public class CqlImpl {
     this.persistence = persistence;
     this.metrics = metrics;
     this.authentication = authentication;
+    this.preparedStatementWarmer = new PreparedStatementWarmer(persistence, preparedStatements);
 
-    if (useEpoll()) {
-      workerGroup = new EpollEventLoopGroup();
-      logger.info("Netty using native Epoll event loop");
-    } else {
-      workerGroup = new NioEventLoopGroup();
-      logger.info("Netty using Java NIO event loop");
-    }
+    workerGroup = NativeTransport.current().newEventLoopGroup();
   }
 
   public void start() {
@@ -73,6 +73,7 @@ public class CqlImpl {
     Server.Builder builder =
         new Server.Builder(persistence, authentication)
             .withEventLoopGroup(workerGroup)
+            .withPreparedStatements(preparedStatements)
             .withHost(nativeAddr);
 
     if (!TransportDescriptor.getNativeProtocolEncryptionOptions().enabled) {
@@ -91,7 +92,24 @@ public class CqlImpl {
       }
     }
 
+    String domainSocketPath = TransportDescriptor.getNativeTransportDomainSocketPath();
+    if (domainSocketPath != null) {
+      if (workerGroup instanceof EpollEventLoopGroup) {
+        List<Server> withDomainSocket = new ArrayList<>(servers);
+        withDomainSocket.add(
+            builder.withSSL(false).withPort(nativePort).withDomainSocket(domainSocketPath).build());
+        servers = Collections.unmodifiableList(withDomainSocket);
+      } else {
+        logger.warn(
+            "Not listening on unix domain socket {}, it requires the epoll transport",
+            domainSocketPath);
+      }
+    }
+
     ClientMetrics.instance.init(servers, metrics.getRegistry("cql"));
+    // Prepare the statements that were hot before the restart ahead of client traffic
+    preparedStatementWarmer.warmUp();
+    preparedStatementWarmer.start();
     servers.forEach(Server::start);
     persistence.setRpcReady(true);
   }
@@ -99,15 +117,6 @@ public class CqlImpl {
   public void stop() {
     persistence.setRpcReady(false);
     servers.forEach(Server::stop);
-  }
-
-  public static boolean useEpoll() {
-    final boolean enableEpoll =
-        Boolean.parseBoolean(System.getProperty("stargate.cql.native.epoll.enabled", "true"));
-
-    if (enableEpoll && !Epoll.isAvailable() && NativeLibrary.osType == NativeLibrary.OSType.LINUX)
-      logger.warn("epoll not available", Epoll.unavailabilityCause());
-
-    return enableEpoll && Epoll.isAvailable();
+    preparedStatementWarmer.stop();
   }
 }
@@ -19,26 +19,43 @@
 
 package org.apache.cassandra.stargate.metrics;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.stargate.db.AuthenticatedUser;
+import io.stargate.db.Persistence;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.cassandra.metrics.DefaultNameFactory;
 import org.apache.cassandra.metrics.MetricNameFactory;
+import org.apache.cassandra.stargate.transport.internal.AuthenticationExecutor;
 import org.apache.cassandra.stargate.transport.internal.ClientStat;
 import org.apache.cassandra.stargate.transport.internal.ConnectedClient;
+import org.apache.cassandra.stargate.transport.internal.Message;
+import org.apache.cassandra.stargate.transport.internal.RequestScheduler;
 import org.apache.cassandra.stargate.transport.internal.Server;
 
 public final class ClientMetrics {
   public static final ClientMetrics instance = new ClientMetrics();
 
+  private static final long LATENCY_WINDOW_MS =
+      Long.getLong("stargate.cql_latency_window_ms", 60_000);
+  private static final boolean METRICS_BY_ROLE = Boolean.getBoolean("stargate.cql_metrics_by_role");
+  private static final boolean METRICS_BY_KEYSPACE =
+      Boolean.getBoolean("stargate.cql_metrics_by_keyspace");
+
   private static final MetricNameFactory factory = new DefaultNameFactory("Client");
 
   private volatile boolean initialized = false;
@@ -47,10 +64,34 @@ public final class ClientMetrics {
 
   private Meter authSuccess;
   private Meter authFailure;
+  private Timer authLatency;
 
   private AtomicInteger pausedConnections;
   private Gauge<Integer> pausedConnectionsGauge;
   private Meter requestDiscarded;
+  private Meter requestShed;
+  private Meter eventLoopStalls;
+  private Timer queueDelay;
+
+  private Meter invalidTokenCacheHits;
+  private Meter tokenAuthRateLimited;
+
+  private Meter transparentReprepares;
+  private Meter transparentReprepareFailures;
+
+  private Meter framesSentUncompressed;
+  private Counter compressionBytesSaved;
+  private Timer compressionLatency;
+
+  private final ConcurrentMap<String, Timer> requestQueueTimes = new ConcurrentHashMap<>();
+
+  private final Map<Message.Type, RequestTimers> requestTimers = new EnumMap<>(Message.Type.class);
+  private final ConcurrentMap<String, Timer> requestsByRole = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Meter> requestsByKeyspace = new ConcurrentHashMap<>();
+
+  private volatile long preparedStatementsWarmupMillis;
+  private volatile int preparedStatementsWarmedUp;
+  private volatile int preparedStatementsSaved;
 
   private ClientMetrics() {}
 
@@ -62,6 +103,11 @@ public final class ClientMetrics {
     authFailure.mark();
   }
 
+  /** Records the time between an authentication response arriving and its evaluation finishing. */
+  public void recordAuthLatency(long nanos) {
+    authLatency.update(nanos, TimeUnit.NANOSECONDS);
+  }
+
   public void pauseConnection() {
     pausedConnections.incrementAndGet();
   }
@@ -74,6 +120,113 @@ public final class ClientMetrics {
     requestDiscarded.mark();
   }
 
+  public void markRequestShed() {
+    requestShed.mark();
+  }
+
+  public void recordQueueDelay(long nanos) {
+    queueDelay.update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void markEventLoopStall() {
+    eventLoopStalls.mark();
+  }
+
+  /** Exports the lag, in microseconds, and the number of pending tasks of an event loop. */
+  public synchronized void registerEventLoop(
+      String name, Gauge<Long> lagMicros, Gauge<Integer> pendingTasks) {
+    if (!initialized) return;
+
+    registerGauge("EventLoop." + name + ".LagMicros", lagMicros);
+    registerGauge("EventLoop." + name + ".PendingTasks", pendingTasks);
+  }
+
+  public void markInvalidTokenCacheHit() {
+    invalidTokenCacheHits.mark();
+  }
+
+  public void markTokenAuthRateLimited() {
+    tokenAuthRateLimited.mark();
+  }
+
+  public void markTransparentReprepare() {
+    transparentReprepares.mark();
+  }
+
+  public void markTransparentReprepareFailure() {
+    transparentReprepareFailures.mark();
+  }
+
+  public void markFrameSentUncompressed() {
+    framesSentUncompressed.mark();
+  }
+
+  /**
+   * Records the compression of an outgoing frame.
+   *
+   * @param bytesSaved the difference between the uncompressed and compressed sizes, which can be
+   *     negative.
+   * @param nanos the time spent compressing.
+   */
+  public void recordCompression(long bytesSaved, long nanos) {
+    compressionBytesSaved.inc(bytesSaved);
+    compressionLatency.update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Records how long a request of the given role waited in the {@link RequestScheduler}. */
+  public void recordRequestQueueTime(String role, long nanos) {
+    requestQueueTimes
+        .computeIfAbsent(
+            role, r -> registerTimer("RequestQueueTime." + (r.isEmpty() ? "anonymous" : r)))
+        .update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the latencies of a request whose response was just flushed: the time it waited before
+   * being executed (see {@link Message.Request#queuedNanos()}), the time it took to execute, the
+   * time its response waited to be flushed, and the total.
+   */
+  public void recordRequest(Message.Request request, long flushedNanos) {
+    RequestTimers timers = requestTimers.get(request.type);
+    if (timers == null) {
+      return;
+    }
+    // Requests that failed early were neither executed nor completed
+    long completed = request.completedNanos() == 0 ? flushedNanos : request.completedNanos();
+    long dispatched = request.dispatchedNanos();
+    long started =
+        request.executionStartedNanos() == 0 ? completed : dispatched + request.queuedNanos();
+    timers.queued.update(started - dispatched, TimeUnit.NANOSECONDS);
+    timers.execution.update(completed - started, TimeUnit.NANOSECONDS);
+    timers.flush.update(flushedNanos - completed, TimeUnit.NANOSECONDS);
+    timers.latency.update(flushedNanos - dispatched, TimeUnit.NANOSECONDS);
+
+    if (METRICS_BY_ROLE || METRICS_BY_KEYSPACE) {
+      Persistence.Connection connection = request.persistenceConnection();
+      if (METRICS_BY_ROLE) {
+        String role = connection.loggedUser().map(AuthenticatedUser::name).orElse("anonymous");
+        requestsByRole
+            .computeIfAbsent(role, r -> registerLatencyTimer("RequestsByRole." + r))
+            .update(flushedNanos - dispatched, TimeUnit.NANOSECONDS);
+      }
+      if (METRICS_BY_KEYSPACE) {
+        connection
+            .usedKeyspace()
+            .ifPresent(
+                ks ->
+                    requestsByKeyspace
+                        .computeIfAbsent(ks, k -> registerMeter("RequestsByKeyspace." + k))
+                        .mark());
+      }
+    }
+  }
+
+  public void recordPreparedStatementsWarmup(long millis, int warmedUp, int saved) {
+    preparedStatementsWarmupMillis = millis;
+    preparedStatementsWarmedUp = warmedUp;
+    preparedStatementsSaved = saved;
+  }
+
   public List<ConnectedClient> allConnectedClients() {
     List<ConnectedClient> clients = new ArrayList<>();
 
@@ -95,10 +248,41 @@ public final class ClientMetrics {
 
     authSuccess = registerMeter("AuthSuccess");
     authFailure = registerMeter("AuthFailure");
+    authLatency = registerTimer("AuthLatency");
+    registerGauge("AuthQueueDepth", AuthenticationExecutor.instance::queueDepth);
 
     pausedConnections = new AtomicInteger();
     pausedConnectionsGauge = registerGauge("PausedConnections", pausedConnections::get);
     requestDiscarded = registerMeter("RequestDiscarded");
+    registerGauge("RequestsQueued", RequestScheduler.instance::queued);
+    requestShed = registerMeter("RequestShed");
+    queueDelay = registerTimer("QueueDelay");
+    eventLoopStalls = registerMeter("EventLoopStalls");
+
+    invalidTokenCacheHits = registerMeter("InvalidTokenCacheHits");
+    tokenAuthRateLimited = registerMeter("TokenAuthRateLimited");
+
+    transparentReprepares = registerMeter("TransparentReprepares");
+    transparentReprepareFailures = registerMeter("TransparentReprepareFailures");
+
+    framesSentUncompressed = registerMeter("FramesSentUncompressed");
+    compressionBytesSaved = registerCounter("CompressionBytesSaved");
+    compressionLatency = registerTimer("CompressionLatency");
+
+    for (Message.Type type : Message.Type.values()) {
+      if (type.direction == Message.Direction.REQUEST) {
+        requestTimers.put(type, new RequestTimers(type));
+      }
+    }
+
+    registerGauge("PreparedStatementsWarmupMillis", () -> preparedStatementsWarmupMillis);
+    registerGauge("PreparedStatementsWarmedUp", () -> preparedStatementsWarmedUp);
+    registerGauge(
+        "PreparedStatementsWarmupCoverage",
+        () ->
+            preparedStatementsSaved == 0
+                ? 1.0
+                : (double) preparedStatementsWarmedUp / preparedStatementsSaved);
 
     initialized = true;
   }
@@ -148,7 +332,36 @@ public final class ClientMetrics {
     return metricRegistry.register(factory.createMetricName(name).getMetricName(), gauge);
   }
 
+  private Counter registerCounter(String name) {
+    return metricRegistry.counter(factory.createMetricName(name).getMetricName());
+  }
+
   private Meter registerMeter(String name) {
     return metricRegistry.meter(factory.createMetricName(name).getMetricName());
   }
+
+  private Timer registerTimer(String name) {
+    return metricRegistry.timer(factory.createMetricName(name).getMetricName());
+  }
+
+  private Timer registerLatencyTimer(String name) {
+    return metricRegistry.register(
+        factory.createMetricName(name).getMetricName(),
+        new Timer(new HdrReservoir(LATENCY_WINDOW_MS)));
+  }
+
+  private class RequestTimers {
+    private final Timer queued;
+    private final Timer execution;
+    private final Timer flush;
+    private final Timer latency;
+
+    RequestTimers(Message.Type type) {
+      String prefix = "Requests." + type + ".";
+      this.queued = registerLatencyTimer(prefix + "Queued");
+      this.execution = registerLatencyTimer(prefix + "Execution");
+      this.flush = registerLatencyTimer(prefix + "Flush");
+      this.latency = registerLatencyTimer(prefix + "Latency");
+    }
+  }
 }
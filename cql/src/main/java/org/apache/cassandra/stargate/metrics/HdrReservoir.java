@@ -0,0 +1,150 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A {@link Reservoir} backed by an HdrHistogram {@link Recorder}, which records values without
+ * locking or allocating, with a fixed relative precision.
+ *
+ * <p>Snapshots cover the values recorded over the last one to two {@code windowMillis}: values are
+ * accumulated in the current window, and the previous one is kept so that a snapshot taken right
+ * after a window rolls over isn't empty.
+ */
+public class HdrReservoir implements Reservoir {
+
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  private final long windowNanos;
+  private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+  // Guarded by this
+  private Histogram interval;
+  private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+  private Histogram previous = new Histogram(SIGNIFICANT_DIGITS);
+  private long currentStart = System.nanoTime();
+
+  public HdrReservoir(long windowMillis) {
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+  }
+
+  @Override
+  public int size() {
+    return (int) Math.min(Integer.MAX_VALUE, getSnapshot().size());
+  }
+
+  @Override
+  public void update(long value) {
+    recorder.recordValue(Math.max(0, value));
+  }
+
+  @Override
+  public synchronized Snapshot getSnapshot() {
+    interval = recorder.getIntervalHistogram(interval);
+    current.add(interval);
+    long now = System.nanoTime();
+    if (now - currentStart >= windowNanos) {
+      Histogram recycled = previous;
+      previous = current;
+      current = recycled;
+      current.reset();
+      currentStart = now;
+    }
+    Histogram copy = previous.copy();
+    copy.add(current);
+    return new HdrSnapshot(copy);
+  }
+
+  private static class HdrSnapshot extends Snapshot {
+    private final Histogram histogram;
+
+    HdrSnapshot(Histogram histogram) {
+      this.histogram = histogram;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      return histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    /**
+     * One value per recorded bucket of the histogram rather than every single value, which could be
+     * a lot.
+     */
+    @Override
+    public long[] getValues() {
+      long[] values = new long[countBuckets()];
+      int i = 0;
+      for (HistogramIterationValue value : histogram.recordedValues()) {
+        values[i++] = histogram.highestEquivalentValue(value.getValueIteratedTo());
+      }
+      return values;
+    }
+
+    private int countBuckets() {
+      int count = 0;
+      for (HistogramIterationValue ignored : histogram.recordedValues()) {
+        count++;
+      }
+      return count;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(Integer.MAX_VALUE, histogram.getTotalCount());
+    }
+
+    @Override
+    public long getMax() {
+      return histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+      return histogram.getTotalCount() == 0 ? 0 : histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+      return histogram.getTotalCount() == 0 ? 0 : histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+      return histogram.getTotalCount() == 0 ? 0 : histogram.getStdDeviation();
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out =
+          new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      }
+    }
+  }
+}
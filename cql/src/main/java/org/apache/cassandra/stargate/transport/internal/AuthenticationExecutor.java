@@ -0,0 +1,101 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+
+/**
+ * Runs SASL evaluations, which can be slow (password hashing, token validation, role lookups), so
+ * that they don't block the Netty event loops.
+ *
+ * <p>The pool has {@code stargate.cql_auth_threads} threads and queues up to {@code
+ * stargate.cql_auth_queue_size} pending evaluations, further attempts are rejected as overloaded
+ * until the queue drains.
+ */
+public class AuthenticationExecutor {
+
+  public static final AuthenticationExecutor instance =
+      new AuthenticationExecutor(
+          Integer.getInteger(
+              "stargate.cql_auth_threads", Runtime.getRuntime().availableProcessors()),
+          Integer.getInteger("stargate.cql_auth_queue_size", 1024));
+
+  private final ThreadPoolExecutor executor;
+
+  @VisibleForTesting
+  AuthenticationExecutor(int threads, int queueSize) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            r -> {
+              Thread thread = new Thread(r, "cql-auth-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Evaluates {@code task} on the authentication pool.
+   *
+   * @return a future that completes with the result of the task, or fails with an {@link
+   *     OverloadedException} if too many evaluations are already pending.
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    long submitted = System.nanoTime();
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              future.complete(task.get());
+            } catch (Throwable t) {
+              future.completeExceptionally(t);
+            } finally {
+              ClientMetrics.instance.recordAuthLatency(System.nanoTime() - submitted);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(
+          new OverloadedException("Too many pending authentication requests"));
+    }
+    return future;
+  }
+
+  /** The number of evaluations waiting for a thread. */
+  public int queueDepth() {
+    return executor.getQueue().size();
+  }
+
+  @VisibleForTesting
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -397,6 +397,9 @@ public abstract class CBUtil {
         return unsetValue;
       } else throw new ProtocolException("Invalid ByteBuf length " + length);
     }
+    // Not a view into the frame (readValueNoCopy): the frame body is pooled memory that gets reused
+    // once the response is flushed, but the persistence can hold on to bound values past the end
+    // of the request, e.g. mutations serialized lazily for slow replicas.
     return ByteBuffer.wrap(readRawBytes(cb, length));
   }
 
@@ -19,18 +19,28 @@ package org.apache.cassandra.stargate.transport.internal;
 
 import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.transport.internal.frame.FrameBodyTransformer;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.Compressor;
 
 public class Connection {
   static final AttributeKey<Connection> attributeKey = AttributeKey.valueOf("CONN");
 
+  // Stands for the address of clients connected through a Unix domain socket
+  private static final InetSocketAddress LOCAL_CLIENT_ADDRESS =
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
   private final Channel channel;
   private final ProtocolVersion version;
   private final Tracker tracker;
 
   private volatile FrameBodyTransformer transformer;
   private boolean throwOnOverload;
+  private volatile boolean segmentFraming;
+  private volatile Compressor segmentCompressor;
 
   public Connection(Channel channel, ProtocolVersion version, Tracker tracker) {
     this.channel = channel;
@@ -48,6 +58,25 @@ public class Connection {
     return transformer;
   }
 
+  /**
+   * Switches the connection to v5 segment framing once the response to the STARTUP message is sent
+   * (see {@link Segment}).
+   *
+   * @param compressor the compressor for the segments, or null if they are not compressed.
+   */
+  public void setSegmentFraming(Compressor compressor) {
+    this.segmentCompressor = compressor;
+    this.segmentFraming = true;
+  }
+
+  public boolean usesSegmentFraming() {
+    return segmentFraming;
+  }
+
+  public Compressor getSegmentCompressor() {
+    return segmentCompressor;
+  }
+
   public void setThrowOnOverload(boolean throwOnOverload) {
     this.throwOnOverload = throwOnOverload;
   }
@@ -68,6 +97,17 @@ public class Connection {
     return channel;
   }
 
+  /**
+   * The remote address of a client channel, or the loopback address if the client is connected
+   * through a Unix domain socket.
+   */
+  public static InetSocketAddress remoteAddress(Channel channel) {
+    SocketAddress address = channel.remoteAddress();
+    return address instanceof InetSocketAddress
+        ? (InetSocketAddress) address
+        : LOCAL_CLIENT_ADDRESS;
+  }
+
   public interface Factory {
     Connection newConnection(Channel channel, ProxyInfo info, ProtocolVersion version);
   }
@@ -21,7 +21,6 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -63,7 +62,7 @@ final class ConnectionLimitHandler extends ChannelInboundHandlerAdapter {
     } else {
       long perIpLimit = TransportDescriptor.getNativeTransportMaxConcurrentConnectionsPerIp();
       if (perIpLimit > 0) {
-        InetAddress address = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress();
+        InetAddress address = Connection.remoteAddress(ctx.channel()).getAddress();
 
         AtomicLong perIpCount = connectionsPerClient.get(address);
         if (perIpCount == null) {
@@ -91,7 +90,7 @@ final class ConnectionLimitHandler extends ChannelInboundHandlerAdapter {
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     counter.decrementAndGet();
-    InetAddress address = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress();
+    InetAddress address = Connection.remoteAddress(ctx.channel()).getAddress();
 
     AtomicLong count = connectionsPerClient.get(address);
     if (count != null) {
@@ -0,0 +1,286 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.cassandra.stargate.transport.internal.Event.SchemaChange;
+
+/**
+ * Delays events by a short window and merges those that are redundant before they are sent, so that
+ * a burst of changes (a migration creating many tables, a node flapping) doesn't turn into as many
+ * messages to every registered connection, each of them triggering a metadata refresh by the
+ * drivers.
+ *
+ * <p>The window is set per event type with {@code stargate.cql_schema_event_window_ms}, {@code
+ * stargate.cql_topology_event_window_ms} and {@code stargate.cql_status_event_window_ms}; 0 sends
+ * events of that type right away. Within a window:
+ *
+ * <ul>
+ *   <li>only the last topology or status change of each node is kept;
+ *   <li>schema changes of the same element are merged into one, and dropping a keyspace subsumes
+ *       the earlier changes of its elements;
+ *   <li>the change of a keyspace is sent before those of its elements;
+ *   <li>if more than {@code stargate.cql_schema_events_per_keyspace} elements of a keyspace
+ *       changed, they are replaced by a single keyspace update. This is disabled by default, since
+ *       not all drivers reload the elements of a keyspace when they get that event.
+ * </ul>
+ */
+class EventCoalescer {
+
+  private static final ScheduledThreadPoolExecutor EXECUTOR =
+      new ScheduledThreadPoolExecutor(
+          1,
+          r -> {
+            Thread thread = new Thread(r, "cql-event-coalescer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Map<Event.Type, Long> windowsMillis;
+  private final int maxChangesPerKeyspace;
+  private final Consumer<List<Event>> sink;
+
+  // Guarded by this
+  private final Map<Event.Type, List<Event>> pending = new EnumMap<>(Event.Type.class);
+
+  EventCoalescer(Consumer<List<Event>> sink) {
+    this(defaultWindows(), Integer.getInteger("stargate.cql_schema_events_per_keyspace", 0), sink);
+  }
+
+  @VisibleForTesting
+  EventCoalescer(
+      Map<Event.Type, Long> windowsMillis, int maxChangesPerKeyspace, Consumer<List<Event>> sink) {
+    this.windowsMillis = windowsMillis;
+    this.maxChangesPerKeyspace = maxChangesPerKeyspace;
+    this.sink = sink;
+  }
+
+  private static Map<Event.Type, Long> defaultWindows() {
+    Map<Event.Type, Long> windows = new EnumMap<>(Event.Type.class);
+    windows.put(Event.Type.SCHEMA_CHANGE, Long.getLong("stargate.cql_schema_event_window_ms", 100));
+    windows.put(
+        Event.Type.TOPOLOGY_CHANGE, Long.getLong("stargate.cql_topology_event_window_ms", 100));
+    windows.put(Event.Type.STATUS_CHANGE, Long.getLong("stargate.cql_status_event_window_ms", 0));
+    return windows;
+  }
+
+  void add(Event event) {
+    long window = windowsMillis.getOrDefault(event.type, 0L);
+    if (window <= 0) {
+      sink.accept(Collections.singletonList(event));
+      return;
+    }
+    synchronized (this) {
+      List<Event> events = pending.get(event.type);
+      if (events == null) {
+        events = new ArrayList<>();
+        pending.put(event.type, events);
+        EXECUTOR.schedule(() -> flush(event.type), window, TimeUnit.MILLISECONDS);
+      }
+      events.add(event);
+    }
+  }
+
+  @VisibleForTesting
+  void flush(Event.Type type) {
+    List<Event> events;
+    synchronized (this) {
+      events = pending.remove(type);
+    }
+    if (events != null) {
+      sink.accept(merge(events));
+    }
+  }
+
+  @VisibleForTesting
+  List<Event> merge(List<Event> events) {
+    Map<Object, Event> merged = new LinkedHashMap<>();
+    Map<String, Integer> changesPerKeyspace = new LinkedHashMap<>();
+    for (Event event : events) {
+      if (event instanceof Event.NodeEvent) {
+        Object key = new NodeKey(event.type, ((Event.NodeEvent) event).node);
+        // Re-insert so that the event keeps its position relative to the others
+        merged.remove(key);
+        merged.put(key, event);
+      } else if (event instanceof SchemaChange) {
+        SchemaChange change = (SchemaChange) event;
+        SchemaKey key = new SchemaKey(change);
+        SchemaChange previous = (SchemaChange) merged.get(key);
+        if (previous == null && change.target != SchemaChange.Target.KEYSPACE) {
+          changesPerKeyspace.merge(change.keyspace, 1, Integer::sum);
+        }
+        if (change.target == SchemaChange.Target.KEYSPACE
+            && change.change == SchemaChange.Change.DROPPED) {
+          // Earlier changes of its elements are moot, even if the keyspace is created again
+          merged.values().removeIf(e -> isElementOf(e, change.keyspace));
+          changesPerKeyspace.remove(change.keyspace);
+        }
+        merged.put(key, mergeSchemaChanges(previous, change));
+      } else {
+        merged.put(new Object(), event);
+      }
+    }
+
+    for (Map.Entry<String, Integer> entry : changesPerKeyspace.entrySet()) {
+      String keyspace = entry.getKey();
+      SchemaChange keyspaceChange = (SchemaChange) merged.get(new SchemaKey(keyspace));
+      boolean dropped =
+          keyspaceChange != null && keyspaceChange.change == SchemaChange.Change.DROPPED;
+      boolean collapse =
+          !dropped && maxChangesPerKeyspace > 0 && entry.getValue() > maxChangesPerKeyspace;
+      if (dropped || collapse) {
+        merged.values().removeIf(e -> isElementOf(e, keyspace));
+      }
+      if (collapse && keyspaceChange == null) {
+        merged.put(
+            new SchemaKey(keyspace), new SchemaChange(SchemaChange.Change.UPDATED, keyspace));
+      }
+    }
+
+    List<Event> result = new ArrayList<>(merged.size());
+    Set<String> keyspacesSent = new HashSet<>();
+    for (Event event : merged.values()) {
+      // Elements that were created and dropped within the window are left as null
+      if (event == null) {
+        continue;
+      }
+      if (event instanceof SchemaChange) {
+        SchemaChange change = (SchemaChange) event;
+        if (change.target == SchemaChange.Target.KEYSPACE) {
+          if (!keyspacesSent.add(change.keyspace)) {
+            // Already sent ahead of one of its elements
+            continue;
+          }
+        } else if (!keyspacesSent.contains(change.keyspace)) {
+          // A keyspace change goes before those of its elements, so that drivers never see an
+          // element of a keyspace they don't know about yet
+          Event keyspaceChange = merged.get(new SchemaKey(change.keyspace));
+          if (keyspaceChange != null) {
+            keyspacesSent.add(change.keyspace);
+            result.add(keyspaceChange);
+          }
+        }
+      }
+      result.add(event);
+    }
+    return result;
+  }
+
+  /**
+   * Merges two changes of the same schema element: the element was created if it didn't exist
+   * before the first change, and it doesn't need to be reported at all if it was created and then
+   * dropped.
+   */
+  private static SchemaChange mergeSchemaChanges(SchemaChange previous, SchemaChange next) {
+    if (previous == null) {
+      return next;
+    }
+    if (previous.change == SchemaChange.Change.CREATED) {
+      switch (next.change) {
+        case DROPPED:
+          return null;
+        case UPDATED:
+          return previous;
+        default:
+          return next;
+      }
+    }
+    return next;
+  }
+
+  private static boolean isElementOf(Event event, String keyspace) {
+    if (!(event instanceof SchemaChange)) {
+      return false;
+    }
+    SchemaChange change = (SchemaChange) event;
+    return change.target != SchemaChange.Target.KEYSPACE && change.keyspace.equals(keyspace);
+  }
+
+  private static class NodeKey {
+    private final Event.Type type;
+    private final InetSocketAddress node;
+
+    NodeKey(Event.Type type, InetSocketAddress node) {
+      this.type = type;
+      this.node = node;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof NodeKey)) {
+        return false;
+      }
+      NodeKey that = (NodeKey) other;
+      return type == that.type && node.equals(that.node);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, node);
+    }
+  }
+
+  private static class SchemaKey {
+    private final SchemaChange.Target target;
+    private final String keyspace;
+    private final String name;
+    private final List<String> argTypes;
+
+    SchemaKey(SchemaChange change) {
+      this.target = change.target;
+      this.keyspace = change.keyspace;
+      this.name = change.name;
+      this.argTypes = change.argTypes;
+    }
+
+    SchemaKey(String keyspace) {
+      this.target = SchemaChange.Target.KEYSPACE;
+      this.keyspace = keyspace;
+      this.name = null;
+      this.argTypes = null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof SchemaKey)) {
+        return false;
+      }
+      SchemaKey that = (SchemaKey) other;
+      return target == that.target
+          && keyspace.equals(that.keyspace)
+          && Objects.equals(name, that.name)
+          && Objects.equals(argTypes, that.argTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(target, keyspace, name, argTypes);
+    }
+  }
+}
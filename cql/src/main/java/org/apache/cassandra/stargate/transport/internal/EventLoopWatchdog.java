@@ -0,0 +1,240 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects event loops that are blocked, typically by work that should have been done on another
+ * thread.
+ *
+ * <p>Every {@code stargate.cql_event_loop_probe_interval_ms}, a no-op task is submitted to each
+ * loop of the group, and the time it takes to run is exported as the loop's lag, along with its
+ * number of pending tasks. If a probe waits for more than {@code
+ * stargate.cql_event_loop_stall_threshold_ms}, the stack of the loop's thread is logged, at most
+ * once every {@code stargate.cql_event_loop_stall_log_interval_ms} per loop, so that the culprit
+ * can be found.
+ */
+public class EventLoopWatchdog {
+
+  private static final Logger logger = LoggerFactory.getLogger(EventLoopWatchdog.class);
+
+  private static final long PROBE_INTERVAL_MS =
+      Long.getLong("stargate.cql_event_loop_probe_interval_ms", 100);
+  private static final long STALL_THRESHOLD_MS =
+      Long.getLong("stargate.cql_event_loop_stall_threshold_ms", 200);
+  private static final long STALL_LOG_INTERVAL_MS =
+      Long.getLong("stargate.cql_event_loop_stall_log_interval_ms", 10_000);
+
+  private static final int MAX_LOGGED_FRAMES = 40;
+
+  private static final Map<EventLoopGroup, EventLoopWatchdog> watchdogs = new ConcurrentHashMap<>();
+  private static final AtomicInteger groupIds = new AtomicInteger();
+
+  private final EventLoopGroup group;
+  private final long stallThresholdNanos;
+  private final long stallLogIntervalNanos;
+  private final List<Probe> probes = new ArrayList<>();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Starts watching the loops of the group, unless they are already watched (servers can share
+   * their group) or watching is disabled.
+   */
+  static void watch(EventLoopGroup group) {
+    if (PROBE_INTERVAL_MS <= 0) {
+      return;
+    }
+    watchdogs.computeIfAbsent(
+        group,
+        g -> {
+          EventLoopWatchdog watchdog =
+              new EventLoopWatchdog(
+                  g,
+                  String.valueOf(groupIds.incrementAndGet()),
+                  STALL_THRESHOLD_MS,
+                  STALL_LOG_INTERVAL_MS);
+          watchdog.start(PROBE_INTERVAL_MS);
+          return watchdog;
+        });
+  }
+
+  @VisibleForTesting
+  EventLoopWatchdog(
+      EventLoopGroup group,
+      String groupId,
+      long stallThresholdMillis,
+      long stallLogIntervalMillis) {
+    this.group = group;
+    this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+    this.stallLogIntervalNanos = TimeUnit.MILLISECONDS.toNanos(stallLogIntervalMillis);
+    int index = 0;
+    for (EventExecutor loop : group) {
+      Probe probe = new Probe(loop, groupId + "-" + index++);
+      probes.add(probe);
+      ClientMetrics.instance.registerEventLoop(probe.name, probe::lagMicros, probe::pendingTasks);
+    }
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "cql-event-loop-watchdog-" + groupId);
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @VisibleForTesting
+  void start(long probeIntervalMillis) {
+    scheduler.scheduleWithFixedDelay(
+        this::check, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @VisibleForTesting
+  void stop() {
+    scheduler.shutdownNow();
+  }
+
+  @VisibleForTesting
+  List<Probe> probes() {
+    return probes;
+  }
+
+  private void check() {
+    if (group.isShuttingDown()) {
+      watchdogs.remove(group);
+      stop();
+      return;
+    }
+    long now = System.nanoTime();
+    for (Probe probe : probes) {
+      try {
+        probe.check(now);
+      } catch (Throwable t) {
+        logger.warn("Failed to check event loop {}", probe.name, t);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  class Probe {
+    private final EventExecutor loop;
+    private final String name;
+
+    // Written by the watchdog thread, and reset by the loop when the probe runs
+    private volatile long submittedNanos;
+    private volatile long lagNanos;
+    private volatile Thread thread;
+    private boolean stallLogged;
+    private long lastStallLogNanos;
+
+    Probe(EventExecutor loop, String name) {
+      this.loop = loop;
+      this.name = name;
+      // Find out the loop's thread early, so that a stall before the first probe can be sampled
+      try {
+        loop.execute(() -> thread = Thread.currentThread());
+      } catch (RejectedExecutionException e) {
+        // The loop is shutting down, there is nothing to watch
+      }
+    }
+
+    void check(long now) {
+      long submitted = submittedNanos;
+      if (submitted == 0) {
+        submit(now);
+        return;
+      }
+      // The previous probe still hasn't run
+      long waiting = now - submitted;
+      lagNanos = Math.max(lagNanos, waiting);
+      if (waiting > stallThresholdNanos && !stallLogged) {
+        stallLogged = true;
+        ClientMetrics.instance.markEventLoopStall();
+        if (lastStallLogNanos == 0 || now - lastStallLogNanos >= stallLogIntervalNanos) {
+          lastStallLogNanos = now;
+          logStall(waiting);
+        }
+      }
+    }
+
+    private void submit(long now) {
+      submittedNanos = now;
+      stallLogged = false;
+      try {
+        loop.execute(
+            () -> {
+              thread = Thread.currentThread();
+              lagNanos = System.nanoTime() - submittedNanos;
+              submittedNanos = 0;
+            });
+      } catch (RejectedExecutionException e) {
+        // The loop is shutting down
+        submittedNanos = 0;
+      }
+    }
+
+    private void logStall(long waitingNanos) {
+      Thread loopThread = thread;
+      StringBuilder stack = new StringBuilder();
+      if (loopThread != null) {
+        StackTraceElement[] frames = loopThread.getStackTrace();
+        for (int i = 0; i < Math.min(frames.length, MAX_LOGGED_FRAMES); i++) {
+          stack.append("\n\tat ").append(frames[i]);
+        }
+        if (frames.length > MAX_LOGGED_FRAMES) {
+          stack.append("\n\t...");
+        }
+      }
+      logger.warn(
+          "Event loop {} ({}) has been blocked for {} ms with {} pending tasks, its current stack is:{}",
+          name,
+          loopThread == null ? "unknown thread" : loopThread.getName(),
+          TimeUnit.NANOSECONDS.toMillis(waitingNanos),
+          pendingTasks(),
+          stack);
+    }
+
+    long lagMicros() {
+      long submitted = submittedNanos;
+      long lag = lagNanos;
+      if (submitted != 0) {
+        lag = Math.max(lag, System.nanoTime() - submitted);
+      }
+      return TimeUnit.NANOSECONDS.toMicros(lag);
+    }
+
+    int pendingTasks() {
+      return loop instanceof SingleThreadEventExecutor
+          ? ((SingleThreadEventExecutor) loop).pendingTasks()
+          : -1;
+    }
+  }
+}
@@ -125,6 +125,22 @@ public class Frame {
     }
   }
 
+  /** Writes the on-wire header of this frame to {@code dest}. */
+  public void encodeHeader(ByteBuf dest) {
+    Message.Type type = header.type;
+    dest.writeByte(type.direction.addToVersion(header.version.asInt()));
+    dest.writeByte(Header.Flag.serialize(header.flags));
+
+    // Continue to support writing pre-v3 headers so that we can give proper error messages to
+    // drivers that
+    // connect with the v1/v2 protocol. See CASSANDRA-11464.
+    if (header.version.isGreaterOrEqualTo(ProtocolVersion.V3)) dest.writeShort(header.streamId);
+    else dest.writeByte(header.streamId);
+
+    dest.writeByte(type.opcode);
+    dest.writeInt(body.readableBytes());
+  }
+
   public Frame with(ByteBuf newBody) {
     return new Frame(header, newBody);
   }
@@ -270,20 +286,7 @@ public class Frame {
     public void encode(ChannelHandlerContext ctx, Frame frame, List<Object> results)
         throws IOException {
       ByteBuf header = CBUtil.allocator.buffer(Header.LENGTH);
-
-      Message.Type type = frame.header.type;
-      header.writeByte(type.direction.addToVersion(frame.header.version.asInt()));
-      header.writeByte(Header.Flag.serialize(frame.header.flags));
-
-      // Continue to support writing pre-v3 headers so that we can give proper error messages to
-      // drivers that
-      // connect with the v1/v2 protocol. See CASSANDRA-11464.
-      if (frame.header.version.isGreaterOrEqualTo(ProtocolVersion.V3))
-        header.writeShort(frame.header.streamId);
-      else header.writeByte(frame.header.streamId);
-
-      header.writeByte(type.opcode);
-      header.writeInt(frame.body.readableBytes());
+      frame.encodeHeader(header);
 
       int messageSize = header.readableBytes() + frame.body.readableBytes();
       ClientRequestSizeMetrics.totalBytesWritten.inc(messageSize);
@@ -335,7 +338,7 @@ public class Frame {
       }
 
       FrameBodyTransformer transformer = connection.getTransformer();
-      if (transformer == null) {
+      if (transformer == null || !transformer.shouldTransformOutbound(frame.body)) {
         results.add(frame);
         return;
       }
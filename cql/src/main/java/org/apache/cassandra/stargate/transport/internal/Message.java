@@ -221,6 +221,16 @@ public abstract class Message {
     return persistenceConnection().persistence();
   }
 
+  public SchemaMetadataCache schemaMetadataCache() {
+    assert connection instanceof ServerConnection;
+    return ((ServerConnection) connection).schemaMetadataCache();
+  }
+
+  public PreparedStatementRegistry preparedStatements() {
+    assert connection instanceof ServerConnection;
+    return ((ServerConnection) connection).preparedStatements();
+  }
+
   public ClientInfo clientInfo() {
     assert connection instanceof ServerConnection;
     return ((ServerConnection) connection).clientInfo();
@@ -229,6 +239,12 @@ public abstract class Message {
   public abstract static class Request extends Message {
     private boolean tracingRequested;
 
+    // Timestamps for the request latency metrics, see ClientMetrics.recordRequest
+    private long dispatchedNanos;
+    private long executionStartedNanos;
+    private long persistenceStartedNanos;
+    private long completedNanos;
+
     protected Request(Type type) {
       super(type);
 
@@ -237,6 +253,47 @@ public abstract class Message {
 
     protected abstract CompletableFuture<? extends Response> execute(long queryStartNanoTime);
 
+    void markDispatched(long nanos) {
+      dispatchedNanos = nanos;
+    }
+
+    void markExecutionStarted() {
+      executionStartedNanos = System.nanoTime();
+    }
+
+    void markCompleted(Response response) {
+      completedNanos = System.nanoTime();
+      // Cached results carry the time of their original execution, which is before the dispatch
+      if (response instanceof ResultMessage) {
+        long started = ((ResultMessage) response).result.getExecutionStartNanos();
+        if (started != 0 && started - dispatchedNanos >= 0) {
+          persistenceStartedNanos = started;
+        }
+      }
+    }
+
+    public long dispatchedNanos() {
+      return dispatchedNanos;
+    }
+
+    public long executionStartedNanos() {
+      return executionStartedNanos;
+    }
+
+    public long completedNanos() {
+      return completedNanos;
+    }
+
+    /**
+     * How long the request waited between its dispatch and the start of its execution: in the
+     * {@link RequestScheduler} if it is enabled, and in the persistence's own queue if the
+     * persistence reports when it started executing it.
+     */
+    public long queuedNanos() {
+      long started = persistenceStartedNanos != 0 ? persistenceStartedNanos : executionStartedNanos;
+      return started - dispatchedNanos;
+    }
+
     void setTracingRequested() {
       tracingRequested = true;
     }
@@ -363,7 +420,9 @@ public abstract class Message {
 
       Codec<Message> codec = (Codec<Message>) message.type.codec;
       try {
-        int messageSize = codec.encodedSize(message, version);
+        int bodySize = codec.encodedSize(message, version);
+        int messageSize = bodySize;
+        boolean wrapValues = false;
         ByteBuf body;
         if (message instanceof Response) {
           UUID tracingId = ((Response) message).getTracingId();
@@ -382,7 +441,13 @@ public abstract class Message {
                   "Must not send frame with CUSTOM_PAYLOAD flag for native protocol version < 4");
             messageSize += CBUtil.sizeOfBytesMap(customPayload);
           }
-          body = CBUtil.allocator.buffer(messageSize);
+          wrapValues =
+              message instanceof ResultMessage
+                  && connection != null
+                  && connection.getTransformer() == null
+                  && ((ResultMessage) message).shouldWrapValues(bodySize);
+          // When wrapping values, the buffer only holds what comes before them
+          body = CBUtil.allocator.buffer(wrapValues ? messageSize - bodySize : messageSize);
           if (tracingId != null) {
             CBUtil.writeUUID(tracingId, body);
             flags.add(Frame.Header.Flag.TRACING);
@@ -407,11 +472,15 @@ public abstract class Message {
           }
         }
 
-        try {
-          codec.encode(message, body, version);
-        } catch (Throwable e) {
-          body.release();
-          throw e;
+        if (wrapValues) {
+          body = ((ResultMessage) message).encodeWrappingValues(body, version);
+        } else {
+          try {
+            codec.encode(message, body, version);
+          } catch (Throwable e) {
+            body.release();
+            throw e;
+          }
         }
 
         // if the driver attempted to connect with a protocol version lower than the minimum
@@ -446,13 +515,15 @@ public abstract class Message {
     private static class FlushItem {
       final ChannelHandlerContext ctx;
       final Object response;
+      final Request request;
       final Frame sourceFrame;
       final Dispatcher dispatcher;
 
       private FlushItem(
-          ChannelHandlerContext ctx, Object response, Frame sourceFrame, Dispatcher dispatcher) {
+          ChannelHandlerContext ctx, Object response, Request request, Dispatcher dispatcher) {
         this.ctx = ctx;
-        this.sourceFrame = sourceFrame;
+        this.request = request;
+        this.sourceFrame = request.getSourceFrame();
         this.response = response;
         this.dispatcher = dispatcher;
       }
@@ -462,6 +533,8 @@ public abstract class Message {
       }
     }
 
+    // With v5 segment framing, the responses written to a channel between two flushes are packed
+    // together into as few segments as possible (see Segment.Encoder)
     private abstract static class Flusher implements Runnable {
       final EventLoop eventLoop;
       final ConcurrentLinkedQueue<FlushItem> queued = new ConcurrentLinkedQueue<>();
@@ -587,6 +660,24 @@ public abstract class Message {
       ResourceLimits.EndpointAndGlobal endpointAndGlobalPayloadsInFlight =
           endpointPayloadTracker.endpointAndGlobalPayloadsInFlight;
 
+      // requests waiting too long before execution is another sign of overload, that byte limits
+      // don't catch when the requests are small but slow
+      if (RequestScheduler.isScheduled(request.type)
+          && QueueDelayController.instance.isOverloaded()) {
+        if (request.connection.isThrowOnOverload()) {
+          ClientMetrics.instance.markRequestShed();
+          throw ErrorMessage.wrap(
+              new OverloadedException(
+                  "Server is in overloaded state, requests are queuing for too long. Cannot accept more requests at this point"),
+              request.getSourceFrame().header.streamId);
+        } else if (!paused) {
+          // stop reading until one of this channel's requests completes, see releaseItem()
+          ctx.channel().config().setAutoRead(false);
+          ClientMetrics.instance.pauseConnection();
+          paused = true;
+        }
+      }
+
       // check for overloaded state by trying to allocate framesize to inflight payload trackers
       if (endpointAndGlobalPayloadsInFlight.tryAllocate(frameSize)
           != ResourceLimits.Outcome.SUCCESS) {
@@ -608,8 +699,10 @@ public abstract class Message {
           // set backpressure on the channel, and handle the request
           endpointAndGlobalPayloadsInFlight.allocate(frameSize);
           ctx.channel().config().setAutoRead(false);
-          ClientMetrics.instance.pauseConnection();
-          paused = true;
+          if (!paused) {
+            ClientMetrics.instance.pauseConnection();
+            paused = true;
+          }
         }
       }
 
@@ -625,6 +718,7 @@ public abstract class Message {
     private void releaseItem(FlushItem item) {
       long itemSize = item.sourceFrame.header.bodySizeInBytes;
       item.sourceFrame.release();
+      ClientMetrics.instance.recordRequest(item.request, System.nanoTime());
 
       // since the request has been processed, decrement inflight payload at channel, endpoint and
       // global levels
@@ -651,6 +745,7 @@ public abstract class Message {
     void processRequest(ChannelHandlerContext ctx, Request request) {
       final ServerConnection connection;
       long queryStartNanoTime = System.nanoTime();
+      request.markDispatched(queryStartNanoTime);
 
       try {
         assert request.connection() instanceof ServerConnection;
@@ -661,10 +756,15 @@ public abstract class Message {
         logger.trace("Received: {}, v={}", request, connection.getVersion());
         connection.requests.inc();
 
-        CompletableFuture<? extends Response> req = request.execute(queryStartNanoTime);
+        CompletableFuture<? extends Response> req =
+            RequestScheduler.instance.execute(request, queryStartNanoTime);
 
         req.whenComplete(
             (response, err) -> {
+              request.markCompleted(response);
+              if (RequestScheduler.isScheduled(request.type)) {
+                QueueDelayController.instance.recordSojourn(request.queuedNanos());
+              }
               if (err != null) {
                 handleError(ctx, request, err);
               } else {
@@ -674,7 +774,7 @@ public abstract class Message {
                   connection.applyStateTransition(request.type, response.type);
 
                   logger.trace("Responding: {}, v={}", response, connection.getVersion());
-                  flush(new FlushItem(ctx, response, request.getSourceFrame(), this));
+                  flush(new FlushItem(ctx, response, request, this));
                 } catch (Throwable t) {
                   request
                       .getSourceFrame()
@@ -711,7 +811,7 @@ public abstract class Message {
             new Message.Dispatcher.FlushItem(
                 ctx,
                 ErrorMessage.fromException(error, handler).setStreamId(request.getStreamId()),
-                request.getSourceFrame(),
+                request,
                 this));
       } catch (Throwable t) {
         request
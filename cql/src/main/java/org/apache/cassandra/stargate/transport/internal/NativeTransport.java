@@ -0,0 +1,166 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.apache.cassandra.utils.NativeLibrary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Netty transports the CQL server can run on, selected through {@link
+ * TransportDescriptor#getNativeTransportType()}.
+ *
+ * <p>io_uring is only available when Netty's incubator transport ({@code
+ * io.netty.incubator:netty-incubator-transport-native-io_uring}, which needs a more recent Netty
+ * than the one bundled) is on the classpath and the kernel supports it, so it is loaded
+ * reflectively. When the selected transport isn't available, the server falls back to epoll, and
+ * then to NIO.
+ */
+public enum NativeTransport {
+  IO_URING("io_uring") {
+    private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+    @Override
+    boolean isAvailable() {
+      try {
+        return (boolean) Class.forName(PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+      } catch (Throwable t) {
+        logger.debug("io_uring transport not available", t);
+        return false;
+      }
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup() {
+      try {
+        return (EventLoopGroup)
+            Class.forName(PACKAGE + "IOUringEventLoopGroup").getConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Failed to create io_uring event loop group", e);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<? extends ServerChannel> serverChannelClass() {
+      try {
+        return (Class<? extends ServerChannel>)
+            Class.forName(PACKAGE + "IOUringServerSocketChannel");
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException("Failed to load io_uring server channel", e);
+      }
+    }
+  },
+  EPOLL("epoll") {
+    @Override
+    boolean isAvailable() {
+      if (!Epoll.isAvailable() && NativeLibrary.osType == NativeLibrary.OSType.LINUX)
+        logger.warn("epoll not available", Epoll.unavailabilityCause());
+      return Epoll.isAvailable();
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup() {
+      return new EpollEventLoopGroup();
+    }
+
+    @Override
+    public Class<? extends ServerChannel> serverChannelClass() {
+      return EpollServerSocketChannel.class;
+    }
+  },
+  NIO("nio") {
+    @Override
+    boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup() {
+      return new NioEventLoopGroup();
+    }
+
+    @Override
+    public Class<? extends ServerChannel> serverChannelClass() {
+      return NioServerSocketChannel.class;
+    }
+  };
+
+  private static final Logger logger = LoggerFactory.getLogger(NativeTransport.class);
+
+  private static volatile NativeTransport current;
+
+  private final String configName;
+
+  NativeTransport(String configName) {
+    this.configName = configName;
+  }
+
+  abstract boolean isAvailable();
+
+  public abstract EventLoopGroup newEventLoopGroup();
+
+  public abstract Class<? extends ServerChannel> serverChannelClass();
+
+  /** The transport to use, selected on first call. */
+  public static NativeTransport current() {
+    NativeTransport transport = current;
+    if (transport == null) {
+      synchronized (NativeTransport.class) {
+        transport = current;
+        if (transport == null) {
+          transport = select(TransportDescriptor.getNativeTransportType());
+          current = transport;
+        }
+      }
+    }
+    return transport;
+  }
+
+  static NativeTransport select(String configured) {
+    NativeTransport requested = fromConfigName(configured);
+    for (NativeTransport transport : values()) {
+      // Fall back to the transports after the requested one, in order
+      if (transport.ordinal() < requested.ordinal()) continue;
+      if (transport.isAvailable()) {
+        if (transport != requested)
+          logger.warn(
+              "{} transport not available, falling back to {}",
+              requested.configName,
+              transport.configName);
+        logger.info("Netty using {} transport", transport.configName);
+        return transport;
+      }
+    }
+    throw new AssertionError("NIO is always available");
+  }
+
+  private static NativeTransport fromConfigName(String configName) {
+    for (NativeTransport transport : values()) {
+      if (transport.configName.equalsIgnoreCase(configName)) return transport;
+    }
+    throw new IllegalArgumentException(
+        String.format(
+            "Unknown native transport '%s', valid values are io_uring, epoll and nio", configName));
+  }
+}
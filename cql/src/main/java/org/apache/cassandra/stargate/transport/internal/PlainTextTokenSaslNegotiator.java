@@ -3,8 +3,10 @@ package org.apache.cassandra.stargate.transport.internal;
 import com.google.common.annotations.VisibleForTesting;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.auth.StoredCredentials;
+import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.AuthenticatedUser;
 import io.stargate.db.Authenticator;
+import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.apache.cassandra.stargate.exceptions.AuthenticationException;
@@ -22,12 +24,27 @@ class PlainTextTokenSaslNegotiator implements Authenticator.SaslNegotiator {
 
   private final AuthenticationService authentication;
   private final Authenticator.SaslNegotiator wrapped;
+  private final InetAddress clientAddress;
+  private final TokenAuthenticationGuard guard;
   private StoredCredentials storedCredentials;
 
   PlainTextTokenSaslNegotiator(
-      Authenticator.SaslNegotiator wrapped, AuthenticationService authentication) {
+      Authenticator.SaslNegotiator wrapped,
+      AuthenticationService authentication,
+      InetAddress clientAddress) {
+    this(wrapped, authentication, clientAddress, TokenAuthenticationGuard.instance);
+  }
+
+  @VisibleForTesting
+  PlainTextTokenSaslNegotiator(
+      Authenticator.SaslNegotiator wrapped,
+      AuthenticationService authentication,
+      InetAddress clientAddress,
+      TokenAuthenticationGuard guard) {
     this.authentication = authentication;
     this.wrapped = wrapped;
+    this.clientAddress = clientAddress;
+    this.guard = guard;
   }
 
   @Override
@@ -47,24 +64,40 @@ class PlainTextTokenSaslNegotiator implements Authenticator.SaslNegotiator {
     else return wrapped.getAuthenticatedUser();
   }
 
+  /**
+   * @throws AuthenticationException if the attempt is rejected without consulting the
+   *     authentication service, see {@link TokenAuthenticationGuard}.
+   */
   @VisibleForTesting
-  boolean attemptTokenAuthentication(byte[] clientResponse) {
+  boolean attemptTokenAuthentication(byte[] clientResponse) throws AuthenticationException {
+    Credentials credentials;
     try {
-      Credentials credentials = decodeCredentials(clientResponse);
+      credentials = decodeCredentials(clientResponse);
+    } catch (Exception e) {
+      logger.error("Unable to validate token", e);
+      return false;
+    }
 
-      if (!credentials.username.equals(TOKEN_USERNAME)) return false;
+    if (!credentials.username.equals(TOKEN_USERNAME)) return false;
 
-      logger.trace("Attempting to validate token");
-      if (credentials.password.length() > TOKEN_MAX_LENGTH) {
-        logger.error("Token was too long ({} characters)", credentials.password.length());
-        return false;
-      }
+    logger.trace("Attempting to validate token");
+    if (credentials.password.length() > TOKEN_MAX_LENGTH) {
+      logger.error("Token was too long ({} characters)", credentials.password.length());
+      return false;
+    }
 
+    guard.checkAttempt(clientAddress, credentials.password);
+
+    try {
       storedCredentials = authentication.validateToken(credentials.password);
       if (storedCredentials == null) {
         logger.error("Null credentials returned from authentication service");
         return false;
       }
+    } catch (UnauthorizedException e) {
+      guard.recordFailure(clientAddress, credentials.password);
+      logger.error("Unable to validate token", e);
+      return false;
     } catch (Exception e) {
       logger.error("Unable to validate token", e);
       return false;
@@ -0,0 +1,156 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.stargate.db.Result;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import org.apache.cassandra.stargate.exceptions.PreparedQueryNotFoundException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+
+/**
+ * Remembers the query and keyspace of the statements prepared by clients, so that a statement the
+ * persistence layer no longer knows about (because it restarted, or evicted it from its own cache)
+ * can be prepared again without a round trip to the client.
+ *
+ * <p>The registry also counts the executions of each statement, so that the most used ones can be
+ * prepared ahead of client traffic after a restart (see {@link PreparedStatementWarmer}).
+ *
+ * <p>Concurrent re-prepares of the same statement share a single prepare call. The number of
+ * statements remembered is bounded by {@code stargate.cql_prepared_statement_registry_size}, which
+ * disables transparent re-prepares when set to 0.
+ */
+public class PreparedStatementRegistry {
+
+  private static final int MAX_SIZE =
+      Integer.getInteger("stargate.cql_prepared_statement_registry_size", 10_000);
+
+  private final Cache<MD5Digest, PreparedQuery> queries;
+  private final ConcurrentMap<MD5Digest, CompletableFuture<Result.Prepared>> inFlight =
+      new ConcurrentHashMap<>();
+
+  public PreparedStatementRegistry() {
+    this(MAX_SIZE);
+  }
+
+  @VisibleForTesting
+  PreparedStatementRegistry(int maxSize) {
+    this.queries = CacheBuilder.newBuilder().maximumSize(Math.max(maxSize, 0)).build();
+  }
+
+  /** Records the query and keyspace a statement was prepared with. */
+  public void register(MD5Digest statementId, String query, String keyspace) {
+    register(statementId, query, keyspace, 0);
+  }
+
+  void register(MD5Digest statementId, String query, String keyspace, long executions) {
+    // The id is derived from the query and keyspace, so there is no need to replace the entry when
+    // another client prepares the same statement, and doing so would lose its execution count.
+    queries.asMap().putIfAbsent(statementId, new PreparedQuery(query, keyspace, executions));
+  }
+
+  /** Counts an execution of the statement, if it is registered. */
+  public void recordExecution(MD5Digest statementId) {
+    PreparedQuery preparedQuery = queries.getIfPresent(statementId);
+    if (preparedQuery != null) {
+      preparedQuery.executions.increment();
+    }
+  }
+
+  /** The registered statements with the most executions, most executed first. */
+  List<PreparedQuery> mostExecuted(int limit) {
+    List<PreparedQuery> all = new ArrayList<>(queries.asMap().values());
+    all.sort(Comparator.comparingLong(PreparedQuery::executions).reversed());
+    return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+  }
+
+  /**
+   * Prepares the statement again, using the query and keyspace it was registered with.
+   *
+   * <p>The returned future fails with a {@link PreparedQueryNotFoundException} if preparing the
+   * query now results in a different statement id, e.g. if the query isn't fully qualified and the
+   * keyspace it was prepared in is unknown.
+   *
+   * @param prepare the function that prepares a query (first argument) in a keyspace (second
+   *     argument, which can be {@code null}).
+   * @return the future prepare result, or {@code null} if the statement is unknown.
+   */
+  public CompletableFuture<Result.Prepared> reprepare(
+      MD5Digest statementId,
+      BiFunction<String, String, CompletableFuture<Result.Prepared>> prepare) {
+    PreparedQuery preparedQuery = queries.getIfPresent(statementId);
+    if (preparedQuery == null) {
+      return null;
+    }
+
+    CompletableFuture<Result.Prepared> promise = new CompletableFuture<>();
+    CompletableFuture<Result.Prepared> existing = inFlight.putIfAbsent(statementId, promise);
+    if (existing != null) {
+      return existing;
+    }
+
+    ClientMetrics.instance.markTransparentReprepare();
+    CompletableFuture<Result.Prepared> future;
+    try {
+      future = prepare.apply(preparedQuery.query, preparedQuery.keyspace);
+    } catch (Throwable t) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(t);
+    }
+    future.whenComplete(
+        (prepared, error) -> {
+          inFlight.remove(statementId, promise);
+          if (error == null && !statementId.equals(prepared.statementId)) {
+            // Not the same statement anymore, don't try again on the next execution
+            queries.invalidate(statementId);
+            error = new PreparedQueryNotFoundException(statementId);
+          }
+          if (error != null) {
+            ClientMetrics.instance.markTransparentReprepareFailure();
+            promise.completeExceptionally(error);
+          } else {
+            promise.complete(prepared);
+          }
+        });
+    return promise;
+  }
+
+  static class PreparedQuery {
+    final String query;
+    final String keyspace;
+    private final LongAdder executions = new LongAdder();
+
+    PreparedQuery(String query, String keyspace, long executions) {
+      this.query = query;
+      this.keyspace = keyspace;
+      this.executions.add(executions);
+    }
+
+    long executions() {
+      return executions.sum();
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import io.stargate.db.ImmutableParameters;
+import io.stargate.db.Parameters;
+import io.stargate.db.Persistence;
+import io.stargate.db.SimpleStatement;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.internal.PreparedStatementRegistry.PreparedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the most executed prepared statements to a local file, and prepares them again when the
+ * server starts, so that clients reconnecting after a restart don't all have to re-prepare them at
+ * once.
+ *
+ * <p>Up to {@code stargate.cql_prepared_statements_warmup_count} statements are saved to {@code
+ * stargate.cql_prepared_statements_file} every {@code stargate.cql_prepared_statements_save_ms}
+ * milliseconds and on shutdown. The warm-up is disabled unless the file is set, since Stargate has
+ * no persistent data directory to default it to (the persistence directories are temporary).
+ */
+public class PreparedStatementWarmer {
+  private static final Logger logger = LoggerFactory.getLogger(PreparedStatementWarmer.class);
+
+  private static final String FILE = System.getProperty("stargate.cql_prepared_statements_file");
+  private static final int MAX_STATEMENTS =
+      Integer.getInteger("stargate.cql_prepared_statements_warmup_count", 1000);
+  private static final long SAVE_INTERVAL_MS =
+      Long.getLong("stargate.cql_prepared_statements_save_ms", 60_000);
+  private static final long WARMUP_TIMEOUT_MS =
+      Long.getLong("stargate.cql_prepared_statements_warmup_timeout_ms", 30_000);
+  private static final int WARMUP_CONCURRENCY =
+      Integer.getInteger("stargate.cql_prepared_statements_warmup_concurrency", 32);
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final Persistence persistence;
+  private final PreparedStatementRegistry registry;
+  private final Path file;
+  private final int maxStatements;
+  private ScheduledExecutorService saver;
+
+  public PreparedStatementWarmer(Persistence persistence, PreparedStatementRegistry registry) {
+    this(
+        persistence,
+        registry,
+        Strings.isNullOrEmpty(FILE) ? null : Paths.get(FILE),
+        MAX_STATEMENTS);
+  }
+
+  @VisibleForTesting
+  PreparedStatementWarmer(
+      Persistence persistence, PreparedStatementRegistry registry, Path file, int maxStatements) {
+    this.persistence = persistence;
+    this.registry = registry;
+    this.file = file;
+    this.maxStatements = maxStatements;
+  }
+
+  private boolean isEnabled() {
+    return file != null && maxStatements > 0;
+  }
+
+  /**
+   * Prepares the statements saved by a previous run, waiting at most {@code
+   * stargate.cql_prepared_statements_warmup_timeout_ms} for them to complete.
+   */
+  public void warmUp() {
+    if (!isEnabled() || !Files.exists(file)) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    List<PreparedQuery> saved;
+    try {
+      saved = load();
+    } catch (IOException e) {
+      logger.warn("Failed to read saved prepared statements from {}, skipping warm-up", file, e);
+      return;
+    }
+
+    AtomicInteger prepared = new AtomicInteger();
+    Queue<PreparedQuery> pending = new ConcurrentLinkedQueue<>(saved);
+    ConcurrentMap<String, CompletableFuture<Persistence.Connection>> connections =
+        new ConcurrentHashMap<>();
+    CompletableFuture<?>[] workers =
+        new CompletableFuture<?>[Math.max(1, Math.min(WARMUP_CONCURRENCY, saved.size()))];
+    for (int i = 0; i < workers.length; i++) {
+      workers[i] = prepareNext(pending, connections, prepared);
+    }
+
+    try {
+      CompletableFuture.allOf(workers).get(WARMUP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Leave the remaining statements to the clients
+      pending.clear();
+      logger.warn("Prepared statements warm-up timed out after {}ms", WARMUP_TIMEOUT_MS);
+    } catch (Exception e) {
+      logger.warn("Prepared statements warm-up failed", e);
+    }
+
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    ClientMetrics.instance.recordPreparedStatementsWarmup(
+        elapsedMillis, prepared.get(), saved.size());
+    logger.info(
+        "Prepared {} of {} saved statements in {}ms", prepared.get(), saved.size(), elapsedMillis);
+  }
+
+  private CompletableFuture<Void> prepareNext(
+      Queue<PreparedQuery> pending,
+      ConcurrentMap<String, CompletableFuture<Persistence.Connection>> connections,
+      AtomicInteger prepared) {
+    PreparedQuery query = pending.poll();
+    if (query == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return connections
+        .computeIfAbsent(Strings.nullToEmpty(query.keyspace), k -> connect(query.keyspace))
+        .thenCompose(connection -> connection.prepare(query.query, parameters(query.keyspace)))
+        .handle(
+            (result, error) -> {
+              if (error == null) {
+                registry.register(
+                    result.statementId, query.query, query.keyspace, query.executions());
+                prepared.incrementAndGet();
+              } else {
+                logger.debug("Failed to prepare saved statement {}", query.query, error);
+              }
+              return (Void) null;
+            })
+        .thenCompose(v -> prepareNext(pending, connections, prepared));
+  }
+
+  /**
+   * Opens a connection that uses the keyspace, so that queries that aren't fully qualified get the
+   * same statement id as when clients prepared them.
+   */
+  private CompletableFuture<Persistence.Connection> connect(String keyspace) {
+    Persistence.Connection connection = persistence.newConnection();
+    if (keyspace == null) {
+      return CompletableFuture.completedFuture(connection);
+    }
+    return connection
+        .execute(
+            new SimpleStatement("USE \"" + keyspace.replace("\"", "\"\"") + "\""),
+            parameters(keyspace),
+            System.nanoTime())
+        .thenApply(result -> connection);
+  }
+
+  private static Parameters parameters(String keyspace) {
+    return ImmutableParameters.builder().defaultKeyspace(Optional.ofNullable(keyspace)).build();
+  }
+
+  /** Starts saving the most executed statements periodically. */
+  public synchronized void start() {
+    if (!isEnabled() || saver != null) {
+      return;
+    }
+    saver =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "prepared-statements-saver");
+              thread.setDaemon(true);
+              return thread;
+            });
+    saver.scheduleWithFixedDelay(
+        this::trySave, SAVE_INTERVAL_MS, SAVE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the periodic saves, and saves the most executed statements one last time. */
+  public synchronized void stop() {
+    if (saver == null) {
+      return;
+    }
+    saver.shutdownNow();
+    saver = null;
+    trySave();
+  }
+
+  private void trySave() {
+    try {
+      save();
+    } catch (Exception e) {
+      logger.warn("Failed to save prepared statements to {}", file, e);
+    }
+  }
+
+  @VisibleForTesting
+  void save() throws IOException {
+    List<PreparedQuery> queries = registry.mostExecuted(maxStatements);
+    if (queries.isEmpty()) {
+      // Don't overwrite the statements of a previous run before this one had any traffic
+      return;
+    }
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(queries.size());
+      for (PreparedQuery query : queries) {
+        out.writeLong(query.executions());
+        writeString(query.keyspace, out);
+        writeString(query.query, out);
+      }
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @VisibleForTesting
+  List<PreparedQuery> load() throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      int version = in.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported prepared statements file version " + version);
+      }
+      int count = in.readInt();
+      List<PreparedQuery> queries = new ArrayList<>(Math.min(count, maxStatements));
+      for (int i = 0; i < count && i < maxStatements; i++) {
+        long executions = in.readLong();
+        String keyspace = readString(in);
+        String query = readString(in);
+        queries.add(new PreparedQuery(query, keyspace, executions));
+      }
+      return queries;
+    }
+  }
+
+  private static void writeString(String value, DataOutputStream out) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
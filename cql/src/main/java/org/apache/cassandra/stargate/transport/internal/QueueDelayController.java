@@ -0,0 +1,121 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+
+/**
+ * Detects overload from the time queries, executes and batches wait before being executed, in the
+ * manner of CoDel (controlled delay).
+ *
+ * <p>Time is split in intervals of {@code stargate.cql_queue_delay_interval_ms}. If even the
+ * shortest wait of an interval was above {@code stargate.cql_queue_delay_target_ms}, the queue
+ * isn't draining and the server is considered overloaded until an interval ends with a shorter
+ * wait, or without any queued request. Short bursts, which the queue absorbs, don't trigger it,
+ * whereas a standing queue of small but slow requests does, even though it doesn't add up to enough
+ * bytes in flight for the {@link Server.EndpointPayloadTracker} limits.
+ *
+ * <p>The wait goes from the dispatch of a request to the start of its execution by the persistence,
+ * so it includes the {@link RequestScheduler} queue when it is enabled, and the persistence's own
+ * queue when the persistence reports it (see {@link
+ * io.stargate.db.Result#getExecutionStartNanos()}). Waits are recorded when requests complete. If
+ * neither queue is observable, waits are always close to 0 and this never reports an overload.
+ *
+ * <p>Shedding is disabled by default ({@code stargate.cql_queue_delay_target_ms} is 0): clients
+ * that don't use THROW_ON_OVERLOAD have their connection paused instead, so the target should be
+ * chosen from the waits observed under normal load, see the {@code QueueDelay} client metric.
+ */
+public class QueueDelayController {
+
+  public static final QueueDelayController instance =
+      new QueueDelayController(
+          Long.getLong("stargate.cql_queue_delay_target_ms", 0),
+          Long.getLong("stargate.cql_queue_delay_interval_ms", 100));
+
+  private final long targetNanos;
+  private final long intervalNanos;
+
+  // Only updated while holding this, when the interval ends
+  private volatile long intervalEnd;
+  private final AtomicLong minSojournNanos = new AtomicLong(Long.MAX_VALUE);
+
+  private volatile boolean overloaded;
+
+  @VisibleForTesting
+  QueueDelayController(long targetMillis, long intervalMillis) {
+    this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.intervalEnd = System.nanoTime() + intervalNanos;
+  }
+
+  public boolean isEnabled() {
+    return targetNanos > 0 && intervalNanos > 0;
+  }
+
+  /** Records how long a request waited before being executed. */
+  public void recordSojourn(long nanos) {
+    recordSojourn(nanos, System.nanoTime());
+  }
+
+  @VisibleForTesting
+  void recordSojourn(long nanos, long now) {
+    ClientMetrics.instance.recordQueueDelay(nanos);
+    if (!isEnabled()) {
+      return;
+    }
+    maybeEndInterval(now);
+    minSojournNanos.accumulateAndGet(nanos, Math::min);
+  }
+
+  /** Whether new requests should currently be shed. */
+  public boolean isOverloaded() {
+    return isOverloaded(System.nanoTime());
+  }
+
+  @VisibleForTesting
+  boolean isOverloaded(long now) {
+    if (!isEnabled()) {
+      return false;
+    }
+    maybeEndInterval(now);
+    return overloaded;
+  }
+
+  private void maybeEndInterval(long now) {
+    if (now - intervalEnd < 0) {
+      return;
+    }
+    synchronized (this) {
+      // Another thread may have ended it while this one waited
+      if (now - intervalEnd < 0) {
+        return;
+      }
+      endInterval(now);
+    }
+  }
+
+  private void endInterval(long now) {
+    long min = minSojournNanos.getAndSet(Long.MAX_VALUE);
+    // An interval without any sample means nothing was queued
+    overloaded = min != Long.MAX_VALUE && min > targetNanos;
+    // If intervals went by without any sample, the next one starts now
+    intervalEnd =
+        now - intervalEnd >= intervalNanos ? now + intervalNanos : intervalEnd + intervalNanos;
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.util.concurrent.EventExecutor;
+import io.stargate.db.AuthenticatedUser;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares the persistence between roles, so that one role sending a lot of requests (a bulk load for
+ * instance) doesn't starve the others.
+ *
+ * <p>Queries, executes and batches are queued per role, and at most {@code
+ * stargate.cql_scheduler_max_concurrent} of them are executing at any time. Queues are served with
+ * deficit round robin: on each round, a role can start as many requests as its weight, which
+ * defaults to 1 and can be set with {@code stargate.cql_scheduler_weights} (e.g. {@code
+ * "etl:1,web:4"}). A role can additionally be limited to {@code
+ * stargate.cql_scheduler_max_concurrent_per_role} executing requests.
+ *
+ * <p>Scheduling is disabled by default ({@code stargate.cql_scheduler_max_concurrent} is 0), in
+ * which case requests are executed as soon as they are received. Either way, the byte based limits
+ * of {@link Server.EndpointPayloadTracker} still apply before requests get here.
+ */
+public class RequestScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestScheduler.class);
+
+  static final String ANONYMOUS = "";
+
+  public static final RequestScheduler instance =
+      new RequestScheduler(
+          Integer.getInteger("stargate.cql_scheduler_max_concurrent", 0),
+          Integer.getInteger("stargate.cql_scheduler_max_concurrent_per_role", 0),
+          parseWeights(System.getProperty("stargate.cql_scheduler_weights", "")));
+
+  private final int maxConcurrent;
+  private final int maxConcurrentPerRole;
+  private final Map<String, Integer> weights;
+
+  // All of the following is guarded by this
+  private final Map<String, RoleQueue> queues = new HashMap<>();
+  private final ArrayDeque<RoleQueue> active = new ArrayDeque<>();
+  private int inFlight;
+  private int queued;
+
+  private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> false);
+
+  @VisibleForTesting
+  RequestScheduler(int maxConcurrent, int maxConcurrentPerRole, Map<String, Integer> weights) {
+    this.maxConcurrent = maxConcurrent;
+    this.maxConcurrentPerRole = maxConcurrentPerRole;
+    this.weights = weights;
+  }
+
+  public boolean isEnabled() {
+    return maxConcurrent > 0;
+  }
+
+  /** Executes the request now, or once its role's turn comes if it is subject to scheduling. */
+  CompletableFuture<? extends Message.Response> execute(
+      Message.Request request, long queryStartNanoTime) {
+    if (!isEnabled() || !isScheduled(request.type)) {
+      request.markExecutionStarted();
+      return request.execute(queryStartNanoTime);
+    }
+    String role =
+        request.persistenceConnection().loggedUser().map(AuthenticatedUser::name).orElse(ANONYMOUS);
+    // Queued requests are started by whichever request completes first, usually on a persistence
+    // thread, but they should execute on their channel's event loop like unscheduled ones
+    return submit(
+        role,
+        request.connection().channel().eventLoop(),
+        () -> {
+          request.markExecutionStarted();
+          return request.execute(queryStartNanoTime);
+        });
+  }
+
+  static boolean isScheduled(Message.Type type) {
+    return type == Message.Type.QUERY || type == Message.Type.EXECUTE || type == Message.Type.BATCH;
+  }
+
+  /** The number of requests waiting for their turn. */
+  public synchronized int queued() {
+    return queued;
+  }
+
+  /**
+   * Queues a task for the role.
+   *
+   * @param executor where to start the task if it isn't started right away by the calling thread.
+   *     If it is an {@link EventExecutor}, the task is also started inline when it gets its turn on
+   *     that executor's thread.
+   */
+  @VisibleForTesting
+  <T> CompletableFuture<T> submit(
+      String role, Executor executor, Supplier<? extends CompletableFuture<T>> task) {
+    if (!isEnabled()) {
+      return task.get();
+    }
+    Task<T> scheduled = new Task<>(role, executor, task);
+    synchronized (this) {
+      RoleQueue queue = queues.computeIfAbsent(role, r -> new RoleQueue(weight(r)));
+      queue.pending.add(scheduled);
+      queued++;
+      if (!queue.active) {
+        queue.active = true;
+        active.addLast(queue);
+      }
+    }
+    runReady();
+    return scheduled.result;
+  }
+
+  private int weight(String role) {
+    return Math.max(1, weights.getOrDefault(role, 1));
+  }
+
+  private void runReady() {
+    // Requests that complete right away release their slot from within run(), the outer call
+    // picks up whatever that made ready instead of recursing
+    if (draining.get()) {
+      return;
+    }
+    draining.set(true);
+    try {
+      List<Task<?>> ready;
+      while (!(ready = pollReady()).isEmpty()) {
+        for (Task<?> task : ready) {
+          task.run();
+        }
+      }
+    } finally {
+      draining.set(false);
+    }
+  }
+
+  private synchronized List<Task<?>> pollReady() {
+    List<Task<?>> ready = null;
+    // Roles that are at their own limit are skipped, stop once all remaining ones were
+    int skipped = 0;
+    while (inFlight < maxConcurrent && skipped < active.size()) {
+      RoleQueue queue = active.peekFirst();
+      if (queue.deficit < 1) {
+        queue.deficit += queue.weight;
+      }
+      if (maxConcurrentPerRole > 0 && queue.inFlight >= maxConcurrentPerRole) {
+        active.addLast(active.pollFirst());
+        skipped++;
+        continue;
+      }
+      skipped = 0;
+      Task<?> task = queue.pending.poll();
+      queue.deficit--;
+      queue.inFlight++;
+      inFlight++;
+      queued--;
+      if (ready == null) {
+        ready = new ArrayList<>();
+      }
+      ready.add(task);
+      if (queue.pending.isEmpty()) {
+        active.pollFirst();
+        queue.active = false;
+        queue.deficit = 0;
+      } else if (queue.deficit < 1) {
+        active.addLast(active.pollFirst());
+      }
+    }
+    return ready == null ? Collections.emptyList() : ready;
+  }
+
+  private void release(String role) {
+    synchronized (this) {
+      inFlight--;
+      RoleQueue queue = queues.get(role);
+      queue.inFlight--;
+      if (queue.inFlight == 0 && !queue.active) {
+        queues.remove(role);
+      }
+    }
+    runReady();
+  }
+
+  static Map<String, Integer> parseWeights(String spec) {
+    Map<String, Integer> weights = new HashMap<>();
+    for (String entry : spec.split(",")) {
+      if (entry.trim().isEmpty()) {
+        continue;
+      }
+      int separator = entry.lastIndexOf(':');
+      try {
+        if (separator <= 0) {
+          throw new NumberFormatException();
+        }
+        weights.put(
+            entry.substring(0, separator).trim(),
+            Integer.parseInt(entry.substring(separator + 1).trim()));
+      } catch (NumberFormatException e) {
+        logger.warn(
+            "Ignoring invalid entry '{}' in stargate.cql_scheduler_weights, expected role:weight",
+            entry);
+      }
+    }
+    return weights;
+  }
+
+  private static class RoleQueue {
+    private final int weight;
+    private final ArrayDeque<Task<?>> pending = new ArrayDeque<>();
+    private int deficit;
+    private int inFlight;
+    private boolean active;
+
+    RoleQueue(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  private class Task<T> {
+    private final String role;
+    private final Executor executor;
+    private final Supplier<? extends CompletableFuture<T>> task;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final long queuedNanos = System.nanoTime();
+
+    Task(String role, Executor executor, Supplier<? extends CompletableFuture<T>> task) {
+      this.role = role;
+      this.executor = executor;
+      this.task = task;
+    }
+
+    void run() {
+      if (executor instanceof EventExecutor && ((EventExecutor) executor).inEventLoop()) {
+        start();
+        return;
+      }
+      try {
+        executor.execute(this::start);
+      } catch (RejectedExecutionException e) {
+        // The channel's event loop is shutting down
+        release(role);
+        result.completeExceptionally(e);
+      }
+    }
+
+    private void start() {
+      long sojourn = System.nanoTime() - queuedNanos;
+      ClientMetrics.instance.recordRequestQueueTime(role, sojourn);
+      CompletableFuture<T> future;
+      try {
+        future = task.get();
+      } catch (Throwable t) {
+        release(role);
+        result.completeExceptionally(t);
+        return;
+      }
+      future.whenComplete(
+          (value, error) -> {
+            release(role);
+            if (error != null) {
+              result.completeExceptionally(error);
+            } else {
+              result.complete(value);
+            }
+          });
+    }
+  }
+}
@@ -3,6 +3,7 @@ package org.apache.cassandra.stargate.transport.internal;
 import io.stargate.db.Persistence;
 import io.stargate.db.Result;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.cassandra.stargate.transport.ServerError;
@@ -16,50 +17,59 @@ public class SchemaAgreement {
   private static final int SCHEMA_AGREEMENT_WAIT_RETRIES =
       Integer.getInteger("stargate.cql.schema.agreement.wait.retries", 1800);
 
+  private static final long SCHEMA_AGREEMENT_TIMEOUT_MS = SCHEMA_AGREEMENT_WAIT_RETRIES * 100L;
+
   private static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1);
 
+  static {
+    EXECUTOR.setRemoveOnCancelPolicy(true);
+  }
+
   public static CompletableFuture<? extends Result> maybeWaitForAgreement(
       CompletableFuture<? extends Result> future, Persistence persistence) {
     return future.thenCompose(
         (result) -> {
           CompletableFuture<? extends Result> resultFuture = future;
           if (result.kind == Result.Kind.SchemaChange) {
-            CompletableFuture<Result> agreementFuture = new CompletableFuture<Result>();
-            EXECUTOR.schedule(
-                new SchemaAgreement.Handler(agreementFuture, result, persistence),
-                100,
-                TimeUnit.MILLISECONDS);
-            resultFuture = agreementFuture;
+            resultFuture = waitForAgreement(result, persistence);
           }
           return resultFuture;
         });
   }
 
-  private static class Handler implements Runnable {
-    private final CompletableFuture<Result> future;
-    private final Persistence persistence;
-    private final Result result;
-    private int count;
-
-    Handler(CompletableFuture<Result> future, Result result, Persistence persistence) {
-      this.future = future;
-      this.persistence = persistence;
-      this.result = result;
-      this.count = SCHEMA_AGREEMENT_WAIT_RETRIES;
-    }
+  private static CompletableFuture<Result> waitForAgreement(
+      Result result, Persistence persistence) {
+    CompletableFuture<Result> agreementFuture = new CompletableFuture<>();
+    ScheduledFuture<?> timeout =
+        EXECUTOR.schedule(
+            () ->
+                agreementFuture.completeExceptionally(
+                    new ServerError(
+                        "Failed to reach schema agreement after "
+                            + SCHEMA_AGREEMENT_TIMEOUT_MS
+                            + " milliseconds.")),
+            SCHEMA_AGREEMENT_TIMEOUT_MS,
+            TimeUnit.MILLISECONDS);
+    agreementFuture.whenComplete((r, t) -> timeout.cancel(false));
 
-    @Override
-    public void run() {
-      if (persistence.isInSchemaAgreement()) {
-        future.complete(result);
-      } else if (count > 0) {
-        count--;
-        EXECUTOR.schedule(this, 100, TimeUnit.MILLISECONDS);
-      } else {
-        future.completeExceptionally(
-            new ServerError(
-                "Failed to reach schema agreement after " + (count * 100) + " milliseconds."));
-      }
-    }
+    // Leave the new schema version a moment to be published in gossip, so that the first check
+    // doesn't see an agreement on the previous version. After that, the persistence completes the
+    // future as soon as the versions converge.
+    EXECUTOR.schedule(
+        () ->
+            persistence
+                .schemaAgreementFuture()
+                .whenComplete(
+                    (v, t) -> {
+                      if (t == null) {
+                        agreementFuture.complete(result);
+                      } else {
+                        agreementFuture.completeExceptionally(
+                            new ServerError("Failed to reach schema agreement: " + t.getMessage()));
+                      }
+                    }),
+        100,
+        TimeUnit.MILLISECONDS);
+    return agreementFuture;
   }
 }
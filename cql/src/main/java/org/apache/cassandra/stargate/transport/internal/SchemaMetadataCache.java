@@ -0,0 +1,348 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.stargate.db.EventListener;
+import io.stargate.db.Result;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.messages.ResultMessage;
+
+/**
+ * Serves the {@code system_schema} queries that drivers issue when connecting and after every
+ * schema change from already encoded results.
+ *
+ * <p>Results are kept for the current schema version, which changes on every schema change
+ * notification from the persistence layer. After a change, the first client to query a given table
+ * rebuilds its entry, and the others wait for it and are served from it.
+ *
+ * <p>Only queries that select from a single {@code system_schema} table, optionally restricted by
+ * keyspace or element name, are served from the cache. Only complete results (no more pages) of
+ * queries without bound values are cached. The total size of the encoded results is bounded by
+ * {@code stargate.cql_schema_cache_max_bytes}, which disables the cache when set to 0.
+ */
+public class SchemaMetadataCache implements EventListener {
+
+  private static final long MAX_BYTES =
+      Long.getLong("stargate.cql_schema_cache_max_bytes", 64L * 1024 * 1024);
+
+  // A string literal, without escaped quotes
+  private static final String LITERAL = "'[^']*'";
+  // Restrictions on the keyspace and table names, as drivers use to refresh part of the schema
+  private static final String RESTRICTION =
+      "(keyspace_name|table_name|type_name|function_name|aggregate_name|view_name)\\s*"
+          + "(=\\s*"
+          + LITERAL
+          + "|IN\\s*\\(\\s*"
+          + LITERAL
+          + "(\\s*,\\s*"
+          + LITERAL
+          + ")*\\s*\\))";
+
+  // The whole query must be a selection from a single system_schema table, and nothing that can
+  // carry other data (a comment, another FROM, or any other WHERE clause) is allowed
+  private static final Pattern SCHEMA_QUERY =
+      Pattern.compile(
+          "\\s*SELECT\\s+(\\*|\\w+(\\s*,\\s*\\w+)*)"
+              + "\\s+FROM\\s+\"?system_schema\"?\\s*\\.\\s*\"?\\w+\"?"
+              + "(\\s+WHERE\\s+"
+              + RESTRICTION
+              + "(\\s+AND\\s+"
+              + RESTRICTION
+              + ")*)?\\s*;?\\s*",
+          Pattern.CASE_INSENSITIVE);
+
+  private final AtomicLong version = new AtomicLong();
+  private final Cache<Key, Entry> entries;
+  private final ConcurrentMap<Key, Load> inFlight = new ConcurrentHashMap<>();
+  private final boolean enabled;
+
+  public SchemaMetadataCache() {
+    this(MAX_BYTES);
+  }
+
+  @VisibleForTesting
+  SchemaMetadataCache(long maxBytes) {
+    this.enabled = maxBytes > 0;
+    this.entries =
+        CacheBuilder.newBuilder()
+            .maximumWeight(Math.max(maxBytes, 0))
+            .weigher((Key k, Entry e) -> e.body.length)
+            .build();
+  }
+
+  /** Whether the results of the query can be served from this cache. */
+  public boolean isCacheable(String query, QueryOptions options) {
+    return enabled
+        && options.getValues().isEmpty()
+        && options.getPagingState() == null
+        && SCHEMA_QUERY.matcher(query).matches();
+  }
+
+  /** The current schema version, to pass to {@link #put} once the query completes. */
+  public long version() {
+    return version.get();
+  }
+
+  /**
+   * Returns the cached response to a query, or {@code null} if there is none for the current schema
+   * version.
+   */
+  public ResultMessage get(String query, QueryOptions options) {
+    Entry entry = entries.getIfPresent(new Key(query, options));
+    if (entry == null || entry.version != version.get()) {
+      return null;
+    }
+    return ResultMessage.preEncoded(entry.result, entry.body);
+  }
+
+  /**
+   * Returns the cached response to a query, or executes it and caches its result.
+   *
+   * <p>Concurrent misses on the same query for the same schema version share a single execution:
+   * the other callers wait for it, then are served from the cache. If the result could not be
+   * cached (or the execution failed), they execute the query themselves.
+   *
+   * @param execute executes the query against the persistence layer, and returns the response.
+   */
+  public CompletableFuture<ResultMessage> execute(
+      String query, QueryOptions options, Supplier<CompletableFuture<ResultMessage>> execute) {
+    ResultMessage cached = get(query, options);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    long version = this.version.get();
+    Key key = new Key(query, options);
+    Load load = new Load(version);
+    Load existing = inFlight.putIfAbsent(key, load);
+    if (existing == null) {
+      return load(key, query, options, version, execute, load);
+    }
+    if (existing.version != version) {
+      // Started before the last schema change, its result won't be cached
+      return load(key, query, options, version, execute, null);
+    }
+    return existing.done.thenCompose(
+        v -> {
+          ResultMessage result = get(query, options);
+          return result != null
+              ? CompletableFuture.completedFuture(result)
+              : load(key, query, options, version, execute, null);
+        });
+  }
+
+  private CompletableFuture<ResultMessage> load(
+      Key key,
+      String query,
+      QueryOptions options,
+      long version,
+      Supplier<CompletableFuture<ResultMessage>> execute,
+      Load load) {
+    CompletableFuture<ResultMessage> future;
+    try {
+      future = execute.get();
+    } catch (Throwable t) {
+      future = failedFuture(t);
+    }
+    future.whenComplete(
+        (message, error) -> {
+          if (error == null) {
+            put(query, options, version, message.result);
+          }
+          if (load != null) {
+            inFlight.remove(key, load);
+            load.done.complete(null);
+          }
+        });
+    return future;
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable error) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
+  }
+
+  /**
+   * Caches the result of a query, if it is complete and the schema didn't change since {@code
+   * version} was read.
+   */
+  public void put(String query, QueryOptions options, long version, Result result) {
+    if (result.kind != Result.Kind.Rows
+        || ((Result.Rows) result).resultMetadata.pagingState != null
+        || result.getWarnings() != null
+        || result.getTracingId() != null) {
+      return;
+    }
+    if (version != this.version.get()) {
+      return;
+    }
+    byte[] body = ResultMessage.encodeBody(result, options.getProtocolVersion());
+    // Don't keep the rows twice, the encoded body is all that is needed to answer
+    Result.Rows rows =
+        new Result.Rows(Collections.emptyList(), ((Result.Rows) result).resultMetadata);
+    // If the schema changes concurrently, the entry is simply never served
+    entries.put(new Key(query, options), new Entry(version, rows, body));
+  }
+
+  private void invalidate() {
+    version.incrementAndGet();
+    entries.invalidateAll();
+  }
+
+  @Override
+  public void onCreateKeyspace(String keyspace) {
+    invalidate();
+  }
+
+  @Override
+  public void onCreateTable(String keyspace, String table) {
+    invalidate();
+  }
+
+  @Override
+  public void onCreateType(String keyspace, String type) {
+    invalidate();
+  }
+
+  @Override
+  public void onCreateFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  @Override
+  public void onCreateAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  @Override
+  public void onAlterKeyspace(String keyspace) {
+    invalidate();
+  }
+
+  @Override
+  public void onAlterTable(String keyspace, String table) {
+    invalidate();
+  }
+
+  @Override
+  public void onAlterType(String keyspace, String type) {
+    invalidate();
+  }
+
+  @Override
+  public void onAlterFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  @Override
+  public void onAlterAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  @Override
+  public void onDropKeyspace(String keyspace) {
+    invalidate();
+  }
+
+  @Override
+  public void onDropTable(String keyspace, String table) {
+    invalidate();
+  }
+
+  @Override
+  public void onDropType(String keyspace, String type) {
+    invalidate();
+  }
+
+  @Override
+  public void onDropFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  @Override
+  public void onDropAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate();
+  }
+
+  private static class Key {
+    private final String query;
+    private final ProtocolVersion protocolVersion;
+    private final int pageSize;
+    private final boolean skipMetadata;
+
+    private Key(String query, QueryOptions options) {
+      this.query = query;
+      this.protocolVersion = options.getProtocolVersion();
+      this.pageSize = options.getPageSize();
+      this.skipMetadata = options.skipMetadata();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return pageSize == that.pageSize
+          && skipMetadata == that.skipMetadata
+          && query.equals(that.query)
+          && protocolVersion == that.protocolVersion;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(query, protocolVersion, pageSize, skipMetadata);
+    }
+  }
+
+  private static class Load {
+    private final long version;
+    // Completed once the result is cached, or failed to be
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private Load(long version) {
+      this.version = version;
+    }
+  }
+
+  private static class Entry {
+    private final long version;
+    private final Result result;
+    private final byte[] body;
+
+    private Entry(long version, Result result, byte[] body) {
+      this.version = version;
+      this.result = result;
+      this.body = body;
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.concurrent.PromiseNotifier;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.apache.cassandra.metrics.ClientRequestSizeMetrics;
+import org.apache.cassandra.stargate.transport.ProtocolException;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.Compressor;
+
+/**
+ * The outer framing of native protocol v5 connections, once the STARTUP exchange is complete.
+ *
+ * <p>Frames are packed into segments of at most {@link #MAX_PAYLOAD_LENGTH} bytes. A segment holds
+ * either any number of complete frames (it is "self-contained"), or part of a frame too large to
+ * fit in a single segment. Each segment is checksummed, and compressed as a whole when the client
+ * requested LZ4 compression, which works better than compressing small frames one by one.
+ *
+ * <p>Uncompressed segments have a 6 bytes header (3 bytes with the payload length and the
+ * self-contained flag, and a CRC24 of those 3 bytes), followed by the payload and a CRC32 of the
+ * payload. Compressed segments have a 8 bytes header (5 bytes with the compressed and uncompressed
+ * lengths and the self-contained flag, and a CRC24 of those 5 bytes), followed by the compressed
+ * payload and its CRC32. An uncompressed length of 0 means that the payload is not compressed,
+ * which is used when compression doesn't make it any smaller. All integers are little-endian.
+ */
+public class Segment {
+  public static final int MAX_PAYLOAD_LENGTH = 128 * 1024 - 1;
+
+  private static final int CRC_HEADER_LENGTH = 6;
+  private static final int LZ4_HEADER_LENGTH = 8;
+  private static final int TRAILER_LENGTH = 4;
+
+  private static final int CRC24_INIT = 0x875060;
+  private static final int CRC24_POLY = 0x1974F0B;
+  private static final byte[] CRC32_INITIAL_BYTES =
+      new byte[] {(byte) 0xFA, (byte) 0x2D, (byte) 0x55, (byte) 0xCA};
+
+  private static final ThreadLocal<CRC32> crc32 = ThreadLocal.withInitial(CRC32::new);
+
+  private Segment() {}
+
+  /** The CRC24 of the {@code length} lowest bytes of {@code bytes}, lowest byte first. */
+  @VisibleForTesting
+  static int crc24(long bytes, int length) {
+    int crc = CRC24_INIT;
+    while (length-- > 0) {
+      crc ^= (int) (bytes & 0xff) << 16;
+      bytes >>= 8;
+      for (int i = 0; i < 8; i++) {
+        crc <<= 1;
+        if ((crc & 0x1000000) != 0) crc ^= CRC24_POLY;
+      }
+    }
+    return crc;
+  }
+
+  private static int crc32(ByteBuf buffer, int index, int length) {
+    CRC32 crc = crc32.get();
+    crc.reset();
+    crc.update(CRC32_INITIAL_BYTES);
+    crc.update(buffer.nioBuffer(index, length));
+    return (int) crc.getValue();
+  }
+
+  private static int headerLength(Compressor compressor) {
+    return compressor == null ? CRC_HEADER_LENGTH : LZ4_HEADER_LENGTH;
+  }
+
+  /**
+   * Splits the incoming segments of a connection that uses segment framing, and passes their
+   * payload on to the {@link Frame.Decoder}. Frames that span several segments are reassembled by
+   * the frame decoder, like frames that span several network reads.
+   *
+   * <p>Bytes are passed through as is until {@link Connection#usesSegmentFraming()}: clients wait
+   * for the response to their STARTUP message before sending anything else, so everything they send
+   * after the switch is framed.
+   */
+  public static class Decoder extends ByteToMessageDecoder {
+    private boolean active;
+    private Compressor compressor;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      if (active || activate(ctx)) {
+        super.channelRead(ctx, msg);
+      } else {
+        ctx.fireChannelRead(msg);
+      }
+    }
+
+    private boolean activate(ChannelHandlerContext ctx) {
+      Connection connection = ctx.channel().attr(Connection.attributeKey).get();
+      if (connection == null || !connection.usesSegmentFraming()) {
+        return false;
+      }
+      compressor = connection.getSegmentCompressor();
+      active = true;
+      return true;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> results)
+        throws Exception {
+      ByteBuf payload;
+      while ((payload = decodeSegment(buffer)) != null) {
+        results.add(payload);
+      }
+    }
+
+    @VisibleForTesting
+    ByteBuf decodeSegment(ByteBuf buffer) throws IOException {
+      int headerLength = headerLength(compressor);
+      if (buffer.readableBytes() < headerLength) return null;
+
+      int idx = buffer.readerIndex();
+      int payloadLength;
+      int uncompressedLength;
+      if (compressor == null) {
+        int header3b = buffer.getUnsignedMediumLE(idx);
+        if (crc24(header3b, 3) != buffer.getUnsignedMediumLE(idx + 3)) {
+          throw new ProtocolException("Corrupted segment header");
+        }
+        payloadLength = header3b & 0x1FFFF;
+        uncompressedLength = 0;
+      } else {
+        long header8b = buffer.getLongLE(idx);
+        long header5b = header8b & 0xFFFFFFFFFFL;
+        if (crc24(header5b, 5) != (int) (header8b >>> 40)) {
+          throw new ProtocolException("Corrupted segment header");
+        }
+        payloadLength = (int) (header5b & 0x1FFFF);
+        uncompressedLength = (int) ((header5b >>> 17) & 0x1FFFF);
+      }
+
+      int segmentLength = headerLength + payloadLength + TRAILER_LENGTH;
+      if (buffer.readableBytes() < segmentLength) return null;
+
+      int payloadIdx = idx + headerLength;
+      if (crc32(buffer, payloadIdx, payloadLength) != buffer.getIntLE(payloadIdx + payloadLength)) {
+        throw new ProtocolException("Corrupted segment payload");
+      }
+      buffer.readerIndex(idx + segmentLength);
+
+      if (uncompressedLength == 0) {
+        return buffer.retainedSlice(payloadIdx, payloadLength);
+      }
+      byte[] compressed = new byte[payloadLength];
+      buffer.getBytes(payloadIdx, compressed);
+      return Unpooled.wrappedBuffer(
+          compressor.decompress(compressed, 0, payloadLength, uncompressedLength));
+    }
+  }
+
+  /**
+   * Packs the outgoing frames of a connection that uses segment framing into segments.
+   *
+   * <p>Frames are buffered until the channel is flushed or the current segment is full, so the
+   * responses that the {@link Message.Dispatcher} flusher writes to a channel in one go end up in
+   * as few segments as possible.
+   *
+   * <p>Frames are passed through as is until {@link Connection#usesSegmentFraming()}, and the
+   * response to the STARTUP message (a READY or AUTHENTICATE frame) still uses the legacy framing.
+   */
+  public static class Encoder extends ChannelOutboundHandlerAdapter {
+    private boolean active;
+    private Compressor compressor;
+
+    // The payload of the segment being filled, with room for its header, or null if none
+    private ByteBuf payload;
+    // The promises of the frames in the segment being filled
+    private final List<ChannelPromise> promises = new ArrayList<>();
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+        throws Exception {
+      if (!(msg instanceof Frame)) {
+        ctx.write(msg, promise);
+        return;
+      }
+      Frame frame = (Frame) msg;
+      if (!active) {
+        ctx.write(msg, promise);
+        maybeActivate(ctx, frame);
+        return;
+      }
+
+      int frameLength = Frame.Header.LENGTH + frame.body.readableBytes();
+      ClientRequestSizeMetrics.totalBytesWritten.inc(frameLength);
+      ClientRequestSizeMetrics.bytesTransmittedPerFrame.update(frameLength);
+
+      int headerLength = headerLength(compressor);
+      if (payload != null
+          && payload.readableBytes() - headerLength + frameLength > MAX_PAYLOAD_LENGTH) {
+        writeSegment(ctx, true);
+      }
+
+      if (frameLength <= MAX_PAYLOAD_LENGTH) {
+        if (payload == null) {
+          payload = newPayload(frameLength);
+        }
+        try {
+          frame.encodeHeader(payload);
+          payload.writeBytes(frame.body, frame.body.readerIndex(), frame.body.readableBytes());
+        } finally {
+          frame.release();
+        }
+        if (!promise.isVoid()) {
+          promises.add(promise);
+        }
+        return;
+      }
+
+      // Too large for a single segment, so split over as many as needed
+      ByteBuf header = CBUtil.allocator.heapBuffer(Frame.Header.LENGTH);
+      frame.encodeHeader(header);
+      ByteBuf bytes = Unpooled.wrappedBuffer(header, frame.body);
+      try {
+        while (bytes.isReadable()) {
+          int length = Math.min(bytes.readableBytes(), MAX_PAYLOAD_LENGTH);
+          payload = newPayload(length);
+          payload.writeBytes(bytes, length);
+          if (!bytes.isReadable() && !promise.isVoid()) {
+            promises.add(promise);
+          }
+          writeSegment(ctx, false);
+        }
+      } finally {
+        bytes.release();
+      }
+    }
+
+    private void maybeActivate(ChannelHandlerContext ctx, Frame frame) {
+      if (frame.header.type != Message.Type.READY
+          && frame.header.type != Message.Type.AUTHENTICATE) {
+        return;
+      }
+      Connection connection = ctx.channel().attr(Connection.attributeKey).get();
+      if (connection != null && connection.usesSegmentFraming()) {
+        compressor = connection.getSegmentCompressor();
+        active = true;
+      }
+    }
+
+    private ByteBuf newPayload(int length) {
+      int headerLength = headerLength(compressor);
+      ByteBuf buffer =
+          CBUtil.allocator.heapBuffer(
+              headerLength + length + TRAILER_LENGTH,
+              headerLength + MAX_PAYLOAD_LENGTH + TRAILER_LENGTH);
+      buffer.writerIndex(headerLength);
+      return buffer;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+      if (payload != null) {
+        writeSegment(ctx, true);
+      }
+      ctx.flush();
+    }
+
+    private void writeSegment(ChannelHandlerContext ctx, boolean selfContained) throws IOException {
+      ByteBuf segment = payload;
+      payload = null;
+      try {
+        segment =
+            compressor == null
+                ? frameCrc(segment, selfContained)
+                : frameLz4(segment, selfContained);
+      } catch (Throwable t) {
+        segment.release();
+        promises.forEach(p -> p.tryFailure(t));
+        promises.clear();
+        throw t;
+      }
+
+      ChannelPromise promise;
+      if (promises.isEmpty()) {
+        promise = ctx.voidPromise();
+      } else {
+        promise = ctx.newPromise();
+        promise.addListener(new PromiseNotifier<>(promises.toArray(new ChannelPromise[0])));
+        promises.clear();
+      }
+      ctx.write(segment, promise);
+    }
+
+    private static ByteBuf frameCrc(ByteBuf segment, boolean selfContained) {
+      int payloadLength = segment.readableBytes() - CRC_HEADER_LENGTH;
+      int header3b = payloadLength;
+      if (selfContained) header3b |= 1 << 17;
+      segment.setMediumLE(0, header3b);
+      segment.setMediumLE(3, crc24(header3b, 3));
+      segment.writeIntLE(crc32(segment, CRC_HEADER_LENGTH, payloadLength));
+      return segment;
+    }
+
+    private ByteBuf frameLz4(ByteBuf segment, boolean selfContained) throws IOException {
+      int uncompressedLength = segment.readableBytes() - LZ4_HEADER_LENGTH;
+      int maxLength = LZ4_HEADER_LENGTH + compressor.maxCompressedLength(uncompressedLength);
+      ByteBuf compressed = CBUtil.allocator.heapBuffer(maxLength + TRAILER_LENGTH);
+      try {
+        int compressedLength =
+            compressor.compress(
+                segment.array(),
+                segment.arrayOffset() + LZ4_HEADER_LENGTH,
+                uncompressedLength,
+                compressed.array(),
+                compressed.arrayOffset() + LZ4_HEADER_LENGTH);
+        ByteBuf result;
+        if (compressedLength < uncompressedLength) {
+          compressed.writerIndex(LZ4_HEADER_LENGTH + compressedLength);
+          result = compressed;
+          compressed = segment;
+        } else {
+          // Not worth it, send the payload as is
+          compressedLength = uncompressedLength;
+          uncompressedLength = 0;
+          result = segment;
+        }
+        long header5b = compressedLength | ((long) uncompressedLength << 17);
+        if (selfContained) header5b |= 1L << 34;
+        result.setLongLE(0, header5b | ((long) crc24(header5b, 5) << 40));
+        result.writeIntLE(crc32(result, LZ4_HEADER_LENGTH, compressedLength));
+        return result;
+      } finally {
+        compressed.release();
+      }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+      if (payload != null) {
+        payload.release();
+        payload = null;
+      }
+      promises.forEach(p -> p.tryFailure(new ClosedChannelException()));
+      promises.clear();
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.cassandra.stargate.transport.internal;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
@@ -28,11 +29,10 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
@@ -44,19 +44,27 @@ import io.netty.util.concurrent.GlobalEventExecutor;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.Slf4JLoggerFactory;
 import io.stargate.auth.AuthenticationService;
-import io.stargate.cql.impl.CqlImpl;
 import io.stargate.db.AuthenticatedUser;
 import io.stargate.db.EventListener;
 import io.stargate.db.Persistence;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -79,20 +87,34 @@ public class Server implements CassandraDaemon.Server {
   }
 
   private static final Logger logger = LoggerFactory.getLogger(Server.class);
-  private static final boolean useEpoll = CqlImpl.useEpoll();
+
+  // The file type bits of a unix file mode, and the type of sockets
+  private static final int S_IFMT = 0170000;
+  private static final int S_IFSOCK = 0140000;
 
   private final ConnectionTracker connectionTracker = new ConnectionTracker();
+  private final SchemaMetadataCache schemaMetadataCache = new SchemaMetadataCache();
+  private final PreparedStatementRegistry preparedStatements;
 
   private final Connection.Factory connectionFactory =
       new Connection.Factory() {
         public Connection newConnection(
             Channel channel, ProxyInfo proxyInfo, ProtocolVersion version) {
           return new ServerConnection(
-              channel, proxyInfo, version, connectionTracker, persistence, authentication);
+              channel,
+              proxyInfo,
+              version,
+              connectionTracker,
+              persistence,
+              authentication,
+              schemaMetadataCache,
+              preparedStatements);
         }
       };
 
   public final InetSocketAddress socket;
+  // When set, the server listens on this Unix domain socket instead of the TCP socket
+  private final DomainSocketAddress domainSocket;
   public final Persistence persistence;
   public final AuthenticationService authentication;
   public boolean useSSL = false;
@@ -104,14 +126,25 @@ public class Server implements CassandraDaemon.Server {
     this.persistence = builder.persistence;
     this.authentication = builder.authentication;
     this.socket = builder.getSocket();
+    this.domainSocket =
+        builder.domainSocketPath == null ? null : new DomainSocketAddress(builder.domainSocketPath);
     this.useSSL = builder.useSSL;
+    this.preparedStatements =
+        builder.preparedStatements != null
+            ? builder.preparedStatements
+            : new PreparedStatementRegistry();
     if (builder.workerGroup != null) {
       workerGroup = builder.workerGroup;
     } else {
-      if (useEpoll) workerGroup = new EpollEventLoopGroup();
-      else workerGroup = new NioEventLoopGroup();
+      workerGroup = NativeTransport.current().newEventLoopGroup();
+    }
+    if (domainSocket != null && !(workerGroup instanceof EpollEventLoopGroup)) {
+      // The group is shared with the TCP servers and owned by the caller, don't start another one
+      throw new IllegalArgumentException(
+          String.format("Unix domain socket %s requires the epoll transport", domainSocket.path()));
     }
     this.persistence.registerEventListener(new EventNotifier(this));
+    this.persistence.registerEventListener(schemaMetadataCache);
 
     // Please see the comment on setUnsetValue().
     CBUtil.setUnsetValue(persistence.unsetValue());
@@ -128,10 +161,17 @@ public class Server implements CassandraDaemon.Server {
   public synchronized void start() {
     if (isRunning()) return;
 
+    EventLoopWatchdog.watch(workerGroup);
+
+    if (domainSocket != null) {
+      startDomainSocket();
+      return;
+    }
+
     // Configure the server.
     ServerBootstrap bootstrap =
         new ServerBootstrap()
-            .channel(useEpoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
+            .channel(NativeTransport.current().serverChannelClass())
             .childOption(ChannelOption.TCP_NODELAY, true)
             .childOption(ChannelOption.SO_LINGER, 0)
             .childOption(ChannelOption.SO_KEEPALIVE, TransportDescriptor.getRpcKeepAlive())
@@ -173,6 +213,75 @@ public class Server implements CassandraDaemon.Server {
     isRunning.set(true);
   }
 
+  private void startDomainSocket() {
+    // TCP options don't apply to domain sockets, and neither do TLS or the proxy protocol
+    ServerBootstrap bootstrap =
+        new ServerBootstrap()
+            .channel(EpollServerDomainSocketChannel.class)
+            .group(workerGroup)
+            .childOption(ChannelOption.ALLOCATOR, CBUtil.allocator)
+            .childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, 32 * 1024)
+            .childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, 8 * 1024)
+            .childHandler(new Initializer(this));
+
+    Path path = Paths.get(domainSocket.path());
+    // Left over if the previous run didn't stop cleanly
+    if (Files.exists(path, LinkOption.NOFOLLOW_LINKS) && !deleteSocket(path)) {
+      throw new IllegalStateException(
+          String.format("Failed to bind unix domain socket %s: not a socket.", path));
+    }
+
+    logger.info("Starting listening for CQL clients on unix domain socket {}...", domainSocket);
+    ChannelFuture bindFuture = bootstrap.bind(domainSocket);
+    if (!bindFuture.awaitUninterruptibly().isSuccess())
+      throw new IllegalStateException(
+          String.format("Failed to bind unix domain socket %s.", domainSocket.path()),
+          bindFuture.cause());
+    connectionTracker.allChannels.add(bindFuture.channel());
+
+    // Anything that can connect is treated as a local client, so restrict who can
+    String permissions = TransportDescriptor.getNativeTransportDomainSocketPermissions();
+    try {
+      Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(permissions));
+    } catch (IOException | IllegalArgumentException e) {
+      connectionTracker.closeAll();
+      deleteSocket(path);
+      throw new IllegalStateException(
+          String.format(
+              "Failed to set permissions %s on unix domain socket %s.", permissions, path),
+          e);
+    }
+
+    isRunning.set(true);
+  }
+
+  boolean isDomainSocket() {
+    return domainSocket != null;
+  }
+
+  /**
+   * Deletes the file at the path if it is a socket.
+   *
+   * @return whether the file was a socket (or didn't exist).
+   */
+  @VisibleForTesting
+  static boolean deleteSocket(Path path) {
+    try {
+      // Domain sockets are only supported by the epoll transport, so this is Linux, which always
+      // has the unix attribute view
+      int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+      if ((mode & S_IFMT) != S_IFSOCK) {
+        return false;
+      }
+      Files.deleteIfExists(path);
+      return true;
+    } catch (NoSuchFileException e) {
+      return true;
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Failed to delete socket file %s.", path), e);
+    }
+  }
+
   public int countConnectedClients() {
     return connectionTracker.countConnectedClients();
   }
@@ -204,6 +313,10 @@ public class Server implements CassandraDaemon.Server {
     // Close opened connections
     connectionTracker.closeAll();
 
+    if (domainSocket != null) {
+      deleteSocket(Paths.get(domainSocket.path()));
+    }
+
     logger.info("Stop listening for CQL clients");
   }
 
@@ -216,6 +329,8 @@ public class Server implements CassandraDaemon.Server {
     private InetAddress hostAddr;
     private int port = -1;
     private InetSocketAddress socket;
+    private PreparedStatementRegistry preparedStatements;
+    private String domainSocketPath;
 
     public Builder(Persistence persistence, AuthenticationService authentication) {
       assert persistence != null;
@@ -245,6 +360,21 @@ public class Server implements CassandraDaemon.Server {
       return this;
     }
 
+    /**
+     * Listens on a Unix domain socket at the path instead of the TCP socket, which is still
+     * required for the port advertised in events. Only supported with epoll.
+     */
+    public Builder withDomainSocket(String path) {
+      this.domainSocketPath = path;
+      return this;
+    }
+
+    /** Shares the prepared statements registry between servers, by default each has its own. */
+    public Builder withPreparedStatements(PreparedStatementRegistry preparedStatements) {
+      this.preparedStatements = preparedStatements;
+      return this;
+    }
+
     public Server build() {
       return new Server(this);
     }
@@ -265,6 +395,7 @@ public class Server implements CassandraDaemon.Server {
     public final ChannelGroup allChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
     private final EnumMap<Event.Type, ChannelGroup> groups = new EnumMap<>(Event.Type.class);
     private final ProtocolVersionTracker protocolVersionTracker = new ProtocolVersionTracker();
+    private final EventCoalescer eventCoalescer = new EventCoalescer(this::broadcast);
 
     public ConnectionTracker() {
       for (Event.Type type : Event.Type.values())
@@ -274,9 +405,8 @@ public class Server implements CassandraDaemon.Server {
     public void addConnection(Channel ch, Connection connection) {
       allChannels.add(ch);
 
-      if (ch.remoteAddress() instanceof InetSocketAddress)
-        protocolVersionTracker.addConnection(
-            ((InetSocketAddress) ch.remoteAddress()).getAddress(), connection.getVersion());
+      protocolVersionTracker.addConnection(
+          Connection.remoteAddress(ch).getAddress(), connection.getVersion());
     }
 
     public void register(Event.Type type, Channel ch) {
@@ -284,7 +414,45 @@ public class Server implements CassandraDaemon.Server {
     }
 
     public void send(Event event) {
-      groups.get(event.type).writeAndFlush(new EventMessage(event));
+      eventCoalescer.add(event);
+    }
+
+    /**
+     * Writes the events to the registered channels. Each event is only encoded once per protocol
+     * version, and the resulting body is shared by all the channels using that version.
+     */
+    private void broadcast(List<Event> events) {
+      Set<ChannelGroup> written = new HashSet<>();
+      for (Event event : events) {
+        ChannelGroup group = groups.get(event.type);
+        Map<ProtocolVersion, ByteBuf> bodies = new EnumMap<>(ProtocolVersion.class);
+        try {
+          for (Channel channel : group) {
+            Connection connection = channel.attr(Connection.attributeKey).get();
+            if (connection == null) {
+              continue;
+            }
+            ProtocolVersion version = connection.getVersion();
+            ByteBuf body = bodies.computeIfAbsent(version, v -> encode(event, v));
+            EnumSet<Frame.Header.Flag> flags = EnumSet.noneOf(Frame.Header.Flag.class);
+            if (version.isBeta()) flags.add(Frame.Header.Flag.USE_BETA);
+            channel.write(
+                Frame.create(Message.Type.EVENT, -1, version, flags, body.retainedDuplicate()),
+                channel.voidPromise());
+          }
+        } finally {
+          bodies.values().forEach(ByteBuf::release);
+        }
+        written.add(group);
+      }
+      written.forEach(ChannelGroup::flush);
+    }
+
+    private static ByteBuf encode(Event event, ProtocolVersion version) {
+      EventMessage message = new EventMessage(event);
+      ByteBuf body = CBUtil.allocator.buffer(EventMessage.codec.encodedSize(message, version));
+      EventMessage.codec.encode(message, body, version);
+      return body;
     }
 
     void closeAll() {
@@ -391,7 +559,8 @@ public class Server implements CassandraDaemon.Server {
     }
   }
 
-  private static class Initializer extends ChannelInitializer<Channel> {
+  @VisibleForTesting
+  static class Initializer extends ChannelInitializer<Channel> {
     // Stateless handlers
     private static final Message.ProtocolDecoder messageDecoder = new Message.ProtocolDecoder();
     private static final Message.ProtocolEncoder messageEncoder = new Message.ProtocolEncoder();
@@ -439,14 +608,16 @@ public class Server implements CassandraDaemon.Server {
             });
       }
 
-      if (USE_PROXY_PROTOCOL) {
+      if (USE_PROXY_PROTOCOL && !server.isDomainSocket()) {
         pipeline.addLast("proxyProtocol", new HAProxyProtocolDetectingDecoder());
       }
 
       // pipeline.addLast("debug", new LoggingHandler());
 
+      pipeline.addLast("segmentDecoder", new Segment.Decoder());
       pipeline.addLast("frameDecoder", new Frame.Decoder(server.connectionFactory));
       pipeline.addLast("frameEncoder", frameEncoder);
+      pipeline.addLast("segmentEncoder", new Segment.Encoder());
 
       pipeline.addLast("inboundFrameTransformer", inboundFrameTransformer);
       pipeline.addLast("outboundFrameTransformer", outboundFrameTransformer);
@@ -458,8 +629,7 @@ public class Server implements CassandraDaemon.Server {
           "executor",
           new Message.Dispatcher(
               TransportDescriptor.useNativeTransportLegacyFlusher(),
-              EndpointPayloadTracker.get(
-                  ((InetSocketAddress) channel.remoteAddress()).getAddress())));
+              EndpointPayloadTracker.get(Connection.remoteAddress(channel).getAddress())));
 
       // The exceptionHandler will take care of handling exceptionCaught(...) events while still
       // running
@@ -24,7 +24,6 @@ import io.stargate.auth.AuthenticationService;
 import io.stargate.db.Authenticator;
 import io.stargate.db.ClientInfo;
 import io.stargate.db.Persistence;
-import java.net.InetSocketAddress;
 import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.security.cert.X509Certificate;
 import org.apache.cassandra.stargate.transport.ProtocolException;
@@ -39,6 +38,8 @@ public class ServerConnection extends Connection {
   private final ClientInfo clientInfo;
   private final Persistence.Connection persistenceConnection;
   private final AuthenticationService authentication;
+  private final SchemaMetadataCache schemaMetadataCache;
+  private final PreparedStatementRegistry preparedStatements;
   private volatile ConnectionStage stage;
   public final Counter requests = new Counter();
 
@@ -48,14 +49,17 @@ public class ServerConnection extends Connection {
       ProtocolVersion version,
       Connection.Tracker tracker,
       Persistence persistence,
-      AuthenticationService authentication) {
+      AuthenticationService authentication,
+      SchemaMetadataCache schemaMetadataCache,
+      PreparedStatementRegistry preparedStatements) {
     super(channel, version, tracker);
     this.clientInfo =
         new ClientInfo(
-            (InetSocketAddress) channel.remoteAddress(),
-            proxyInfo != null ? proxyInfo.publicAddress : null);
+            Connection.remoteAddress(channel), proxyInfo != null ? proxyInfo.publicAddress : null);
     this.persistenceConnection = persistence.newConnection(clientInfo);
     this.authentication = authentication;
+    this.schemaMetadataCache = schemaMetadataCache;
+    this.preparedStatements = preparedStatements;
     this.stage = ConnectionStage.ESTABLISHED;
   }
 
@@ -67,6 +71,14 @@ public class ServerConnection extends Connection {
     return persistenceConnection;
   }
 
+  public SchemaMetadataCache schemaMetadataCache() {
+    return schemaMetadataCache;
+  }
+
+  public PreparedStatementRegistry preparedStatements() {
+    return preparedStatements;
+  }
+
   ConnectionStage stage() {
     return stage;
   }
@@ -132,7 +144,8 @@ public class ServerConnection extends Connection {
       saslNegotiator =
           authentication == null
               ? negotiator
-              : new PlainTextTokenSaslNegotiator(negotiator, authentication);
+              : new PlainTextTokenSaslNegotiator(
+                  negotiator, authentication, clientInfo.remoteAddress().getAddress());
     }
     return saslNegotiator;
   }
@@ -0,0 +1,132 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.stargate.auth.InvalidTokenCache;
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.exceptions.AuthenticationException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+
+/**
+ * Protects the authentication service from clients that keep retrying with invalid tokens.
+ *
+ * <p>Tokens that failed validation recently are rejected without calling the service again.
+ *
+ * <p>Optionally, client addresses that accumulate more than {@code
+ * stargate.cql_token_failures_per_address} failures reported by the service within {@code
+ * stargate.cql_token_failure_window_ms} are rejected until the window ends. This is disabled by
+ * default since every client behind the same NAT, load balancer or proxy shares the limit. Loopback
+ * addresses, which include all the clients of the domain socket, are never limited.
+ */
+class TokenAuthenticationGuard {
+
+  static final TokenAuthenticationGuard instance =
+      new TokenAuthenticationGuard(
+          new InvalidTokenCache(
+              Integer.getInteger("stargate.cql_invalid_token_cache_size", 10_000),
+              Long.getLong("stargate.cql_invalid_token_cache_ttl_ms", 10_000),
+              TimeUnit.MILLISECONDS),
+          Integer.getInteger("stargate.cql_token_failures_per_address", 0),
+          Long.getLong("stargate.cql_token_failure_window_ms", 10_000));
+
+  // Upper bound on the number of tracked addresses, expired windows are purged past that
+  private static final int MAX_TRACKED_ADDRESSES = 100_000;
+
+  private final InvalidTokenCache invalidTokens;
+  private final int maxFailuresPerAddress;
+  private final long windowNanos;
+  private final ConcurrentMap<InetAddress, FailureWindow> failures = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  TokenAuthenticationGuard(
+      InvalidTokenCache invalidTokens, int maxFailuresPerAddress, long windowMillis) {
+    this.invalidTokens = invalidTokens;
+    this.maxFailuresPerAddress = maxFailuresPerAddress;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+  }
+
+  /**
+   * Checks that a token authentication attempt should be passed on to the authentication service.
+   *
+   * @throws AuthenticationException if the client address is rate limited, or the token is known to
+   *     be invalid.
+   */
+  void checkAttempt(InetAddress address, String token) throws AuthenticationException {
+    if (isLimited(address)) {
+      FailureWindow window = failures.get(address);
+      if (window != null && window.isExceeded(System.nanoTime())) {
+        ClientMetrics.instance.markTokenAuthRateLimited();
+        throw new AuthenticationException(
+            "Too many failed token authentication attempts, try again later");
+      }
+    }
+    if (invalidTokens.isInvalid(token)) {
+      ClientMetrics.instance.markInvalidTokenCacheHit();
+      throw new AuthenticationException("Invalid token");
+    }
+  }
+
+  /** Records that the authentication service rejected the token. */
+  void recordFailure(InetAddress address, String token) {
+    invalidTokens.markInvalid(token);
+    recordAddressFailure(address);
+  }
+
+  private void recordAddressFailure(InetAddress address) {
+    if (!isLimited(address)) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (failures.size() >= MAX_TRACKED_ADDRESSES) {
+      failures.values().removeIf(w -> w.isOver(now));
+    }
+    failures.compute(
+        address,
+        (a, window) -> {
+          if (window == null || window.isOver(now)) {
+            window = new FailureWindow(now);
+          }
+          window.count++;
+          return window;
+        });
+  }
+
+  private boolean isLimited(InetAddress address) {
+    return maxFailuresPerAddress > 0 && address != null && !address.isLoopbackAddress();
+  }
+
+  private class FailureWindow {
+    private final long start;
+    // Only updated under ConcurrentMap.compute
+    private volatile int count;
+
+    FailureWindow(long start) {
+      this.start = start;
+    }
+
+    boolean isOver(long now) {
+      return now - start > windowNanos;
+    }
+
+    boolean isExceeded(long now) {
+      return !isOver(now) && count >= maxFailuresPerAddress;
+    }
+  }
+}
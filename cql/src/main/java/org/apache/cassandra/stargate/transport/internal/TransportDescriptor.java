@@ -130,6 +130,33 @@ public class TransportDescriptor {
     return conf.native_transport_flush_in_batches_legacy;
   }
 
+  /**
+   * The Netty transport to use: {@code io_uring}, {@code epoll} (the default) or {@code nio}, see
+   * {@link NativeTransport}.
+   */
+  public static String getNativeTransportType() {
+    boolean epollEnabled =
+        Boolean.parseBoolean(System.getProperty("stargate.cql.native.epoll.enabled", "true"));
+    return System.getProperty("stargate.cql.native.transport", epollEnabled ? "epoll" : "nio");
+  }
+
+  /**
+   * The path of the Unix domain socket to listen on for co-located clients, in addition to the TCP
+   * socket(s), or {@code null} if not enabled.
+   */
+  public static String getNativeTransportDomainSocketPath() {
+    return System.getProperty("stargate.cql.native.domain_socket");
+  }
+
+  /**
+   * The permissions of the Unix domain socket file, in {@link
+   * java.nio.file.attribute.PosixFilePermissions#fromString} format. Clients connecting through the
+   * socket are considered local, so it defaults to owner and group only ({@code rw-rw----}).
+   */
+  public static String getNativeTransportDomainSocketPermissions() {
+    return System.getProperty("stargate.cql.native.domain_socket_permissions", "rw-rw----");
+  }
+
   public static int getNativeTransportFrameBlockSize() {
     return (int) ByteUnit.KIBI_BYTES.toBytes(conf.native_transport_frame_block_size_in_kb);
   }
@@ -46,6 +46,17 @@ public interface FrameBodyTransformer {
    */
   ByteBuf transformOutbound(ByteBuf inputBuf) throws IOException;
 
+  /**
+   * Whether to apply {@link #transformOutbound} to the frame body of an outgoing message. When not
+   * transformed, the frame is sent as is, without the {@link #getOutboundHeaderFlags} flags.
+   *
+   * @param inputBuf the frame body from an outgoing message
+   * @return whether the body should be transformed
+   */
+  default boolean shouldTransformOutbound(ByteBuf inputBuf) {
+    return true;
+  }
+
   /**
    * Returns an EnumSet of the flags that should be added to the header for any message whose frame
    * body has been modified by the transformer. E.g. it may add perform chunking & checksumming to
@@ -0,0 +1,109 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal.frame.compress;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.util.EnumSet;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.internal.Frame;
+import org.apache.cassandra.stargate.transport.internal.frame.FrameBodyTransformer;
+
+/**
+ * Compresses outgoing frames only when it pays off, the native protocol allows each frame to be
+ * sent compressed or not through the {@link Frame.Header.Flag#COMPRESSED} flag.
+ *
+ * <p>Frames smaller than {@code stargate.cql_compression_min_bytes} are sent uncompressed. For
+ * larger ones, the connection keeps a moving average of the ratio of compressed to uncompressed
+ * sizes: when it goes over {@code stargate.cql_compression_max_ratio} (the data the connection
+ * sends doesn't compress well, e.g. blobs), frames are sent uncompressed, except one every {@code
+ * stargate.cql_compression_sample_interval} frames to keep sampling the ratio.
+ *
+ * <p>There is one instance per connection, only used from its event loop.
+ */
+public class AdaptiveCompressingTransformer implements FrameBodyTransformer {
+
+  private static final int MIN_BYTES =
+      Integer.getInteger("stargate.cql_compression_min_bytes", 512);
+  private static final double MAX_RATIO =
+      Double.parseDouble(System.getProperty("stargate.cql_compression_max_ratio", "0.9"));
+  private static final int SAMPLE_INTERVAL =
+      Integer.getInteger("stargate.cql_compression_sample_interval", 32);
+
+  // Weight of the last sample in the moving average of compression ratios
+  private static final double ALPHA = 0.2;
+
+  private final CompressingTransformer delegate;
+  private final int minBytes;
+  private final double maxRatio;
+  private final int sampleInterval;
+
+  private double ratio;
+  private int skipped;
+
+  public AdaptiveCompressingTransformer(CompressingTransformer delegate) {
+    this(delegate, MIN_BYTES, MAX_RATIO, SAMPLE_INTERVAL);
+  }
+
+  @VisibleForTesting
+  AdaptiveCompressingTransformer(
+      CompressingTransformer delegate, int minBytes, double maxRatio, int sampleInterval) {
+    this.delegate = delegate;
+    this.minBytes = minBytes;
+    this.maxRatio = maxRatio;
+    this.sampleInterval = sampleInterval;
+  }
+
+  @Override
+  public boolean shouldTransformOutbound(ByteBuf inputBuf) {
+    boolean compress =
+        inputBuf.readableBytes() >= minBytes && (ratio <= maxRatio || ++skipped >= sampleInterval);
+    if (compress) {
+      skipped = 0;
+    } else {
+      ClientMetrics.instance.markFrameSentUncompressed();
+    }
+    return compress;
+  }
+
+  @Override
+  public ByteBuf transformOutbound(ByteBuf inputBuf) throws IOException {
+    int uncompressedBytes = inputBuf.readableBytes();
+    long start = System.nanoTime();
+    ByteBuf outputBuf = delegate.transformOutbound(inputBuf);
+    long elapsedNanos = System.nanoTime() - start;
+    int compressedBytes = outputBuf.readableBytes();
+
+    if (uncompressedBytes > 0) {
+      double sample = (double) compressedBytes / uncompressedBytes;
+      ratio = ratio * (1 - ALPHA) + sample * ALPHA;
+    }
+    ClientMetrics.instance.recordCompression(uncompressedBytes - compressedBytes, elapsedNanos);
+    return outputBuf;
+  }
+
+  @Override
+  public ByteBuf transformInbound(ByteBuf inputBuf, EnumSet<Frame.Header.Flag> flags)
+      throws IOException {
+    return delegate.transformInbound(inputBuf, flags);
+  }
+
+  @Override
+  public EnumSet<Frame.Header.Flag> getOutboundHeaderFlags() {
+    return delegate.getOutboundHeaderFlags();
+  }
+}
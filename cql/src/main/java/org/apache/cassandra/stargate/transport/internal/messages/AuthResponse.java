@@ -25,6 +25,7 @@ import org.apache.cassandra.stargate.exceptions.AuthenticationException;
 import org.apache.cassandra.stargate.metrics.ClientMetrics;
 import org.apache.cassandra.stargate.transport.ProtocolException;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.AuthenticationExecutor;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
 import org.apache.cassandra.stargate.transport.internal.Message;
 import org.apache.cassandra.stargate.transport.internal.ServerConnection;
@@ -66,20 +67,26 @@ public class AuthResponse extends Message.Request {
 
   @Override
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
+    Authenticator.SaslNegotiator negotiator = ((ServerConnection) connection).getSaslNegotiator();
+    // Evaluating the token may hash a password or call the authentication service, so it runs on
+    // the authentication pool rather than on the event loop
+    return AuthenticationExecutor.instance.submit(() -> evaluate(negotiator));
+  }
+
+  private Response evaluate(Authenticator.SaslNegotiator negotiator) {
     try {
-      Authenticator.SaslNegotiator negotiator = ((ServerConnection) connection).getSaslNegotiator();
       byte[] challenge = negotiator.evaluateResponse(token);
       if (negotiator.isComplete()) {
         persistenceConnection().login(negotiator.getAuthenticatedUser());
         ClientMetrics.instance.markAuthSuccess();
         // authentication is complete, send a ready message to the client
-        return CompletableFuture.completedFuture(new AuthSuccess(challenge));
+        return new AuthSuccess(challenge);
       } else {
-        return CompletableFuture.completedFuture(new AuthChallenge(challenge));
+        return new AuthChallenge(challenge);
       }
     } catch (AuthenticationException e) {
       ClientMetrics.instance.markAuthFailure();
-      return CompletableFuture.completedFuture(ErrorMessage.fromException(e));
+      return ErrorMessage.fromException(e);
     }
   }
 }
@@ -19,8 +19,12 @@ package org.apache.cassandra.stargate.transport.internal.messages;
 
 import io.netty.buffer.ByteBuf;
 import io.stargate.db.BoundStatement;
+import io.stargate.db.ImmutableParameters;
 import io.stargate.db.Result;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.cassandra.stargate.exceptions.PreparedQueryNotFoundException;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
 import org.apache.cassandra.stargate.transport.internal.Message;
@@ -87,14 +91,67 @@ public class ExecuteMessage extends Message.Request {
   @Override
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
 
+    preparedStatements().recordExecution(statementId);
     BoundStatement statement =
         new BoundStatement(statementId, options.getValues(), options.getNames());
-    CompletableFuture<? extends Result> future =
-        persistenceConnection().execute(statement, makeParameters(options), queryStartNanoTime);
+    CompletableFuture<Result> future =
+        execute(statement, queryStartNanoTime)
+            .handle(
+                (result, error) ->
+                    error == null
+                        ? CompletableFuture.completedFuture(result)
+                        : reprepareAndRetry(statement, error, queryStartNanoTime))
+            .thenCompose(f -> f);
     return SchemaAgreement.maybeWaitForAgreement(future, persistence())
         .thenApply(ResultMessage::new);
   }
 
+  /**
+   * If the persistence doesn't know the statement anymore, but it was prepared through this server,
+   * prepares it again and retries the execution once, instead of having the client do it.
+   */
+  private CompletableFuture<Result> reprepareAndRetry(
+      BoundStatement statement, Throwable error, long queryStartNanoTime) {
+    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    CompletableFuture<Result.Prepared> reprepared = null;
+    if (cause instanceof PreparedQueryNotFoundException) {
+      reprepared = preparedStatements().reprepare(statementId, this::prepare);
+    }
+    if (reprepared == null) {
+      return failedFuture(error);
+    }
+    return reprepared
+        .handle(
+            (prepared, prepareError) ->
+                // If the statement can't be prepared, let the client deal with the original error
+                prepareError == null
+                    ? execute(statement, queryStartNanoTime)
+                    : ExecuteMessage.<Result>failedFuture(error))
+        .thenCompose(f -> f);
+  }
+
+  private CompletableFuture<Result> execute(BoundStatement statement, long queryStartNanoTime) {
+    return persistenceConnection()
+        .execute(statement, makeParameters(options), queryStartNanoTime)
+        .thenApply(result -> result);
+  }
+
+  private CompletableFuture<Result.Prepared> prepare(String query, String keyspace) {
+    return persistenceConnection()
+        .prepare(
+            query,
+            ImmutableParameters.builder()
+                .from(makeParameters())
+                .defaultKeyspace(Optional.ofNullable(keyspace))
+                .build());
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable error) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
+  }
+
   @Override
   public String toString() {
     return String.format(
@@ -81,7 +81,18 @@ public class PrepareMessage extends Message.Request {
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
     CompletableFuture<Result.Prepared> future =
         persistenceConnection().prepare(query, makeParameters());
-    return future.thenApply(ResultMessage::new);
+    return future.thenApply(
+        prepared -> {
+          // Remember how to prepare the statement again, should the persistence lose it
+          preparedStatements()
+              .register(
+                  prepared.statementId,
+                  query,
+                  keyspace != null
+                      ? keyspace
+                      : persistenceConnection().usedKeyspace().orElse(null));
+          return new ResultMessage(prepared);
+        });
   }
 
   @Override
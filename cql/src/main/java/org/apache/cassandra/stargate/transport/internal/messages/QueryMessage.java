@@ -26,6 +26,7 @@ import org.apache.cassandra.stargate.transport.internal.CBUtil;
 import org.apache.cassandra.stargate.transport.internal.Message;
 import org.apache.cassandra.stargate.transport.internal.QueryOptions;
 import org.apache.cassandra.stargate.transport.internal.SchemaAgreement;
+import org.apache.cassandra.stargate.transport.internal.SchemaMetadataCache;
 
 /** A CQL query */
 public class QueryMessage extends Message.Request {
@@ -66,6 +67,11 @@ public class QueryMessage extends Message.Request {
 
   @Override
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
+    SchemaMetadataCache schemaMetadataCache = schemaMetadataCache();
+    if (!isTracingRequested() && schemaMetadataCache.isCacheable(query, options)) {
+      return executeSchemaQuery(schemaMetadataCache, queryStartNanoTime);
+    }
+
     SimpleStatement statement = new SimpleStatement(query, options.getValues(), options.getNames());
     CompletableFuture<? extends Result> future =
         persistenceConnection().execute(statement, makeParameters(options), queryStartNanoTime);
@@ -73,6 +79,18 @@ public class QueryMessage extends Message.Request {
         .thenApply(ResultMessage::new);
   }
 
+  private CompletableFuture<? extends Response> executeSchemaQuery(
+      SchemaMetadataCache schemaMetadataCache, long queryStartNanoTime) {
+    SimpleStatement statement = new SimpleStatement(query, options.getValues(), options.getNames());
+    return schemaMetadataCache.execute(
+        query,
+        options,
+        () ->
+            persistenceConnection()
+                .execute(statement, makeParameters(options), queryStartNanoTime)
+                .thenApply(ResultMessage::new));
+  }
+
   @Override
   public String toString() {
     return String.format("QUERY %s [pageSize = %d]", query, options.getPageSize());
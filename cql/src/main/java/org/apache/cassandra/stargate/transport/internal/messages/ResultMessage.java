@@ -17,7 +17,11 @@
  */
 package org.apache.cassandra.stargate.transport.internal.messages;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.stargate.db.Result;
 import io.stargate.db.schema.Column;
 import java.nio.ByteBuffer;
@@ -26,6 +30,7 @@ import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.transport.internal.CBCodec;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
@@ -42,15 +47,29 @@ public class ResultMessage extends Message.Response {
         }
 
         public void encode(ResultMessage msg, ByteBuf dest, ProtocolVersion version) {
+          if (msg.encodedBody != null) {
+            dest.writeBytes(msg.encodedBody);
+            return;
+          }
           dest.writeInt(msg.result.kind.id);
           SUBCODECS.get(msg.result.kind).encode(msg.result, dest, version);
         }
 
         public int encodedSize(ResultMessage msg, ProtocolVersion version) {
+          if (msg.encodedBody != null) {
+            return msg.encodedBody.length;
+          }
           return 4 + SUBCODECS.get(msg.result.kind).encodedSize(msg.result, version);
         }
       };
 
+  // Rows results at least that big are encoded without copying their larger values, see
+  // encodeWrappingValues(). 0 disables it.
+  private static final int WRAP_VALUES_MIN_BYTES =
+      Integer.getInteger("stargate.cql_zero_copy_rows_min_bytes", 64 * 1024);
+  // Smaller values are cheaper to copy than to add as a component of the composite buffer
+  private static final int WRAPPED_VALUE_MIN_BYTES = 512;
+
   public static Map<Result.Kind, CBCodec<Result>> SUBCODECS = new EnumMap<>(Result.Kind.class);
 
   static {
@@ -62,14 +81,95 @@ public class ResultMessage extends Message.Response {
   }
 
   public final Result result;
+  // The body of the message, if it was encoded beforehand (see preEncoded())
+  private final byte[] encodedBody;
 
   protected ResultMessage(Result result) {
+    this(result, null);
+  }
+
+  private ResultMessage(Result result, byte[] encodedBody) {
     super(Message.Type.RESULT);
     this.result = result;
+    this.encodedBody = encodedBody;
     this.tracingId = result.getTracingId();
     this.warnings = result.getWarnings();
   }
 
+  /**
+   * Creates a message for a result that was already encoded with {@link #encodeBody}, so that
+   * sending it only copies bytes.
+   */
+  public static ResultMessage preEncoded(Result result, byte[] encodedBody) {
+    return new ResultMessage(result, encodedBody);
+  }
+
+  /** Encodes the body of the message for a result, for use with {@link #preEncoded}. */
+  public static byte[] encodeBody(Result result, ProtocolVersion version) {
+    ResultMessage message = new ResultMessage(result);
+    ByteBuf buffer = Unpooled.buffer(codec.encodedSize(message, version));
+    codec.encode(message, buffer, version);
+    byte[] body = new byte[buffer.readableBytes()];
+    buffer.readBytes(body);
+    return body;
+  }
+
+  /**
+   * Whether to encode this message with {@link #encodeWrappingValues}, given its encoded size.
+   *
+   * <p>This is only worth it for large rows results, and only if the body is written as is to the
+   * channel: compressing it would copy the values anyway.
+   */
+  public boolean shouldWrapValues(int encodedSize) {
+    return WRAP_VALUES_MIN_BYTES > 0
+        && encodedSize >= WRAP_VALUES_MIN_BYTES
+        && encodedBody == null
+        && result.kind == Result.Kind.Rows;
+  }
+
+  /**
+   * Encodes the message after {@code prefix}, like {@link #codec} does, but wraps the larger row
+   * values in a composite buffer instead of copying them. The metadata and the length prefixes are
+   * written to pooled buffers in between.
+   *
+   * <p>The returned buffer takes ownership of {@code prefix}, including when this method throws.
+   */
+  public ByteBuf encodeWrappingValues(ByteBuf prefix, ProtocolVersion version) {
+    assert result instanceof Result.Rows;
+    Result.Rows rows = (Result.Rows) result;
+    CompositeByteBuf dest = CBUtil.allocator.compositeBuffer(Integer.MAX_VALUE);
+    ByteBuf chunk = prefix;
+    try {
+      chunk.writeInt(result.kind.id);
+      RowsSubCodec.METADATA_CODEC.encode(rows.resultMetadata, chunk, version);
+      chunk.writeInt(rows.rows.size());
+      for (List<ByteBuffer> row : rows.rows) {
+        for (int i = 0; i < rows.resultMetadata.columnCount; ++i) {
+          ByteBuffer value = row.get(i);
+          if (value == null || value.remaining() < WRAPPED_VALUE_MIN_BYTES) {
+            CBUtil.writeValue(value, chunk);
+          } else {
+            chunk.writeInt(value.remaining());
+            dest.addComponent(true, chunk);
+            chunk = null;
+            dest.addComponent(true, Unpooled.wrappedBuffer(value.duplicate()));
+            chunk = CBUtil.allocator.buffer();
+          }
+        }
+      }
+      if (chunk.isReadable()) {
+        dest.addComponent(true, chunk);
+      } else {
+        chunk.release();
+      }
+      return dest;
+    } catch (Throwable t) {
+      if (chunk != null) chunk.release();
+      dest.release();
+      throw t;
+    }
+  }
+
   public static class VoidSubCodec implements CBCodec<Result> {
     @Override
     public Result decode(ByteBuf body, ProtocolVersion version) {
@@ -159,7 +259,6 @@ public class ResultMessage extends Message.Response {
           public void encode(
               Result.ResultMetadata metadata, ByteBuf dest, ProtocolVersion version) {
             boolean noMetadata = metadata.flags.contains(Result.Flag.NO_METADATA);
-            boolean globalTablesSpec = metadata.flags.contains(Result.Flag.GLOBAL_TABLES_SPEC);
             boolean hasMorePages = metadata.flags.contains(Result.Flag.HAS_MORE_PAGES);
             boolean metadataChanged = metadata.flags.contains(Result.Flag.METADATA_CHANGED);
             assert version.isGreaterThan(ProtocolVersion.V1) || (!hasMorePages && !noMetadata)
@@ -175,26 +274,12 @@ public class ResultMessage extends Message.Response {
               CBUtil.writeBytes(metadata.resultMetadataId.bytes, dest);
             }
 
-            if (!noMetadata) {
-              if (globalTablesSpec) {
-                CBUtil.writeAsciiString(metadata.columns.get(0).keyspace(), dest);
-                CBUtil.writeAsciiString(metadata.columns.get(0).table(), dest);
-              }
-
-              for (Column c : metadata.columns) {
-                if (!globalTablesSpec) {
-                  CBUtil.writeAsciiString(c.keyspace(), dest);
-                  CBUtil.writeAsciiString(c.table(), dest);
-                }
-                ColumnUtils.encodeColumn(c, dest, version);
-              }
-            }
+            if (!noMetadata) dest.writeBytes(encodedColumns(metadata, version));
           }
 
           @Override
           public int encodedSize(Result.ResultMetadata metadata, ProtocolVersion version) {
             boolean noMetadata = metadata.flags.contains(Result.Flag.NO_METADATA);
-            boolean globalTablesSpec = metadata.flags.contains(Result.Flag.GLOBAL_TABLES_SPEC);
             boolean hasMorePages = metadata.flags.contains(Result.Flag.HAS_MORE_PAGES);
             boolean metadataChanged = metadata.flags.contains(Result.Flag.METADATA_CHANGED);
 
@@ -204,24 +289,108 @@ public class ResultMessage extends Message.Response {
             if (version.isGreaterOrEqualTo(ProtocolVersion.V5) && metadataChanged)
               size += CBUtil.sizeOfBytes(metadata.resultMetadataId.bytes);
 
-            if (!noMetadata) {
-              if (globalTablesSpec) {
-                size += CBUtil.sizeOfAsciiString(metadata.columns.get(0).keyspace());
-                size += CBUtil.sizeOfAsciiString(metadata.columns.get(0).table());
-              }
-
-              for (Column c : metadata.columns) {
-                if (!globalTablesSpec) {
-                  size += CBUtil.sizeOfAsciiString(c.keyspace());
-                  size += CBUtil.sizeOfAsciiString(c.table());
-                }
-                size += ColumnUtils.encodeSizeColumn(c, version);
-              }
-            }
+            if (!noMetadata) size += encodedColumns(metadata, version).length;
             return size;
           }
         };
 
+    // The encoded column specs, by result metadata id (a digest of the column specs, shared by
+    // all the results with the same columns) and column count (the columns may grow after the id
+    // is computed, if the statement added non-serialized columns). Each key maps to one encoding
+    // per protocol version and global table spec flag. Results without an id (not all
+    // persistences compute it) are encoded every time.
+    private static final Cache<ColumnsKey, AtomicReferenceArray<byte[]>> ENCODED_COLUMNS =
+        CacheBuilder.newBuilder().maximumSize(10_000).build();
+
+    private static byte[] encodedColumns(Result.ResultMetadata metadata, ProtocolVersion version) {
+      boolean globalTablesSpec = metadata.flags.contains(Result.Flag.GLOBAL_TABLES_SPEC);
+      if (metadata.resultMetadataId == null) {
+        return encodeColumns(metadata, globalTablesSpec, version);
+      }
+      AtomicReferenceArray<byte[]> encodings =
+          ENCODED_COLUMNS
+              .asMap()
+              .computeIfAbsent(
+                  new ColumnsKey(metadata.resultMetadataId, metadata.columns.size()),
+                  k -> new AtomicReferenceArray<>(ProtocolVersion.values().length * 2));
+      int index = version.ordinal() * 2 + (globalTablesSpec ? 1 : 0);
+      byte[] encoded = encodings.get(index);
+      if (encoded == null) {
+        encoded = encodeColumns(metadata, globalTablesSpec, version);
+        encodings.set(index, encoded);
+      }
+      return encoded;
+    }
+
+    private static class ColumnsKey {
+      private final MD5Digest resultMetadataId;
+      private final int columnCount;
+
+      private ColumnsKey(MD5Digest resultMetadataId, int columnCount) {
+        this.resultMetadataId = resultMetadataId;
+        this.columnCount = columnCount;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ColumnsKey)) return false;
+        ColumnsKey that = (ColumnsKey) o;
+        return columnCount == that.columnCount && resultMetadataId.equals(that.resultMetadataId);
+      }
+
+      @Override
+      public int hashCode() {
+        return 31 * resultMetadataId.hashCode() + columnCount;
+      }
+    }
+
+    private static byte[] encodeColumns(
+        Result.ResultMetadata metadata, boolean globalTablesSpec, ProtocolVersion version) {
+      ByteBuf buffer = Unpooled.buffer(encodedColumnsSize(metadata, globalTablesSpec, version));
+      encodeColumns(metadata, globalTablesSpec, buffer, version);
+      byte[] encoded = new byte[buffer.readableBytes()];
+      buffer.readBytes(encoded);
+      return encoded;
+    }
+
+    private static void encodeColumns(
+        Result.ResultMetadata metadata,
+        boolean globalTablesSpec,
+        ByteBuf dest,
+        ProtocolVersion version) {
+      if (globalTablesSpec) {
+        CBUtil.writeAsciiString(metadata.columns.get(0).keyspace(), dest);
+        CBUtil.writeAsciiString(metadata.columns.get(0).table(), dest);
+      }
+
+      for (Column c : metadata.columns) {
+        if (!globalTablesSpec) {
+          CBUtil.writeAsciiString(c.keyspace(), dest);
+          CBUtil.writeAsciiString(c.table(), dest);
+        }
+        ColumnUtils.encodeColumn(c, dest, version);
+      }
+    }
+
+    private static int encodedColumnsSize(
+        Result.ResultMetadata metadata, boolean globalTablesSpec, ProtocolVersion version) {
+      int size = 0;
+      if (globalTablesSpec) {
+        size += CBUtil.sizeOfAsciiString(metadata.columns.get(0).keyspace());
+        size += CBUtil.sizeOfAsciiString(metadata.columns.get(0).table());
+      }
+
+      for (Column c : metadata.columns) {
+        if (!globalTablesSpec) {
+          size += CBUtil.sizeOfAsciiString(c.keyspace());
+          size += CBUtil.sizeOfAsciiString(c.table());
+        }
+        size += ColumnUtils.encodeSizeColumn(c, version);
+      }
+      return size;
+    }
+
     @Override
     public Result decode(ByteBuf body, ProtocolVersion version) {
       Result.ResultMetadata metadata = METADATA_CODEC.decode(body, version);
@@ -255,7 +424,8 @@ public class ResultMessage extends Message.Response {
     public int encodedSize(Result result, ProtocolVersion version) {
       assert result instanceof Result.Rows;
       Result.Rows rows = (Result.Rows) result;
-      int size = METADATA_CODEC.encodedSize(rows.resultMetadata, version);
+      // Metadata and row count
+      int size = METADATA_CODEC.encodedSize(rows.resultMetadata, version) + 4;
       for (List<ByteBuffer> row : rows.rows) {
         for (int i = 0; i < rows.resultMetadata.columnCount; ++i)
           size += CBUtil.sizeOfValue(row.get(i));
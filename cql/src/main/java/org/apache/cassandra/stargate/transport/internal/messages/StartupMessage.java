@@ -28,6 +28,7 @@ import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
 import org.apache.cassandra.stargate.transport.internal.Message;
 import org.apache.cassandra.stargate.transport.internal.frame.checksum.ChecksummingTransformer;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.AdaptiveCompressingTransformer;
 import org.apache.cassandra.stargate.transport.internal.frame.compress.CompressingTransformer;
 import org.apache.cassandra.stargate.transport.internal.frame.compress.Compressor;
 import org.apache.cassandra.stargate.transport.internal.frame.compress.LZ4Compressor;
@@ -86,7 +87,15 @@ public class StartupMessage extends Message.Request {
     ChecksumType checksumType = getChecksumType();
     Compressor compressor = getCompressor();
 
-    if (null != checksumType) {
+    if (useSegmentFraming(connection.getVersion())) {
+      // Segments are always checksummed, and compressed as a whole rather than frame by frame
+      if (null != compressor && compressor != LZ4Compressor.INSTANCE)
+        throw new ProtocolException(
+            String.format(
+                "Unsupported compression algorithm for protocol version %s: %s",
+                connection.getVersion(), options.get(COMPRESSION)));
+      connection.setSegmentFraming(compressor);
+    } else if (null != checksumType) {
       if (!connection.getVersion().supportsChecksums())
         throw new ProtocolException(
             String.format(
@@ -94,7 +103,8 @@ public class StartupMessage extends Message.Request {
                 connection.getVersion().toString()));
       connection.setTransformer(ChecksummingTransformer.getTransformer(checksumType, compressor));
     } else if (null != compressor) {
-      connection.setTransformer(CompressingTransformer.getTransformer(compressor));
+      connection.setTransformer(
+          new AdaptiveCompressingTransformer(CompressingTransformer.getTransformer(compressor)));
     }
 
     connection.setThrowOnOverload("1".equals(options.get(THROW_ON_OVERLOAD)));
@@ -111,6 +121,17 @@ public class StartupMessage extends Message.Request {
     else return CompletableFuture.completedFuture(new ReadyMessage());
   }
 
+  /**
+   * Whether v5 connections switch to segment framing after STARTUP, rather than checksumming and
+   * compressing each frame individually. V5 is still a beta version here, and the v5-beta drivers
+   * expect the per-frame format, so this is off unless {@code stargate.cql_v5_segment_framing} is
+   * set.
+   */
+  private static boolean useSegmentFraming(ProtocolVersion version) {
+    return version.isGreaterOrEqualTo(ProtocolVersion.V5)
+        && Boolean.getBoolean("stargate.cql_v5_segment_framing");
+  }
+
   private static Map<String, String> upperCaseKeys(Map<String, String> options) {
     Map<String, String> newMap = new HashMap<String, String>(options.size());
     for (Map.Entry<String, String> entry : options.entrySet())
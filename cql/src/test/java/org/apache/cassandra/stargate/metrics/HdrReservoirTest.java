@@ -0,0 +1,56 @@
+package org.apache.cassandra.stargate.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.jupiter.api.Test;
+
+public class HdrReservoirTest {
+
+  @Test
+  public void shouldComputePercentiles() {
+    HdrReservoir reservoir = new HdrReservoir(60_000);
+    for (long i = 1; i <= 1000; i++) {
+      reservoir.update(i * 1000);
+    }
+
+    Snapshot snapshot = reservoir.getSnapshot();
+
+    assertThat(snapshot.size()).isEqualTo(1000);
+    assertThat(snapshot.getMin()).isCloseTo(1000, within(10L));
+    assertThat(snapshot.getMax()).isCloseTo(1_000_000, within(10_000L));
+    assertThat(snapshot.getMedian()).isCloseTo(500_000, within(5_000.0));
+    assertThat(snapshot.get99thPercentile()).isCloseTo(990_000, within(10_000.0));
+  }
+
+  @Test
+  public void shouldKeepPreviousWindowOnly() throws Exception {
+    HdrReservoir reservoir = new HdrReservoir(1);
+
+    reservoir.update(10);
+    Thread.sleep(5);
+    // The first window rolls over, its values are still part of the snapshot
+    assertThat(reservoir.getSnapshot().size()).isEqualTo(1);
+
+    reservoir.update(20);
+    Thread.sleep(5);
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertThat(snapshot.size()).isEqualTo(1);
+    assertThat(snapshot.getMax()).isEqualTo(20);
+
+    Thread.sleep(5);
+    reservoir.getSnapshot();
+    assertThat(reservoir.getSnapshot().size()).isZero();
+  }
+
+  @Test
+  public void shouldHandleEmptyReservoir() {
+    Snapshot snapshot = new HdrReservoir(60_000).getSnapshot();
+
+    assertThat(snapshot.size()).isZero();
+    assertThat(snapshot.getMax()).isZero();
+    assertThat(snapshot.getMean()).isZero();
+    assertThat(snapshot.getValues()).isEmpty();
+  }
+}
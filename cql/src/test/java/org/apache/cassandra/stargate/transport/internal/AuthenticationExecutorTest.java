@@ -0,0 +1,68 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class AuthenticationExecutorTest {
+
+  @BeforeAll
+  public static void setup() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  @Test
+  public void shouldEvaluateOffTheCallingThread() throws Exception {
+    AuthenticationExecutor executor = new AuthenticationExecutor(1, 1);
+    try {
+      Thread caller = Thread.currentThread();
+      CompletableFuture<Thread> future = executor.submit(Thread::currentThread);
+      assertThat(future.get(10, TimeUnit.SECONDS)).isNotSameAs(caller);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRejectWhenQueueIsFull() throws Exception {
+    AuthenticationExecutor executor = new AuthenticationExecutor(1, 1);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Boolean> blocking =
+          executor.submit(
+              () -> {
+                running.countDown();
+                try {
+                  return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+              });
+      assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+      CompletableFuture<String> queued = executor.submit(() -> "queued");
+      assertThat(executor.queueDepth()).isEqualTo(1);
+
+      CompletableFuture<String> rejected = executor.submit(() -> "rejected");
+      assertThatThrownBy(rejected::get)
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(OverloadedException.class);
+
+      release.countDown();
+      assertThat(blocking.get(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("queued");
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
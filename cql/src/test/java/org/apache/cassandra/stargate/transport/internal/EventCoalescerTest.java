@@ -0,0 +1,135 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.cassandra.stargate.locator.InetAddressAndPort;
+import org.apache.cassandra.stargate.transport.internal.Event.SchemaChange;
+import org.apache.cassandra.stargate.transport.internal.Event.SchemaChange.Change;
+import org.apache.cassandra.stargate.transport.internal.Event.SchemaChange.Target;
+import org.apache.cassandra.stargate.transport.internal.Event.StatusChange;
+import org.apache.cassandra.stargate.transport.internal.Event.TopologyChange;
+import org.junit.jupiter.api.Test;
+
+public class EventCoalescerTest {
+
+  private final List<List<Event>> sent = new ArrayList<>();
+
+  private EventCoalescer coalescer(int maxChangesPerKeyspace) {
+    return new EventCoalescer(
+        ImmutableMap.of(Event.Type.SCHEMA_CHANGE, 60_000L, Event.Type.TOPOLOGY_CHANGE, 60_000L),
+        maxChangesPerKeyspace,
+        sent::add);
+  }
+
+  private static SchemaChange table(Change change, String keyspace, String table) {
+    return new SchemaChange(change, Target.TABLE, keyspace, table);
+  }
+
+  private static InetAddressAndPort node(int last) throws Exception {
+    return InetAddressAndPort.getByAddressOverrideDefaults(
+        InetAddress.getByAddress(new byte[] {127, 0, 0, (byte) last}), 9042);
+  }
+
+  @Test
+  public void shouldSendUncoalescedTypesRightAway() throws Exception {
+    EventCoalescer coalescer = coalescer(0);
+    StatusChange down = StatusChange.nodeDown(node(2));
+
+    coalescer.add(down);
+    coalescer.add(table(Change.CREATED, "ks", "t"));
+
+    assertThat(sent).containsExactly(Collections.singletonList(down));
+  }
+
+  @Test
+  public void shouldMergeChangesOfTheSameElement() throws Exception {
+    EventCoalescer coalescer = coalescer(0);
+
+    coalescer.add(table(Change.CREATED, "ks", "t1"));
+    coalescer.add(table(Change.UPDATED, "ks", "t1"));
+    coalescer.add(table(Change.UPDATED, "ks", "t2"));
+    coalescer.add(table(Change.CREATED, "ks", "t3"));
+    coalescer.add(table(Change.DROPPED, "ks", "t3"));
+    coalescer.add(table(Change.UPDATED, "ks", "t2"));
+    coalescer.add(TopologyChange.newNode(node(2)));
+    coalescer.add(TopologyChange.movedNode(node(2)));
+    coalescer.flush(Event.Type.SCHEMA_CHANGE);
+    coalescer.flush(Event.Type.TOPOLOGY_CHANGE);
+
+    assertThat(sent)
+        .containsExactly(
+            Arrays.asList(table(Change.CREATED, "ks", "t1"), table(Change.UPDATED, "ks", "t2")),
+            Collections.singletonList(TopologyChange.movedNode(node(2))));
+  }
+
+  @Test
+  public void shouldSubsumeElementsOfDroppedKeyspace() {
+    EventCoalescer coalescer = coalescer(0);
+
+    coalescer.add(table(Change.UPDATED, "ks", "t1"));
+    coalescer.add(table(Change.UPDATED, "other", "t1"));
+    coalescer.add(new SchemaChange(Change.DROPPED, "ks"));
+    coalescer.flush(Event.Type.SCHEMA_CHANGE);
+
+    assertThat(sent)
+        .containsExactly(
+            Arrays.asList(
+                table(Change.UPDATED, "other", "t1"), new SchemaChange(Change.DROPPED, "ks")));
+  }
+
+  @Test
+  public void shouldSendKeyspaceChangesBeforeTheirElements() {
+    EventCoalescer coalescer = coalescer(0);
+
+    coalescer.add(table(Change.UPDATED, "ks", "t1"));
+    coalescer.add(table(Change.UPDATED, "ks", "t2"));
+    coalescer.add(new SchemaChange(Change.DROPPED, "ks"));
+    coalescer.add(new SchemaChange(Change.CREATED, "ks"));
+    coalescer.add(table(Change.CREATED, "ks", "t1"));
+    coalescer.add(table(Change.UPDATED, "other", "t1"));
+    coalescer.add(new SchemaChange(Change.UPDATED, "other"));
+    coalescer.flush(Event.Type.SCHEMA_CHANGE);
+
+    assertThat(sent)
+        .containsExactly(
+            Arrays.asList(
+                new SchemaChange(Change.CREATED, "ks"),
+                table(Change.CREATED, "ks", "t1"),
+                new SchemaChange(Change.UPDATED, "other"),
+                table(Change.UPDATED, "other", "t1")));
+  }
+
+  @Test
+  public void shouldNotSendElementsOfKeyspaceCreatedAndDropped() {
+    EventCoalescer coalescer = coalescer(0);
+
+    coalescer.add(new SchemaChange(Change.CREATED, "ks"));
+    coalescer.add(table(Change.CREATED, "ks", "t1"));
+    coalescer.add(new SchemaChange(Change.DROPPED, "ks"));
+    coalescer.flush(Event.Type.SCHEMA_CHANGE);
+
+    assertThat(sent).containsExactly(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldCollapseManyChangesIntoKeyspaceUpdate() {
+    EventCoalescer coalescer = coalescer(2);
+
+    for (int i = 0; i < 3; i++) {
+      coalescer.add(table(Change.CREATED, "ks", "t" + i));
+    }
+    coalescer.add(table(Change.CREATED, "other", "t"));
+    coalescer.flush(Event.Type.SCHEMA_CHANGE);
+
+    assertThat(sent)
+        .containsExactly(
+            Arrays.asList(
+                table(Change.CREATED, "other", "t"), new SchemaChange(Change.UPDATED, "ks")));
+  }
+}
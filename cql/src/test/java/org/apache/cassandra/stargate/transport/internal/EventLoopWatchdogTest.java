@@ -0,0 +1,61 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.netty.channel.DefaultEventLoopGroup;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class EventLoopWatchdogTest {
+
+  @BeforeAll
+  public static void setup() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  @Test
+  public void shouldMeasureLagOfBlockedLoop() throws Exception {
+    DefaultEventLoopGroup group = new DefaultEventLoopGroup(2);
+    EventLoopWatchdog watchdog = new EventLoopWatchdog(group, "test", 50, 10_000);
+    try {
+      assertThat(watchdog.probes()).hasSize(2);
+      watchdog.start(10);
+
+      CountDownLatch release = new CountDownLatch(1);
+      group
+          .next()
+          .execute(
+              () -> {
+                try {
+                  release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              });
+      Thread.sleep(300);
+
+      long maxLag =
+          watchdog.probes().stream()
+              .mapToLong(EventLoopWatchdog.Probe::lagMicros)
+              .max()
+              .getAsLong();
+      long minLag =
+          watchdog.probes().stream()
+              .mapToLong(EventLoopWatchdog.Probe::lagMicros)
+              .min()
+              .getAsLong();
+      assertThat(maxLag).isGreaterThan(TimeUnit.MILLISECONDS.toMicros(200));
+      assertThat(minLag).isLessThan(TimeUnit.MILLISECONDS.toMicros(100));
+
+      release.countDown();
+    } finally {
+      watchdog.stop();
+      group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+  }
+}
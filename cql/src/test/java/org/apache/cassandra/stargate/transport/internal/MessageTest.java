@@ -0,0 +1,90 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.stargate.db.Result;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.internal.messages.OptionsMessage;
+import org.apache.cassandra.stargate.transport.internal.messages.ResultMessage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class MessageTest {
+
+  private static final MetricRegistry registry = new MetricRegistry();
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), registry);
+  }
+
+  private static Timer timer(String name) {
+    return registry
+        .getTimers((n, metric) -> n.endsWith(".Requests.OPTIONS." + name))
+        .values()
+        .iterator()
+        .next();
+  }
+
+  private static Message.Request dispatched(long dispatchedNanos) {
+    Message.Request request = new OptionsMessage();
+    request.markDispatched(dispatchedNanos);
+    request.markExecutionStarted();
+    return request;
+  }
+
+  @Test
+  public void shouldIncludeThePersistenceQueueInQueuedTime() {
+    long dispatched = System.nanoTime();
+    Message.Request request = dispatched(dispatched);
+    Result result = new Result.Void().setExecutionStartNanos(dispatched + 7_000_000);
+
+    request.markCompleted(ResultMessage.preEncoded(result, null));
+
+    assertThat(request.queuedNanos()).isEqualTo(7_000_000);
+  }
+
+  @Test
+  public void shouldIgnoreExecutionStartsBeforeTheDispatch() {
+    long dispatched = System.nanoTime();
+    Message.Request request = dispatched(dispatched);
+    // A cached result, executed for an earlier request
+    Result result = new Result.Void().setExecutionStartNanos(dispatched - 7_000_000);
+
+    request.markCompleted(ResultMessage.preEncoded(result, null));
+
+    assertThat(request.queuedNanos())
+        .isEqualTo(request.executionStartedNanos() - dispatched)
+        .isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void shouldFallBackToTheTransportExecutionStart() {
+    long dispatched = System.nanoTime();
+    Message.Request request = dispatched(dispatched);
+
+    request.markCompleted(ResultMessage.preEncoded(new Result.Void(), null));
+
+    assertThat(request.queuedNanos()).isEqualTo(request.executionStartedNanos() - dispatched);
+  }
+
+  @Test
+  public void shouldRecordThePersistenceQueueAsQueued() {
+    long dispatched = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100);
+    Message.Request request = dispatched(dispatched);
+    Result result =
+        new Result.Void().setExecutionStartNanos(dispatched + TimeUnit.MILLISECONDS.toNanos(90));
+
+    request.markCompleted(ResultMessage.preEncoded(result, null));
+    ClientMetrics.instance.recordRequest(request, System.nanoTime());
+
+    assertThat(timer("Queued").getSnapshot().getMax())
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(89));
+    assertThat(timer("Execution").getSnapshot().getMax())
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(90));
+  }
+}
@@ -0,0 +1,31 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+public class NativeTransportTest {
+
+  @Test
+  public void shouldSelectAvailableTransport() {
+    assertThat(NativeTransport.select("nio")).isEqualTo(NativeTransport.NIO);
+    assertThat(NativeTransport.select("EPOLL"))
+        .isEqualTo(
+            NativeTransport.EPOLL.isAvailable() ? NativeTransport.EPOLL : NativeTransport.NIO);
+  }
+
+  @Test
+  public void shouldFallBackWhenIoUringIsNotAvailable() {
+    // The io_uring transport is not on the test classpath
+    assertThat(NativeTransport.IO_URING.isAvailable()).isFalse();
+    assertThat(NativeTransport.select("io_uring")).isNotEqualTo(NativeTransport.IO_URING);
+  }
+
+  @Test
+  public void shouldRejectUnknownTransport() {
+    assertThatThrownBy(() -> NativeTransport.select("kqueue"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("kqueue");
+  }
+}
@@ -2,26 +2,46 @@ package org.apache.cassandra.stargate.transport.internal;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.net.InetAddresses;
 import io.stargate.auth.AuthenticationService;
+import io.stargate.auth.InvalidTokenCache;
 import io.stargate.auth.StoredCredentials;
 import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.AuthenticatedUser;
 import io.stargate.db.Authenticator.SaslNegotiator;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import org.apache.cassandra.stargate.exceptions.AuthenticationException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
 import org.apache.cassandra.stargate.transport.internal.PlainTextTokenSaslNegotiator.Credentials;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 public class PlainTextTokenSaslNegotiatorTest {
   private final String TOKEN = "a24b121a-a385-44a6-8ae1-fe7542dbc490";
   private final String ROLE = "someRole";
+  private static final InetAddress CLIENT = InetAddresses.forString("10.0.0.1");
+  private static final InetAddress OTHER_CLIENT = InetAddresses.forString("10.0.0.2");
+  private static final MetricRegistry metricRegistry = new MetricRegistry();
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), metricRegistry);
+  }
 
   @Test
   public void decodeCredentials() {
@@ -79,8 +99,7 @@ public class PlainTextTokenSaslNegotiatorTest {
     AuthenticationService authentication = mock(AuthenticationService.class);
     when(authentication.validateToken(TOKEN)).thenReturn(credentials);
 
-    PlainTextTokenSaslNegotiator negotiator =
-        new PlainTextTokenSaslNegotiator(null, authentication);
+    PlainTextTokenSaslNegotiator negotiator = newNegotiator(null, authentication);
     assertThat(negotiator.evaluateResponse(clientResponse)).isNull();
     assertThat(negotiator.isComplete()).isTrue();
     assertThat(negotiator.getAuthenticatedUser().name()).isEqualTo(ROLE);
@@ -95,8 +114,7 @@ public class PlainTextTokenSaslNegotiatorTest {
     when(wrappedNegotiator.isComplete()).thenReturn(true);
     doReturn(AuthenticatedUser.of(ROLE)).when(wrappedNegotiator).getAuthenticatedUser();
 
-    PlainTextTokenSaslNegotiator negotiator =
-        new PlainTextTokenSaslNegotiator(wrappedNegotiator, null);
+    PlainTextTokenSaslNegotiator negotiator = newNegotiator(wrappedNegotiator, null);
     assertThat(negotiator.evaluateResponse(clientResponse)).isNull();
     assertThat(negotiator.isComplete()).isTrue();
     assertThat(negotiator.getAuthenticatedUser().name()).isEqualTo(ROLE);
@@ -110,8 +128,7 @@ public class PlainTextTokenSaslNegotiatorTest {
     SaslNegotiator wrappedNegotiator = mock(SaslNegotiator.class);
     when(wrappedNegotiator.isComplete()).thenReturn(false);
 
-    PlainTextTokenSaslNegotiator negotiator =
-        new PlainTextTokenSaslNegotiator(wrappedNegotiator, null);
+    PlainTextTokenSaslNegotiator negotiator = newNegotiator(wrappedNegotiator, null);
     assertThat(
             negotiator.attemptTokenAuthentication(
                 createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, tooLongToken)))
@@ -127,8 +144,7 @@ public class PlainTextTokenSaslNegotiatorTest {
     SaslNegotiator wrappedNegotiator = mock(SaslNegotiator.class);
     when(wrappedNegotiator.isComplete()).thenReturn(false);
 
-    PlainTextTokenSaslNegotiator negotiator =
-        new PlainTextTokenSaslNegotiator(wrappedNegotiator, authentication);
+    PlainTextTokenSaslNegotiator negotiator = newNegotiator(wrappedNegotiator, authentication);
     assertThat(
             negotiator.attemptTokenAuthentication(
                 createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN)))
@@ -145,8 +161,7 @@ public class PlainTextTokenSaslNegotiatorTest {
     SaslNegotiator wrappedNegotiator = mock(SaslNegotiator.class);
     when(wrappedNegotiator.isComplete()).thenReturn(false);
 
-    PlainTextTokenSaslNegotiator negotiator =
-        new PlainTextTokenSaslNegotiator(wrappedNegotiator, authentication);
+    PlainTextTokenSaslNegotiator negotiator = newNegotiator(wrappedNegotiator, authentication);
     assertThat(
             negotiator.attemptTokenAuthentication(
                 createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN)))
@@ -154,6 +169,122 @@ public class PlainTextTokenSaslNegotiatorTest {
     assertThat(negotiator.isComplete()).isFalse();
   }
 
+  @Test
+  public void invalidTokenIsCached() throws Exception {
+    AuthenticationService authentication = mock(AuthenticationService.class);
+    when(authentication.validateToken(TOKEN))
+        .thenThrow(new UnauthorizedException("Not authorized"));
+    byte[] clientResponse =
+        createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN);
+    TokenAuthenticationGuard guard = newGuard(100);
+
+    assertThat(
+            newNegotiator(null, authentication, CLIENT, guard)
+                .attemptTokenAuthentication(clientResponse))
+        .isFalse();
+    assertThatThrownBy(
+            () ->
+                newNegotiator(null, authentication, CLIENT, guard)
+                    .attemptTokenAuthentication(clientResponse))
+        .isInstanceOf(AuthenticationException.class)
+        .hasMessage("Invalid token");
+
+    verify(authentication, times(1)).validateToken(TOKEN);
+    assertThat(metricRegistry.meter("org.apache.cassandra.metrics.Client.InvalidTokenCacheHits"))
+        .extracting(Meter::getCount)
+        .isEqualTo(1L);
+  }
+
+  @Test
+  public void tokenFailuresAreRateLimitedPerAddress() throws Exception {
+    AuthenticationService authentication = mock(AuthenticationService.class);
+    when(authentication.validateToken(anyString()))
+        .thenThrow(new UnauthorizedException("Not authorized"));
+    TokenAuthenticationGuard guard = newGuard(2);
+
+    for (int i = 0; i < 2; i++) {
+      assertThat(
+              newNegotiator(null, authentication, CLIENT, guard)
+                  .attemptTokenAuthentication(
+                      createClientResponse(
+                          PlainTextTokenSaslNegotiator.TOKEN_USERNAME, "token" + i)))
+          .isFalse();
+    }
+    assertThatThrownBy(
+            () ->
+                newNegotiator(null, authentication, CLIENT, guard)
+                    .attemptTokenAuthentication(
+                        createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN)))
+        .isInstanceOf(AuthenticationException.class)
+        .hasMessageContaining("Too many failed token authentication attempts");
+
+    // Other clients are not affected
+    assertThat(
+            newNegotiator(null, authentication, OTHER_CLIENT, guard)
+                .attemptTokenAuthentication(
+                    createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN)))
+        .isFalse();
+    verify(authentication, times(1)).validateToken(TOKEN);
+  }
+
+  @Test
+  public void invalidTokenCacheHitsAndLoopbackAreNotRateLimited() throws Exception {
+    AuthenticationService authentication = mock(AuthenticationService.class);
+    when(authentication.validateToken(anyString()))
+        .thenThrow(new UnauthorizedException("Not authorized"));
+    TokenAuthenticationGuard guard = newGuard(2);
+    byte[] clientResponse =
+        createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, TOKEN);
+
+    assertThat(
+            newNegotiator(null, authentication, CLIENT, guard)
+                .attemptTokenAuthentication(clientResponse))
+        .isFalse();
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(
+              () ->
+                  newNegotiator(null, authentication, CLIENT, guard)
+                      .attemptTokenAuthentication(clientResponse))
+          .hasMessage("Invalid token");
+    }
+    // Only one failure was reported by the service, so other tokens are still validated
+    assertThat(
+            newNegotiator(null, authentication, CLIENT, guard)
+                .attemptTokenAuthentication(
+                    createClientResponse(PlainTextTokenSaslNegotiator.TOKEN_USERNAME, "other")))
+        .isFalse();
+    verify(authentication).validateToken("other");
+
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    for (int i = 0; i < 3; i++) {
+      assertThat(
+              newNegotiator(null, authentication, loopback, guard)
+                  .attemptTokenAuthentication(
+                      createClientResponse(
+                          PlainTextTokenSaslNegotiator.TOKEN_USERNAME, "local" + i)))
+          .isFalse();
+    }
+    verify(authentication).validateToken("local2");
+  }
+
+  private static TokenAuthenticationGuard newGuard(int maxFailuresPerAddress) {
+    return new TokenAuthenticationGuard(
+        new InvalidTokenCache(100, 1, TimeUnit.MINUTES), maxFailuresPerAddress, 60_000);
+  }
+
+  private static PlainTextTokenSaslNegotiator newNegotiator(
+      SaslNegotiator wrapped, AuthenticationService authentication) {
+    return newNegotiator(wrapped, authentication, CLIENT, newGuard(100));
+  }
+
+  private static PlainTextTokenSaslNegotiator newNegotiator(
+      SaslNegotiator wrapped,
+      AuthenticationService authentication,
+      InetAddress address,
+      TokenAuthenticationGuard guard) {
+    return new PlainTextTokenSaslNegotiator(wrapped, authentication, address, guard);
+  }
+
   private static byte[] createClientResponse(String username, String password) throws IOException {
     ByteArrayOutputStream bytes = new ByteArrayOutputStream();
     bytes.write(0);
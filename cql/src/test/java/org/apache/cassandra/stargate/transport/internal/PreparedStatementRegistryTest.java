@@ -0,0 +1,113 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.stargate.db.Result;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cassandra.stargate.exceptions.PreparedQueryNotFoundException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class PreparedStatementRegistryTest {
+  private static final String QUERY = "SELECT * FROM ks.t WHERE k = ?";
+  private static final MD5Digest ID = MD5Digest.compute(QUERY);
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  private static Result.Prepared prepared(MD5Digest id) {
+    return new Result.Prepared(id, null, null, null);
+  }
+
+  @Test
+  public void shouldNotReprepareUnknownStatements() {
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+
+    assertThat(registry.reprepare(ID, (q, k) -> CompletableFuture.completedFuture(prepared(ID))))
+        .isNull();
+  }
+
+  @Test
+  public void shouldShareConcurrentReprepares() {
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+    registry.register(ID, QUERY, "ks");
+
+    AtomicInteger prepares = new AtomicInteger();
+    CompletableFuture<Result.Prepared> pending = new CompletableFuture<>();
+    CompletableFuture<Result.Prepared> first =
+        registry.reprepare(
+            ID,
+            (q, k) -> {
+              assertThat(q).isEqualTo(QUERY);
+              assertThat(k).isEqualTo("ks");
+              prepares.incrementAndGet();
+              return pending;
+            });
+    CompletableFuture<Result.Prepared> second =
+        registry.reprepare(
+            ID,
+            (q, k) -> {
+              prepares.incrementAndGet();
+              return pending;
+            });
+
+    assertThat(prepares).hasValue(1);
+    assertThat(second).isSameAs(first);
+
+    pending.complete(prepared(ID));
+    assertThat(first.join().statementId).isEqualTo(ID);
+
+    // Once completed, a new execution can trigger another re-prepare
+    registry.reprepare(
+        ID,
+        (q, k) -> {
+          prepares.incrementAndGet();
+          return CompletableFuture.completedFuture(prepared(ID));
+        });
+    assertThat(prepares).hasValue(2);
+  }
+
+  @Test
+  public void shouldFailAndForgetStatementsPreparedUnderAnotherId() {
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+    registry.register(ID, QUERY, null);
+
+    CompletableFuture<Result.Prepared> future =
+        registry.reprepare(
+            ID, (q, k) -> CompletableFuture.completedFuture(prepared(MD5Digest.compute("other"))));
+
+    assertThat(future)
+        .hasFailedWithThrowableThat()
+        .isInstanceOf(PreparedQueryNotFoundException.class);
+    assertThat(registry.reprepare(ID, (q, k) -> CompletableFuture.completedFuture(prepared(ID))))
+        .isNull();
+  }
+
+  @Test
+  public void shouldPropagatePrepareFailures() {
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+    registry.register(ID, QUERY, "ks");
+
+    CompletableFuture<Result.Prepared> future =
+        registry.reprepare(
+            ID,
+            (q, k) -> {
+              throw new IllegalStateException("boom");
+            });
+
+    assertThat(future).isCompletedExceptionally();
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+  }
+}
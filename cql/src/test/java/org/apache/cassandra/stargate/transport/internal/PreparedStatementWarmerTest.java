@@ -0,0 +1,116 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import io.stargate.db.Parameters;
+import io.stargate.db.Persistence;
+import io.stargate.db.Result;
+import io.stargate.db.Statement;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.internal.PreparedStatementRegistry.PreparedQuery;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PreparedStatementWarmerTest {
+
+  @TempDir Path dir;
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  private static MD5Digest id(String query, String keyspace) {
+    return MD5Digest.compute(keyspace + query);
+  }
+
+  @Test
+  public void shouldSaveMostExecutedStatements() throws Exception {
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+    registry.register(id("q1", "ks"), "q1", "ks");
+    registry.register(id("q2", null), "q2", null);
+    registry.register(id("q3", "ks"), "q3", "ks");
+    for (int i = 0; i < 3; i++) registry.recordExecution(id("q2", null));
+    registry.recordExecution(id("q3", "ks"));
+
+    Path file = dir.resolve("prepared.dat");
+    new PreparedStatementWarmer(mock(Persistence.class), registry, file, 2).save();
+    List<PreparedQuery> loaded =
+        new PreparedStatementWarmer(mock(Persistence.class), registry, file, 10).load();
+
+    assertThat(loaded).hasSize(2);
+    assertThat(loaded.get(0).query).isEqualTo("q2");
+    assertThat(loaded.get(0).keyspace).isNull();
+    assertThat(loaded.get(0).executions()).isEqualTo(3);
+    assertThat(loaded.get(1).query).isEqualTo("q3");
+    assertThat(loaded.get(1).keyspace).isEqualTo("ks");
+  }
+
+  @Test
+  public void shouldPrepareSavedStatementsInTheirKeyspace() throws Exception {
+    PreparedStatementRegistry saved = new PreparedStatementRegistry(10);
+    saved.register(id("q1", "ks"), "q1", "ks");
+    saved.register(id("q2", null), "q2", null);
+    Path file = dir.resolve("prepared.dat");
+    new PreparedStatementWarmer(mock(Persistence.class), saved, file, 10).save();
+
+    Persistence persistence = mock(Persistence.class);
+    Persistence.Connection connection = mock(Persistence.Connection.class);
+    when(persistence.newConnection()).thenReturn(connection);
+    when(connection.execute(any(Statement.class), any(Parameters.class), anyLong()))
+        .thenAnswer(i -> CompletableFuture.completedFuture(new Result.Void()));
+    when(connection.prepare(any(String.class), any(Parameters.class)))
+        .thenAnswer(
+            i -> {
+              String query = i.getArgument(0);
+              Parameters parameters = i.getArgument(1);
+              return CompletableFuture.completedFuture(
+                  new Result.Prepared(
+                      id(query, parameters.defaultKeyspace().orElse(null)), null, null, null));
+            });
+
+    PreparedStatementRegistry registry = new PreparedStatementRegistry(10);
+    new PreparedStatementWarmer(persistence, registry, file, 10).warmUp();
+
+    verify(connection).execute(any(Statement.class), any(Parameters.class), anyLong());
+    assertThat(registry.mostExecuted(10)).hasSize(2);
+    assertThat(registry.reprepare(id("q1", "ks"), (q, k) -> new CompletableFuture<>())).isNotNull();
+  }
+
+  @Test
+  public void shouldNotOverwriteSavedStatementsWithoutTraffic() throws Exception {
+    Path file = dir.resolve("prepared.dat");
+    Files.write(file, new byte[] {1, 2, 3});
+
+    new PreparedStatementWarmer(
+            mock(Persistence.class), new PreparedStatementRegistry(10), file, 10)
+        .save();
+
+    assertThat(Files.readAllBytes(file)).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void shouldIgnoreMissingFile() {
+    Persistence persistence = mock(Persistence.class);
+
+    new PreparedStatementWarmer(
+            persistence, new PreparedStatementRegistry(10), dir.resolve("missing.dat"), 10)
+        .warmUp();
+
+    verify(persistence, never()).newConnection();
+  }
+}
@@ -0,0 +1,62 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class QueueDelayControllerTest {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @BeforeAll
+  public static void setup() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  @Test
+  public void shouldDetectStandingQueue() {
+    QueueDelayController controller = new QueueDelayController(5, 100);
+    long start = System.nanoTime();
+
+    // A burst with one short wait in the interval is absorbed
+    controller.recordSojourn(50 * MS, start + 10 * MS);
+    controller.recordSojourn(2 * MS, start + 20 * MS);
+    controller.recordSojourn(50 * MS, start + 30 * MS);
+    assertThat(controller.isOverloaded(start + 110 * MS)).isFalse();
+
+    // Every wait of the next interval is above target
+    controller.recordSojourn(20 * MS, start + 120 * MS);
+    controller.recordSojourn(10 * MS, start + 150 * MS);
+    assertThat(controller.isOverloaded(start + 190 * MS)).isFalse();
+    assertThat(controller.isOverloaded(start + 210 * MS)).isTrue();
+
+    // The queue drained
+    controller.recordSojourn(1 * MS, start + 220 * MS);
+    assertThat(controller.isOverloaded(start + 250 * MS)).isTrue();
+    assertThat(controller.isOverloaded(start + 310 * MS)).isFalse();
+  }
+
+  @Test
+  public void shouldRecoverWhenNothingIsQueued() {
+    QueueDelayController controller = new QueueDelayController(5, 100);
+    long start = System.nanoTime();
+
+    controller.recordSojourn(20 * MS, start + 10 * MS);
+    assertThat(controller.isOverloaded(start + 110 * MS)).isTrue();
+    assertThat(controller.isOverloaded(start + 500 * MS)).isFalse();
+  }
+
+  @Test
+  public void shouldNeverReportOverloadWhenDisabled() {
+    QueueDelayController controller = new QueueDelayController(0, 100);
+    long start = System.nanoTime();
+
+    controller.recordSojourn(1000 * MS, start + 10 * MS);
+    assertThat(controller.isOverloaded(start + 500 * MS)).isFalse();
+  }
+}
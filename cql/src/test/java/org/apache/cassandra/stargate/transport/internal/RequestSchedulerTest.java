@@ -0,0 +1,134 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class RequestSchedulerTest {
+
+  @BeforeAll
+  public static void setup() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  private final List<String> started = new ArrayList<>();
+  private final List<CompletableFuture<String>> running = new ArrayList<>();
+
+  private CompletableFuture<String> submit(RequestScheduler scheduler, String role) {
+    return submit(scheduler, role, Runnable::run);
+  }
+
+  private CompletableFuture<String> submit(
+      RequestScheduler scheduler, String role, Executor executor) {
+    return scheduler.submit(
+        role,
+        executor,
+        () -> {
+          started.add(role);
+          CompletableFuture<String> future = new CompletableFuture<>();
+          running.add(future);
+          return future;
+        });
+  }
+
+  private void completeOldest() {
+    running.remove(0).complete("done");
+  }
+
+  @Test
+  public void shouldShareConcurrencyByWeight() {
+    RequestScheduler scheduler = new RequestScheduler(1, 0, ImmutableMap.of("web", 2, "etl", 1));
+
+    // The first request starts right away, the others queue behind it
+    submit(scheduler, "etl");
+    for (int i = 0; i < 4; i++) {
+      submit(scheduler, "etl");
+    }
+    for (int i = 0; i < 4; i++) {
+      submit(scheduler, "web");
+    }
+    assertThat(scheduler.queued()).isEqualTo(8);
+
+    while (!running.isEmpty()) {
+      completeOldest();
+    }
+
+    assertThat(started)
+        .containsExactly("etl", "etl", "web", "web", "etl", "web", "web", "etl", "etl");
+    assertThat(scheduler.queued()).isZero();
+  }
+
+  @Test
+  public void shouldCapConcurrencyPerRole() {
+    RequestScheduler scheduler = new RequestScheduler(10, 2, Collections.emptyMap());
+
+    for (int i = 0; i < 5; i++) {
+      submit(scheduler, "etl");
+    }
+    CompletableFuture<String> web = submit(scheduler, "web");
+
+    assertThat(started).containsExactly("etl", "etl", "web");
+    assertThat(scheduler.queued()).isEqualTo(3);
+
+    completeOldest();
+    assertThat(started).containsExactly("etl", "etl", "web", "etl");
+    assertThat(web).isNotDone();
+  }
+
+  @Test
+  public void shouldPropagateResultsAndFailures() {
+    RequestScheduler scheduler = new RequestScheduler(1, 0, Collections.emptyMap());
+
+    CompletableFuture<String> first = submit(scheduler, "a");
+    CompletableFuture<String> failed =
+        scheduler.submit(
+            "a",
+            Runnable::run,
+            () -> {
+              throw new IllegalStateException("boom");
+            });
+    CompletableFuture<String> last = submit(scheduler, "a");
+
+    completeOldest();
+    assertThat(first).isCompletedWithValue("done");
+    assertThat(failed).isCompletedExceptionally();
+    // The failure released its slot, so the next request started
+    assertThat(started).containsExactly("a", "a");
+    completeOldest();
+    assertThat(last).isCompletedWithValue("done");
+  }
+
+  @Test
+  public void shouldStartQueuedRequestsOnTheirExecutor() {
+    RequestScheduler scheduler = new RequestScheduler(1, 0, Collections.emptyMap());
+    List<Runnable> eventLoop = new ArrayList<>();
+
+    submit(scheduler, "a");
+    CompletableFuture<String> queued = submit(scheduler, "b", eventLoop::add);
+    completeOldest();
+    // Handed to its executor rather than run by the thread that completed the previous request
+    assertThat(started).containsExactly("a");
+    assertThat(eventLoop).hasSize(1);
+    eventLoop.remove(0).run();
+    assertThat(started).containsExactly("a", "b");
+
+    completeOldest();
+    assertThat(queued).isCompletedWithValue("done");
+  }
+
+  @Test
+  public void shouldParseWeights() {
+    assertThat(RequestScheduler.parseWeights("web:4, etl : 1,bogus,x:y,"))
+        .isEqualTo(ImmutableMap.of("web", 4, "etl", 1));
+    assertThat(RequestScheduler.parseWeights("")).isEmpty();
+  }
+}
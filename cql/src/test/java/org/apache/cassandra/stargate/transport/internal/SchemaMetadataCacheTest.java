@@ -0,0 +1,159 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.stargate.db.Result;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.cassandra.stargate.db.ConsistencyLevel;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.messages.ResultMessage;
+import org.junit.jupiter.api.Test;
+
+public class SchemaMetadataCacheTest {
+  private static final String QUERY = "SELECT * FROM system_schema.tables";
+
+  private static QueryOptions options(int pageSize, ByteBuffer pagingState) {
+    return new QueryOptions(
+        ConsistencyLevel.ONE,
+        Collections.emptyList(),
+        null,
+        false,
+        new QueryOptions.SpecificOptions(
+            pageSize, pagingState, null, Long.MIN_VALUE, null, Integer.MIN_VALUE),
+        ProtocolVersion.V4);
+  }
+
+  private static Result.Rows rows(String value, ByteBuffer pagingState) {
+    Result.ResultMetadata metadata =
+        new Result.ResultMetadata(EnumSet.of(Result.Flag.NO_METADATA), 1, null, null, pagingState);
+    return new Result.Rows(
+        Collections.singletonList(
+            Collections.singletonList(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)))),
+        metadata);
+  }
+
+  private static byte[] encode(ResultMessage message) {
+    ByteBuf buffer = Unpooled.buffer();
+    ResultMessage.codec.encode(message, buffer, ProtocolVersion.V4);
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.readBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void shouldOnlyCacheSchemaQueries() {
+    SchemaMetadataCache cache = new SchemaMetadataCache(1024);
+    QueryOptions options = options(5000, null);
+
+    assertThat(cache.isCacheable(QUERY, options)).isTrue();
+    assertThat(cache.isCacheable("select keyspace_name from SYSTEM_SCHEMA.keyspaces", options))
+        .isTrue();
+    assertThat(
+            cache.isCacheable(
+                "SELECT * FROM system_schema.columns WHERE keyspace_name IN ('ks')", options))
+        .isTrue();
+    assertThat(
+            cache.isCacheable(
+                "SELECT * FROM system_schema.tables WHERE keyspace_name = 'ks' AND table_name = 't'",
+                options))
+        .isTrue();
+    assertThat(cache.isCacheable("SELECT * FROM system.local", options)).isFalse();
+    // Queries on other tables that only mention system_schema
+    assertThat(
+            cache.isCacheable("SELECT * FROM ks.t WHERE k = 'FROM system_schema.tables'", options))
+        .isFalse();
+    assertThat(cache.isCacheable("SELECT * FROM ks.t /* FROM system_schema.tables */", options))
+        .isFalse();
+    assertThat(
+            cache.isCacheable(
+                "SELECT * FROM system_schema.tables WHERE keyspace_name = 'ks' -- FROM ks.t",
+                options))
+        .isFalse();
+    assertThat(
+            cache.isCacheable(
+                "SELECT * FROM ks.t WHERE k IN (SELECT x FROM system_schema.tables)", options))
+        .isFalse();
+    assertThat(cache.isCacheable("SELECT * FROM ks.system_schema", options)).isFalse();
+    assertThat(cache.isCacheable(QUERY, options(5000, ByteBuffer.allocate(1)))).isFalse();
+    assertThat(new SchemaMetadataCache(0).isCacheable(QUERY, options)).isFalse();
+  }
+
+  @Test
+  public void shouldServeEncodedResultUntilSchemaChanges() {
+    SchemaMetadataCache cache = new SchemaMetadataCache(1024);
+    QueryOptions options = options(5000, null);
+    Result.Rows result = rows("tbl", null);
+
+    assertThat(cache.get(QUERY, options)).isNull();
+    cache.put(QUERY, options, cache.version(), result);
+
+    ResultMessage cached = cache.get(QUERY, options);
+    assertThat(cached).isNotNull();
+    assertThat(encode(cached))
+        .isEqualTo(ResultMessage.encodeBody(result, ProtocolVersion.V4))
+        .hasSize(ResultMessage.codec.encodedSize(cached, ProtocolVersion.V4));
+    // Different page sizes are cached separately
+    assertThat(cache.get(QUERY, options(100, null))).isNull();
+
+    cache.onCreateTable("ks", "tbl");
+    assertThat(cache.get(QUERY, options)).isNull();
+  }
+
+  @Test
+  public void shouldNotCacheStaleOrIncompleteResults() {
+    SchemaMetadataCache cache = new SchemaMetadataCache(1024);
+    QueryOptions options = options(5000, null);
+
+    long version = cache.version();
+    cache.onDropKeyspace("ks");
+    cache.put(QUERY, options, version, rows("tbl", null));
+    assertThat(cache.get(QUERY, options)).isNull();
+
+    cache.put(QUERY, options, cache.version(), rows("tbl", ByteBuffer.allocate(1)));
+    assertThat(cache.get(QUERY, options)).isNull();
+  }
+
+  @Test
+  public void shouldShareConcurrentRebuilds() throws Exception {
+    SchemaMetadataCache cache = new SchemaMetadataCache(1024);
+    QueryOptions options = options(5000, null);
+    Result.Rows result = rows("tbl", null);
+    CompletableFuture<ResultMessage> execution = new CompletableFuture<>();
+    AtomicInteger executions = new AtomicInteger();
+    Supplier<CompletableFuture<ResultMessage>> execute =
+        () -> {
+          executions.incrementAndGet();
+          return execution;
+        };
+
+    CompletableFuture<ResultMessage> first = cache.execute(QUERY, options, execute);
+    CompletableFuture<ResultMessage> second = cache.execute(QUERY, options, execute);
+    assertThat(second).isNotDone();
+
+    execution.complete(ResultMessage.preEncoded(result, null));
+    assertThat(encode(second.get())).isEqualTo(encode(first.get()));
+    assertThat(second.get()).isNotSameAs(first.get());
+    assertThat(executions.get()).isEqualTo(1);
+
+    // The waiters execute the query themselves if the result couldn't be cached
+    cache.onCreateTable("ks", "tbl");
+    CompletableFuture<ResultMessage> paged = new CompletableFuture<>();
+    CompletableFuture<ResultMessage> third = cache.execute(QUERY, options, () -> paged);
+    CompletableFuture<ResultMessage> fourth =
+        cache.execute(
+            QUERY,
+            options,
+            () -> CompletableFuture.completedFuture(ResultMessage.preEncoded(result, null)));
+    paged.complete(ResultMessage.preEncoded(rows("tbl", ByteBuffer.allocate(1)), null));
+    assertThat(third.get()).isNotNull();
+    assertThat(encode(fourth.get())).isEqualTo(encode(first.get()));
+  }
+}
@@ -0,0 +1,248 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.stargate.auth.AuthenticationService;
+import io.stargate.db.Authenticator;
+import io.stargate.db.Persistence;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Random;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.transport.ProtocolException;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.Compressor;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.LZ4Compressor;
+import org.apache.cassandra.stargate.transport.internal.messages.StartupMessage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class SegmentTest {
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  private static EmbeddedChannel channel(Compressor compressor) {
+    EmbeddedChannel channel = new EmbeddedChannel(new Segment.Encoder());
+    Connection connection = new Connection(channel, ProtocolVersion.V5, (ch, c) -> {});
+    channel.attr(Connection.attributeKey).set(connection);
+    connection.setSegmentFraming(compressor);
+    return channel;
+  }
+
+  private static Frame frame(Message.Type type, int streamId, byte[] body) {
+    return Frame.create(
+        type,
+        streamId,
+        ProtocolVersion.V5,
+        EnumSet.of(Frame.Header.Flag.USE_BETA),
+        Unpooled.wrappedBuffer(body));
+  }
+
+  private static byte[] encoded(Frame frame) {
+    ByteBuf buffer = Unpooled.buffer();
+    frame.encodeHeader(buffer);
+    buffer.writeBytes(frame.body, frame.body.readerIndex(), frame.body.readableBytes());
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.readBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] decodeAll(EmbeddedChannel channel, Compressor compressor) {
+    Segment.Decoder decoder = new Segment.Decoder();
+    EmbeddedChannel in = new EmbeddedChannel(decoder);
+    Connection connection = new Connection(in, ProtocolVersion.V5, (ch, c) -> {});
+    in.attr(Connection.attributeKey).set(connection);
+    connection.setSegmentFraming(compressor);
+
+    ByteBuf segment;
+    while ((segment = channel.readOutbound()) != null) {
+      in.writeInbound(segment);
+    }
+    ByteBuf decoded = Unpooled.buffer();
+    ByteBuf payload;
+    while ((payload = in.readInbound()) != null) {
+      decoded.writeBytes(payload);
+      payload.release();
+    }
+    byte[] bytes = new byte[decoded.readableBytes()];
+    decoded.readBytes(bytes);
+    return bytes;
+  }
+
+  private static EmbeddedChannel serverChannel() {
+    Persistence persistence = mock(Persistence.class);
+    Persistence.Connection connection = mock(Persistence.Connection.class);
+    when(persistence.newConnection(any())).thenReturn(connection);
+    when(connection.persistence()).thenReturn(persistence);
+    when(persistence.getAuthenticator()).thenReturn(mock(Authenticator.class));
+    when(persistence.cqlSupportedOptions())
+        .thenReturn(ImmutableMap.of(StartupMessage.CQL_VERSION, ImmutableList.of("3.4.5")));
+
+    EmbeddedChannel channel = new EmbeddedChannel();
+    Server server =
+        new Server.Builder(persistence, mock(AuthenticationService.class))
+            .withEventLoopGroup(channel.eventLoop())
+            .withHost(InetAddress.getLoopbackAddress())
+            .withPort(9042)
+            .build();
+    channel.pipeline().addLast(new Server.Initializer(server));
+    return channel;
+  }
+
+  private static byte[] readAll(EmbeddedChannel channel) {
+    ByteBuf buffer = Unpooled.buffer();
+    ByteBuf written;
+    while ((written = channel.readOutbound()) != null) {
+      buffer.writeBytes(written);
+      written.release();
+    }
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.readBytes(bytes);
+    return bytes;
+  }
+
+  private static Frame startup(int streamId) {
+    ByteBuf body = Unpooled.buffer();
+    CBUtil.writeStringMap(ImmutableMap.of(StartupMessage.CQL_VERSION, "3.0.0"), body);
+    byte[] bytes = new byte[body.readableBytes()];
+    body.readBytes(bytes);
+    return frame(Message.Type.STARTUP, streamId, bytes);
+  }
+
+  private static void assertResponseHeader(byte[] frame, Message.Type type, int streamId) {
+    assertThat(frame[0]).isEqualTo((byte) (0x80 | ProtocolVersion.V5.asInt()));
+    assertThat(frame[1] & 0xFF).isEqualTo(1 << Frame.Header.Flag.USE_BETA.ordinal());
+    assertThat(((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF)).isEqualTo(streamId);
+    assertThat(frame[4] & 0xFF).isEqualTo(type.opcode);
+  }
+
+  private static byte[] concat(byte[]... arrays) {
+    ByteBuf buffer = Unpooled.buffer();
+    for (byte[] array : arrays) buffer.writeBytes(array);
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.readBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void shouldSendStartupResponseWithLegacyFraming() {
+    EmbeddedChannel channel = channel(null);
+
+    Frame ready = frame(Message.Type.READY, 0, new byte[0]);
+    channel.writeOutbound(ready);
+
+    assertThat((Object) channel.readOutbound()).isSameAs(ready);
+  }
+
+  @Test
+  public void shouldPackFramesIntoOneSegmentUntilFlushed() {
+    for (Compressor compressor : new Compressor[] {null, LZ4Compressor.INSTANCE}) {
+      EmbeddedChannel channel = channel(compressor);
+      channel.writeOutbound(frame(Message.Type.READY, 0, new byte[0]));
+      channel.readOutbound();
+
+      byte[] body = new byte[200];
+      Frame first = frame(Message.Type.RESULT, 1, body);
+      Frame second = frame(Message.Type.RESULT, 2, body);
+      byte[] expected = concat(encoded(first), encoded(second));
+      channel.write(first);
+      channel.write(second);
+      channel.flush();
+
+      assertThat(channel.outboundMessages()).hasSize(1);
+      assertThat(decodeAll(channel, compressor)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void shouldSplitFramesLargerThanASegment() {
+    for (Compressor compressor : new Compressor[] {null, LZ4Compressor.INSTANCE}) {
+      EmbeddedChannel channel = channel(compressor);
+      channel.writeOutbound(frame(Message.Type.READY, 0, new byte[0]));
+      channel.readOutbound();
+
+      byte[] small = new byte[10];
+      byte[] large = new byte[3 * Segment.MAX_PAYLOAD_LENGTH];
+      new Random(42).nextBytes(large);
+      Frame first = frame(Message.Type.RESULT, 1, small);
+      Frame second = frame(Message.Type.RESULT, 2, large);
+      byte[] expected = concat(encoded(first), encoded(second));
+      channel.write(first);
+      channel.write(second);
+      channel.flush();
+
+      // The small frame is sent on its own, then the large one over 4 segments
+      assertThat(channel.outboundMessages()).hasSize(5);
+      assertThat(decodeAll(channel, compressor)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void shouldRejectCorruptedSegments() {
+    EmbeddedChannel channel = channel(null);
+    channel.writeOutbound(frame(Message.Type.READY, 0, new byte[0]));
+    channel.readOutbound();
+    channel.writeOutbound(frame(Message.Type.RESULT, 1, new byte[100]));
+    ByteBuf segment = channel.readOutbound();
+    segment.setByte(20, segment.getByte(20) + 1);
+
+    assertThatThrownBy(() -> new Segment.Decoder().decodeSegment(segment))
+        .isInstanceOf(ProtocolException.class)
+        .hasMessageContaining("Corrupted segment payload");
+  }
+
+  @Test
+  public void shouldSwitchToSegmentsAfterStartupThroughServerPipeline() {
+    System.setProperty("stargate.cql_v5_segment_framing", "true");
+    try {
+      EmbeddedChannel server = serverChannel();
+
+      server.writeInbound(Unpooled.wrappedBuffer(encoded(startup(1))));
+      server.runPendingTasks();
+
+      // The READY response is the last frame sent with legacy framing
+      assertResponseHeader(readAll(server), Message.Type.READY, 1);
+      assertThat(server.attr(Connection.attributeKey).get().usesSegmentFraming()).isTrue();
+
+      EmbeddedChannel client = channel(null);
+      client.writeOutbound(frame(Message.Type.READY, 0, new byte[0]));
+      client.readOutbound();
+      client.writeOutbound(frame(Message.Type.OPTIONS, 2, new byte[0]));
+      ByteBuf segment;
+      while ((segment = client.readOutbound()) != null) {
+        server.writeInbound(segment);
+      }
+      server.runPendingTasks();
+
+      assertThat(server.outboundMessages()).hasSize(1);
+      assertResponseHeader(decodeAll(server, null), Message.Type.SUPPORTED, 2);
+    } finally {
+      System.clearProperty("stargate.cql_v5_segment_framing");
+    }
+  }
+
+  @Test
+  public void shouldKeepLegacyFramingForV5ByDefault() {
+    EmbeddedChannel server = serverChannel();
+
+    server.writeInbound(Unpooled.wrappedBuffer(encoded(startup(1))));
+    server.runPendingTasks();
+
+    assertResponseHeader(readAll(server), Message.Type.READY, 1);
+    assertThat(server.attr(Connection.attributeKey).get().usesSegmentFraming()).isFalse();
+  }
+}
@@ -0,0 +1,100 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.stargate.auth.AuthenticationService;
+import io.stargate.db.Persistence;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ServerTest {
+
+  @Test
+  public void shouldNotDeleteFilesThatAreNotSockets(@TempDir Path dir) throws Exception {
+    Path file = Files.createFile(dir.resolve("cql.sock"));
+
+    assertThat(Server.deleteSocket(file)).isFalse();
+    assertThat(file).exists();
+    assertThat(Server.deleteSocket(dir)).isFalse();
+    assertThat(Server.deleteSocket(dir.resolve("missing"))).isTrue();
+  }
+
+  @Test
+  public void shouldDeleteSockets(@TempDir Path dir) throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    Path socket = dir.resolve("cql.sock");
+    EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+    try {
+      Channel channel =
+          new ServerBootstrap()
+              .channel(EpollServerDomainSocketChannel.class)
+              .group(group)
+              .childHandler(new ChannelInboundHandlerAdapter())
+              .bind(new DomainSocketAddress(socket.toString()))
+              .sync()
+              .channel();
+      try {
+        assertThat(Server.deleteSocket(socket)).isTrue();
+        assertThat(Files.exists(socket, LinkOption.NOFOLLOW_LINKS)).isFalse();
+      } finally {
+        channel.close().sync();
+      }
+    } finally {
+      group.shutdownGracefully().sync();
+    }
+  }
+
+  @Test
+  public void shouldRequireEpollGroupForDomainSockets(@TempDir Path dir) {
+    assertThatThrownBy(
+            () -> domainSocketServer(new EmbeddedChannel().eventLoop(), dir.resolve("cql.sock")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("requires the epoll transport");
+  }
+
+  @Test
+  public void shouldRestrictDomainSocketPermissions(@TempDir Path dir) throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    Path socket = dir.resolve("cql.sock");
+    EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+    try {
+      Server server = domainSocketServer(group, socket);
+      server.start();
+      try {
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)))
+            .isEqualTo("rw-rw----");
+      } finally {
+        server.stop();
+      }
+      assertThat(Files.exists(socket, LinkOption.NOFOLLOW_LINKS)).isFalse();
+    } finally {
+      group.shutdownGracefully().sync();
+    }
+  }
+
+  private static Server domainSocketServer(EventLoopGroup group, Path socket) {
+    return new Server.Builder(mock(Persistence.class), mock(AuthenticationService.class))
+        .withEventLoopGroup(group)
+        .withHost(InetAddress.getLoopbackAddress())
+        .withPort(9042)
+        .withDomainSocket(socket.toString())
+        .build();
+  }
+}
@@ -0,0 +1,128 @@
+package org.apache.cassandra.stargate.transport.internal.frame.compress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Collections;
+import java.util.Random;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveCompressingTransformerTest {
+
+  private static final MetricRegistry registry = new MetricRegistry();
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), registry);
+  }
+
+  private static Counter bytesSaved() {
+    return registry
+        .getCounters((name, metric) -> name.endsWith(".CompressionBytesSaved"))
+        .values()
+        .iterator()
+        .next();
+  }
+
+  private static Timer latency() {
+    return registry
+        .getTimers((name, metric) -> name.endsWith(".CompressionLatency"))
+        .values()
+        .iterator()
+        .next();
+  }
+
+  private static AdaptiveCompressingTransformer newTransformer() {
+    return new AdaptiveCompressingTransformer(
+        CompressingTransformer.getTransformer(LZ4Compressor.INSTANCE), 100, 0.9, 4);
+  }
+
+  private static ByteBuf compressible(int size) {
+    return Unpooled.wrappedBuffer(new byte[size]);
+  }
+
+  private static ByteBuf incompressible(int size) {
+    byte[] bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    return Unpooled.wrappedBuffer(bytes);
+  }
+
+  /** Sends a frame through the transformer, and returns whether it was compressed. */
+  private static boolean send(AdaptiveCompressingTransformer transformer, ByteBuf body)
+      throws Exception {
+    if (!transformer.shouldTransformOutbound(body)) {
+      return false;
+    }
+    transformer.transformOutbound(body).release();
+    return true;
+  }
+
+  @Test
+  public void shouldNotCompressSmallFrames() throws Exception {
+    AdaptiveCompressingTransformer transformer = newTransformer();
+
+    assertThat(send(transformer, compressible(99))).isFalse();
+    assertThat(send(transformer, compressible(100))).isTrue();
+  }
+
+  @Test
+  public void shouldKeepCompressingCompressibleFrames() throws Exception {
+    AdaptiveCompressingTransformer transformer = newTransformer();
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(send(transformer, compressible(1000))).isTrue();
+    }
+  }
+
+  @Test
+  public void shouldSampleIncompressibleFrames() throws Exception {
+    AdaptiveCompressingTransformer transformer = newTransformer();
+
+    // The average ratio starts at 0, it takes a few samples to go over the max
+    int compressed = 0;
+    while (send(transformer, incompressible(1000))) {
+      compressed++;
+      assertThat(compressed).isLessThan(20);
+    }
+
+    // Then only one frame out of 4 is compressed
+    assertThat(send(transformer, incompressible(1000))).isFalse();
+    assertThat(send(transformer, incompressible(1000))).isFalse();
+    assertThat(send(transformer, incompressible(1000))).isTrue();
+    assertThat(send(transformer, incompressible(1000))).isFalse();
+
+    // Until the data compresses again
+    for (int i = 0; i < 3; i++) {
+      send(transformer, compressible(1000));
+    }
+    int uncompressed = 0;
+    while (!send(transformer, compressible(1000))) {
+      uncompressed++;
+      assertThat(uncompressed).isLessThan(4);
+    }
+    assertThat(send(transformer, compressible(1000))).isTrue();
+  }
+
+  @Test
+  public void shouldRecordBytesSavedAndLatency() throws Exception {
+    AdaptiveCompressingTransformer transformer = newTransformer();
+    long count = latency().getCount();
+
+    long saved = bytesSaved().getCount();
+    send(transformer, compressible(1000));
+    assertThat(bytesSaved().getCount()).isGreaterThan(saved);
+
+    // Incompressible data grows a bit when compressed
+    saved = bytesSaved().getCount();
+    send(transformer, incompressible(1000));
+    assertThat(bytesSaved().getCount()).isLessThan(saved);
+
+    assertThat(latency().getCount()).isEqualTo(count + 2);
+  }
+}
@@ -0,0 +1,146 @@
+package org.apache.cassandra.stargate.transport.internal.messages;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.stargate.db.Result;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.ImmutableColumn;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.Test;
+
+public class ResultMessageTest {
+
+  private static ByteBuffer value(int size) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) size);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private static Result.Rows rows(int rowCount) {
+    List<List<ByteBuffer>> rows = new ArrayList<>();
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(Arrays.asList(value(4), value(10_000 + i), null, value(0)));
+    }
+    return new Result.Rows(
+        rows,
+        new Result.ResultMetadata(EnumSet.of(Result.Flag.NO_METADATA), 4, null, null, value(8)));
+  }
+
+  @Test
+  public void shouldEncodeTheSameBytesWhenWrappingValues() {
+    ResultMessage message = new ResultMessage(rows(10));
+    ByteBuf copied = Unpooled.buffer();
+    ResultMessage.codec.encode(message, copied, ProtocolVersion.V4);
+
+    ByteBuf prefix = Unpooled.buffer();
+    prefix.writeInt(42);
+    ByteBuf wrapped = message.encodeWrappingValues(prefix, ProtocolVersion.V4);
+
+    try {
+      assertThat(wrapped).isInstanceOf(CompositeByteBuf.class);
+      // prefix + one chunk and one wrapped value per row
+      assertThat(((CompositeByteBuf) wrapped).numComponents()).isEqualTo(21);
+      assertThat(wrapped.readInt()).isEqualTo(42);
+      assertThat(ByteBufUtil.getBytes(wrapped)).isEqualTo(ByteBufUtil.getBytes(copied));
+    } finally {
+      wrapped.release();
+    }
+  }
+
+  @Test
+  public void shouldOnlyWrapValuesOfLargeRowsResults() {
+    ResultMessage rows = new ResultMessage(rows(10));
+    ResultMessage prepared = new ResultMessage(new Result.Prepared(null, null, null, null));
+
+    assertThat(rows.shouldWrapValues(1024)).isFalse();
+    assertThat(rows.shouldWrapValues(1024 * 1024)).isTrue();
+    assertThat(prepared.shouldWrapValues(1024 * 1024)).isFalse();
+    assertThat(ResultMessage.preEncoded(rows.result, new byte[] {0}).shouldWrapValues(1024 * 1024))
+        .isFalse();
+  }
+
+  private static Column column(String table, String name) {
+    return ImmutableColumn.builder()
+        .keyspace("ks")
+        .table(table)
+        .name(name)
+        .type(Column.Type.List.of(Column.Type.Text))
+        .build();
+  }
+
+  private static Result.Rows decode(
+      List<Column> columns,
+      MD5Digest resultMetadataId,
+      EnumSet<Result.Flag> flags,
+      ProtocolVersion version) {
+    Result.Rows rows =
+        new Result.Rows(
+            Collections.emptyList(),
+            new Result.ResultMetadata(flags, columns, resultMetadataId, null));
+    ResultMessage message = new ResultMessage(rows);
+    ByteBuf buffer = Unpooled.buffer();
+    ResultMessage.codec.encode(message, buffer, version);
+    assertThat(buffer.readableBytes()).isEqualTo(ResultMessage.codec.encodedSize(message, version));
+    return (Result.Rows) ResultMessage.codec.decode(buffer, version).result;
+  }
+
+  @Test
+  public void shouldReuseEncodedColumnSpecs() {
+    List<Column> columns = Arrays.asList(column("t", "k"), column("t", "v"));
+    MD5Digest id = MD5Digest.compute("ks.t(k, v)");
+
+    for (ProtocolVersion version : Arrays.asList(ProtocolVersion.V3, ProtocolVersion.V4)) {
+      for (EnumSet<Result.Flag> flags :
+          Arrays.asList(
+              EnumSet.noneOf(Result.Flag.class), EnumSet.of(Result.Flag.GLOBAL_TABLES_SPEC))) {
+        // Twice with and without an id, the second time with an id from the cache
+        for (MD5Digest resultMetadataId : Arrays.asList(null, id, null, id)) {
+          assertThat(decode(columns, resultMetadataId, flags, version).resultMetadata.columns)
+              .extracting(Column::keyspace, Column::table, Column::name)
+              .containsExactly(tuple("ks", "t", "k"), tuple("ks", "t", "v"));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldNotReuseEncodedColumnSpecsOfOtherColumns() {
+    MD5Digest id = MD5Digest.compute("ks.t2(k)");
+    List<Column> columns = new ArrayList<>(Collections.singletonList(column("t2", "k")));
+    decode(columns, id, EnumSet.noneOf(Result.Flag.class), ProtocolVersion.V4);
+
+    // Another list with the same columns shares the encoding, and added columns are encoded
+    columns = new ArrayList<>(columns);
+    columns.add(column("t2", "extra"));
+    assertThat(
+            decode(columns, id, EnumSet.noneOf(Result.Flag.class), ProtocolVersion.V4)
+                .resultMetadata
+                .columns)
+        .extracting(Column::name)
+        .containsExactly("k", "extra");
+
+    // Other columns with a different id
+    assertThat(
+            decode(
+                    Collections.singletonList(column("t3", "v")),
+                    MD5Digest.compute("ks.t3(v)"),
+                    EnumSet.noneOf(Result.Flag.class),
+                    ProtocolVersion.V4)
+                .resultMetadata
+                .columns)
+        .extracting(Column::table, Column::name)
+        .containsExactly(tuple("t3", "v"));
+  }
+}
@@ -41,6 +41,8 @@ import io.stargate.db.schema.Column;
 import io.stargate.db.schema.Keyspace;
 import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.fetchers.CassandraFetcher;
+import io.stargate.graphql.schema.fetchers.dml.BulkInsertMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.BulkUpdateMutationFetcher;
 import io.stargate.graphql.schema.fetchers.dml.DeleteMutationFetcher;
 import io.stargate.graphql.schema.fetchers.dml.InsertMutationFetcher;
 import io.stargate.graphql.schema.fetchers.dml.QueryFetcher;
@@ -234,7 +236,9 @@ class DmlSchemaBuilder {
     List<GraphQLFieldDefinition> mutationFields = new ArrayList<>();
     mutationFields.add(buildDelete(table));
     mutationFields.add(buildInsert(table));
+    mutationFields.add(buildBulkInsert(table));
     mutationFields.add(buildUpdate(table));
+    mutationFields.add(buildBulkUpdate(table));
 
     return mutationFields;
   }
@@ -283,6 +287,32 @@ class DmlSchemaBuilder {
         .build();
   }
 
+  private GraphQLFieldDefinition buildBulkUpdate(Table table) {
+    return GraphQLFieldDefinition.newFieldDefinition()
+        .name("bulkUpdate" + nameMapping.getGraphqlName(table))
+        .description(
+            String.format(
+                "Bulk update mutation for the table '%s'.%s",
+                table.name(), primaryKeyDescription(table)))
+        .argument(
+            GraphQLArgument.newArgument()
+                .name("values")
+                .type(
+                    new GraphQLNonNull(
+                        new GraphQLList(
+                            new GraphQLNonNull(
+                                new GraphQLTypeReference(
+                                    nameMapping.getGraphqlName(table) + "Input"))))))
+        .argument(GraphQLArgument.newArgument().name("ifExists").type(Scalars.GraphQLBoolean))
+        .argument(GraphQLArgument.newArgument().name("options").type(MUTATION_OPTIONS))
+        .type(
+            new GraphQLList(
+                new GraphQLTypeReference(nameMapping.getGraphqlName(table) + "MutationResult")))
+        .dataFetcher(
+            new BulkUpdateMutationFetcher(table, nameMapping, persistence, authenticationService))
+        .build();
+  }
+
   private GraphQLFieldDefinition buildInsert(Table table) {
     return GraphQLFieldDefinition.newFieldDefinition()
         .name("insert" + nameMapping.getGraphqlName(table))
@@ -304,6 +334,32 @@ class DmlSchemaBuilder {
         .build();
   }
 
+  private GraphQLFieldDefinition buildBulkInsert(Table table) {
+    return GraphQLFieldDefinition.newFieldDefinition()
+        .name("bulkInsert" + nameMapping.getGraphqlName(table))
+        .description(
+            String.format(
+                "Bulk insert mutation for the table '%s'.%s",
+                table.name(), primaryKeyDescription(table)))
+        .argument(
+            GraphQLArgument.newArgument()
+                .name("values")
+                .type(
+                    new GraphQLNonNull(
+                        new GraphQLList(
+                            new GraphQLNonNull(
+                                new GraphQLTypeReference(
+                                    nameMapping.getGraphqlName(table) + "Input"))))))
+        .argument(GraphQLArgument.newArgument().name("ifNotExists").type(Scalars.GraphQLBoolean))
+        .argument(GraphQLArgument.newArgument().name("options").type(MUTATION_OPTIONS))
+        .type(
+            new GraphQLList(
+                new GraphQLTypeReference(nameMapping.getGraphqlName(table) + "MutationResult")))
+        .dataFetcher(
+            new BulkInsertMutationFetcher(table, nameMapping, persistence, authenticationService))
+        .build();
+  }
+
   private GraphQLFieldDefinition buildDelete(Table table) {
     return GraphQLFieldDefinition.newFieldDefinition()
         .name("delete" + nameMapping.getGraphqlName(table))
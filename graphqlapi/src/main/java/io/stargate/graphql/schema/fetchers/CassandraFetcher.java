@@ -9,6 +9,8 @@ import io.stargate.db.Parameters;
 import io.stargate.db.Persistence;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.graphql.web.HttpAwareContext;
+import io.stargate.graphql.web.OperationTimings;
+import io.stargate.graphql.web.OperationTimings.Phase;
 import java.nio.ByteBuffer;
 import java.util.Base64;
 import java.util.Map;
@@ -38,10 +40,11 @@ public abstract class CassandraFetcher<ResultT> implements DataFetcher<ResultT>
 
   @Override
   public final ResultT get(DataFetchingEnvironment environment) throws Exception {
+    long start = System.nanoTime();
     HttpAwareContext httpAwareContext = environment.getContext();
 
-    String token = httpAwareContext.getAuthToken();
-    StoredCredentials storedCredentials = authenticationService.validateToken(token);
+    StoredCredentials storedCredentials =
+        httpAwareContext.getStoredCredentials(authenticationService);
 
     Parameters parameters;
     Map<String, Object> options = environment.getArgument("options");
@@ -75,6 +78,7 @@ public abstract class CassandraFetcher<ResultT> implements DataFetcher<ResultT>
 
     DataStore dataStore =
         DataStore.create(persistence, storedCredentials.getRoleName(), parameters);
+    OperationTimings.record(environment, Phase.AUTH, start);
     return get(environment, dataStore);
   }
 
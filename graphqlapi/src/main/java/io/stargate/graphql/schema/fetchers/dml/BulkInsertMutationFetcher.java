@@ -0,0 +1,57 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.graphql.schema.fetchers.dml;
+
+import com.datastax.oss.driver.api.querybuilder.term.Term;
+import graphql.schema.DataFetchingEnvironment;
+import io.stargate.auth.AuthenticationService;
+import io.stargate.db.Persistence;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Table;
+import io.stargate.graphql.schema.NameMapping;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/** Inserts a list of rows in a single mutation field, see {@link BulkMutationFetcher}. */
+public class BulkInsertMutationFetcher extends BulkMutationFetcher {
+
+  public BulkInsertMutationFetcher(
+      Table table,
+      NameMapping nameMapping,
+      Persistence persistence,
+      AuthenticationService authenticationService) {
+    super(table, nameMapping, persistence, authenticationService);
+  }
+
+  @Override
+  protected String buildStatement(
+      Map<String, Object> value,
+      DataFetchingEnvironment environment,
+      BiFunction<Column, Object, Term> toTerm) {
+    return buildInsert(value, environment, toTerm);
+  }
+
+  @Override
+  protected boolean isConditional(DataFetchingEnvironment environment) {
+    Boolean ifNotExists = environment.getArgument("ifNotExists");
+    return ifNotExists != null && ifNotExists;
+  }
+
+  @Override
+  protected String operationName() {
+    return "insert";
+  }
+}
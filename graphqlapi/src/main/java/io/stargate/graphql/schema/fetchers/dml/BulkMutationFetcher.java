@@ -0,0 +1,408 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.graphql.schema.fetchers.dml;
+
+import static io.stargate.graphql.schema.SchemaConstants.ATOMIC_DIRECTIVE;
+
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.term.Term;
+import com.google.common.collect.ImmutableMap;
+import graphql.GraphQLError;
+import graphql.GraphQLException;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.DataFetcherResult;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetchingEnvironment;
+import io.stargate.auth.AuthenticationService;
+import io.stargate.db.BatchType;
+import io.stargate.db.Persistence;
+import io.stargate.db.datastore.DataStore;
+import io.stargate.db.datastore.PreparedStatement;
+import io.stargate.db.datastore.ResultSet;
+import io.stargate.db.datastore.Row;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Table;
+import io.stargate.graphql.schema.NameMapping;
+import io.stargate.graphql.web.HttpAwareContext;
+import io.stargate.graphql.web.OperationTimings;
+import io.stargate.graphql.web.OperationTimings.Phase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a list of rows in a single mutation field, and returns one result per row (in the same
+ * order as the input).
+ *
+ * <p>Unless the operation is {@code @atomic}, each row is bound to a prepared statement (one per
+ * distinct set of columns in the input), and rows are grouped by partition key into unlogged
+ * batches (of at most {@code stargate.graphql.bulk_mutation_batch_size} rows). At most {@code
+ * stargate.graphql.bulk_mutation_concurrency} of those batches are in flight at any time. A failed
+ * batch does not affect the others: its rows are reported as not applied, with an error for each of
+ * them. Conditional mutations are executed one row at a time, since the outcome of each row must be
+ * reported separately.
+ *
+ * <p>In an {@code @atomic} operation, all the rows are part of the operation's logged batch.
+ */
+public abstract class BulkMutationFetcher
+    extends DmlFetcher<CompletableFuture<DataFetcherResult<List<Map<String, Object>>>>> {
+
+  private static final int CONCURRENCY =
+      Integer.getInteger("stargate.graphql.bulk_mutation_concurrency", 16);
+  private static final int BATCH_SIZE =
+      Integer.getInteger("stargate.graphql.bulk_mutation_batch_size", 50);
+
+  private static final String APPLIED_COLUMN = "[applied]";
+
+  protected BulkMutationFetcher(
+      Table table,
+      NameMapping nameMapping,
+      Persistence persistence,
+      AuthenticationService authenticationService) {
+    super(table, nameMapping, persistence, authenticationService);
+  }
+
+  /**
+   * Builds the statement for a row, turning its column values into terms with {@code toTerm} in the
+   * order of the statement.
+   */
+  protected abstract String buildStatement(
+      Map<String, Object> value,
+      DataFetchingEnvironment environment,
+      BiFunction<Column, Object, Term> toTerm);
+
+  /** Whether the statements are conditional, and their outcome must be reported row by row. */
+  protected abstract boolean isConditional(DataFetchingEnvironment environment);
+
+  /** A short description of the mutation for error messages, like "insert". */
+  protected abstract String operationName();
+
+  @Override
+  protected CompletableFuture<DataFetcherResult<List<Map<String, Object>>>> get(
+      DataFetchingEnvironment environment, DataStore dataStore) {
+    long start = System.nanoTime();
+    List<Map<String, Object>> values = environment.getArgument("values");
+    OperationDefinition operation = environment.getOperationDefinition();
+    boolean atomic =
+        operation.getDirectives().stream().anyMatch(d -> d.getName().equals(ATOMIC_DIRECTIVE));
+    List<String> statements = null;
+    List<BoundRow> rows = null;
+    Exception buildException = null;
+
+    // Avoid mixing sync and async exceptions
+    try {
+      if (atomic) {
+        statements =
+            values.stream()
+                .map(v -> buildStatement(v, environment, this::toCqlTerm))
+                .collect(Collectors.toList());
+      } else {
+        rows = values.stream().map(v -> bind(v, environment)).collect(Collectors.toList());
+      }
+    } catch (Exception e) {
+      buildException = e;
+    }
+    long buildEnd = OperationTimings.record(environment, Phase.BUILD, start);
+
+    if (atomic) {
+      return executeAtomically(environment, dataStore, values, statements, buildException)
+          .whenComplete((r, e) -> OperationTimings.record(environment, Phase.EXECUTE, buildEnd));
+    }
+
+    if (buildException != null) {
+      CompletableFuture<DataFetcherResult<List<Map<String, Object>>>> f = new CompletableFuture<>();
+      f.completeExceptionally(buildException);
+      return f;
+    }
+    return executeConcurrently(environment, dataStore, values, rows)
+        .whenComplete((r, e) -> OperationTimings.record(environment, Phase.EXECUTE, buildEnd));
+  }
+
+  private BoundRow bind(Map<String, Object> value, DataFetchingEnvironment environment) {
+    List<Object> boundValues = new ArrayList<>(value.size());
+    String query =
+        buildStatement(
+            value,
+            environment,
+            (column, columnValue) -> {
+              boundValues.add(DataTypeMapping.toDBValue(column.type(), columnValue, nameMapping));
+              return QueryBuilder.bindMarker();
+            });
+    return new BoundRow(query, boundValues.toArray());
+  }
+
+  private CompletableFuture<DataFetcherResult<List<Map<String, Object>>>> executeAtomically(
+      DataFetchingEnvironment environment,
+      DataStore dataStore,
+      List<Map<String, Object>> values,
+      List<String> statements,
+      Exception buildException) {
+    CompletableFuture<ResultSet> execution;
+    int selections = environment.getOperationDefinition().getSelectionSet().getSelections().size();
+    if (selections == 1) {
+      if (buildException != null) {
+        execution = new CompletableFuture<>();
+        execution.completeExceptionally(buildException);
+      } else if (statements.isEmpty()) {
+        execution = CompletableFuture.completedFuture(ResultSet.empty());
+      } else {
+        execution = dataStore.batch(statements);
+      }
+    } else {
+      HttpAwareContext context = environment.getContext();
+      HttpAwareContext.BatchContext batchContext = context.getBatchContext();
+
+      if (environment.getArgument("options") != null && batchContext.setDataStore(dataStore)) {
+        buildException =
+            new GraphQLException(
+                "options can only de defined once in an @atomic mutation selection");
+      }
+      if (buildException != null) {
+        batchContext.setExecutionResult(buildException);
+      } else if (batchContext.add(statements) == selections) {
+        if (batchContext.getStatements().isEmpty()) {
+          batchContext.setExecutionResult(CompletableFuture.completedFuture(ResultSet.empty()));
+        } else {
+          DataStore batchDataStore = batchContext.getDataStore().orElse(dataStore);
+          batchContext.setExecutionResult(batchDataStore.batch(batchContext.getStatements()));
+        }
+      }
+      execution = batchContext.getExecutionFuture();
+    }
+
+    return execution.thenApply(
+        rs -> {
+          boolean applied = isApplied(rs);
+          List<Map<String, Object>> results = new ArrayList<>(values.size());
+          for (Map<String, Object> value : values) {
+            results.add(toResult(applied, value));
+          }
+          return DataFetcherResult.<List<Map<String, Object>>>newResult().data(results).build();
+        });
+  }
+
+  private CompletableFuture<DataFetcherResult<List<Map<String, Object>>>> executeConcurrently(
+      DataFetchingEnvironment environment,
+      DataStore dataStore,
+      List<Map<String, Object>> values,
+      List<BoundRow> rows) {
+    Execution execution = new Execution(environment, dataStore, values, rows);
+
+    // Each worker executes groups one after the other, which bounds the number of in-flight
+    // requests to the number of workers.
+    int workers = Math.min(Math.max(CONCURRENCY, 1), execution.groups.size());
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+    for (int i = 0; i < workers; i++) {
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      execution.executeGroups(done);
+      futures[i] = done;
+    }
+
+    return CompletableFuture.allOf(futures)
+        .thenApply(
+            v -> {
+              List<Map<String, Object>> data = new ArrayList<>(values.size());
+              for (int i = 0; i < values.size(); i++) {
+                data.add(execution.results.get(i));
+              }
+              return DataFetcherResult.<List<Map<String, Object>>>newResult()
+                  .data(data)
+                  .errors(new ArrayList<>(execution.errors))
+                  .build();
+            });
+  }
+
+  /** A row to write, as a query with bind markers and the values to bind. */
+  private static class BoundRow {
+    final String query;
+    final Object[] values;
+
+    BoundRow(String query, Object[] values) {
+      this.query = query;
+      this.values = values;
+    }
+  }
+
+  /** The state of a non-atomic bulk mutation, shared by its workers. */
+  private class Execution {
+    final DataFetchingEnvironment environment;
+    final DataStore dataStore;
+    final List<Map<String, Object>> values;
+    final List<BoundRow> rows;
+    final Queue<List<Integer>> groups;
+    // Rows with the same columns share a query, which is only prepared once per operation.
+    final ConcurrentMap<String, CompletableFuture<PreparedStatement>> prepared =
+        new ConcurrentHashMap<>();
+    final AtomicReferenceArray<Map<String, Object>> results;
+    final Queue<GraphQLError> errors = new ConcurrentLinkedQueue<>();
+
+    Execution(
+        DataFetchingEnvironment environment,
+        DataStore dataStore,
+        List<Map<String, Object>> values,
+        List<BoundRow> rows) {
+      this.environment = environment;
+      this.dataStore = dataStore;
+      this.values = values;
+      this.rows = rows;
+      this.groups = new ConcurrentLinkedQueue<>(group(values, isConditional(environment)));
+      this.results = new AtomicReferenceArray<>(values.size());
+    }
+
+    /**
+     * Executes groups until there are none left, then completes {@code done}, or completes it
+     * exceptionally if the results of a group could not be recorded. Groups whose execution
+     * completes synchronously are handled in a loop, and the worker only resumes from a callback
+     * when it has to wait, so the stack doesn't grow with the number of groups.
+     */
+    void executeGroups(CompletableFuture<Void> done) {
+      List<Integer> group;
+      while ((group = groups.poll()) != null) {
+        CompletableFuture<ResultSet> execution;
+        try {
+          execution = execute(group);
+        } catch (Exception e) {
+          execution = new CompletableFuture<>();
+          execution.completeExceptionally(e);
+        }
+
+        List<Integer> executed = group;
+        CompletableFuture<Void> recorded =
+            execution.handle(
+                (rs, e) -> {
+                  recordResults(executed, rs, e);
+                  return null;
+                });
+        if (!recorded.isDone()) {
+          recorded.whenComplete(
+              (v, e) -> {
+                if (e != null) {
+                  done.completeExceptionally(e);
+                } else {
+                  executeGroups(done);
+                }
+              });
+          return;
+        }
+        if (recorded.isCompletedExceptionally()) {
+          recorded.whenComplete((v, e) -> done.completeExceptionally(e));
+          return;
+        }
+      }
+      done.complete(null);
+    }
+
+    private CompletableFuture<ResultSet> execute(List<Integer> group) {
+      List<CompletableFuture<PreparedStatement>> statements = new ArrayList<>(group.size());
+      for (int index : group) {
+        statements.add(prepared.computeIfAbsent(rows.get(index).query, dataStore::prepare));
+      }
+      return CompletableFuture.allOf(statements.toArray(new CompletableFuture<?>[0]))
+          .thenCompose(
+              v -> {
+                List<PreparedStatement.Bound> bound = new ArrayList<>(group.size());
+                for (int i = 0; i < group.size(); i++) {
+                  bound.add(statements.get(i).join().bind(rows.get(group.get(i)).values));
+                }
+                return bound.size() == 1
+                    ? bound.get(0).execute()
+                    : dataStore.batch(bound, BatchType.UNLOGGED, p -> p);
+              });
+    }
+
+    private void recordResults(List<Integer> group, ResultSet rs, Throwable e) {
+      boolean applied = e == null && isApplied(rs);
+      Throwable cause =
+          (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+      for (int index : group) {
+        results.set(index, toResult(applied, values.get(index)));
+        if (cause != null) {
+          errors.add(
+              GraphqlErrorBuilder.newError(environment)
+                  .message("Failed to %s row %d: %s", operationName(), index, cause.getMessage())
+                  .build());
+        }
+      }
+    }
+  }
+
+  /**
+   * Groups the indexes of the rows to write by partition key, splitting groups that exceed the
+   * maximum batch size. Conditional mutations are never grouped.
+   */
+  private List<List<Integer>> group(List<Map<String, Object>> values, boolean conditional) {
+    List<List<Integer>> groups = new ArrayList<>();
+    if (conditional) {
+      for (int i = 0; i < values.size(); i++) {
+        groups.add(Collections.singletonList(i));
+      }
+      return groups;
+    }
+
+    Map<List<String>, List<Integer>> byPartition = new LinkedHashMap<>();
+    for (int i = 0; i < values.size(); i++) {
+      Map<String, Object> value = values.get(i);
+      List<String> partitionKey = new ArrayList<>();
+      for (Column column : table.partitionKeyColumns()) {
+        Object columnValue = value.get(nameMapping.getGraphqlName(table, column));
+        if (columnValue == null) {
+          partitionKey.add(null);
+        } else {
+          StringBuilder term = new StringBuilder();
+          toCqlTerm(column, columnValue).appendTo(term);
+          partitionKey.add(term.toString());
+        }
+      }
+      byPartition.computeIfAbsent(partitionKey, k -> new ArrayList<>()).add(i);
+    }
+    for (List<Integer> partition : byPartition.values()) {
+      for (int start = 0; start < partition.size(); start += Math.max(BATCH_SIZE, 1)) {
+        groups.add(
+            partition.subList(start, Math.min(start + Math.max(BATCH_SIZE, 1), partition.size())));
+      }
+    }
+    return groups;
+  }
+
+  private static boolean isApplied(ResultSet resultSet) {
+    List<Row> rows = resultSet.currentPageRows();
+    if (rows == null || rows.isEmpty()) {
+      return true;
+    }
+    Row row = rows.get(0);
+    for (Column column : row.columns()) {
+      if (APPLIED_COLUMN.equals(column.name())) {
+        return row.getBoolean(APPLIED_COLUMN);
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, Object> toResult(boolean applied, Map<String, Object> value) {
+    return ImmutableMap.of("applied", applied, "value", value);
+  }
+}
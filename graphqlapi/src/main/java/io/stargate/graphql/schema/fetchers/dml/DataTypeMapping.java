@@ -28,9 +28,12 @@ import io.stargate.db.schema.UserDefinedType;
 import io.stargate.graphql.schema.NameMapping;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /** Provides the logic for adapting values from graphql to DB and vice versa. */
 class DataTypeMapping {
@@ -45,6 +48,74 @@ class DataTypeMapping {
     return QueryBuilder.raw(raw.toString());
   }
 
+  /**
+   * Converts a value coming from the GraphQL runtime into an object that can be bound to a prepared
+   * statement for the given type.
+   */
+  static Object toDBValue(Column.ColumnType type, Object value, NameMapping nameMapping) {
+    if (value == null) {
+      return null;
+    }
+    if (type.isCollection()) {
+      if (type.rawType() == Column.Type.List) {
+        return toDBElements(type.parameters().get(0), (Collection<?>) value, nameMapping)
+            .collect(Collectors.toList());
+      } else if (type.rawType() == Column.Type.Set) {
+        return toDBElements(type.parameters().get(0), (Collection<?>) value, nameMapping)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+      } else if (type.rawType() == Column.Type.Map) {
+        @SuppressWarnings("unchecked")
+        Collection<Map<String, Object>> entries = (Collection<Map<String, Object>>) value;
+        Column.ColumnType keyType = type.parameters().get(0);
+        Column.ColumnType valueType = type.parameters().get(1);
+        Map<Object, Object> map = new LinkedHashMap<>(entries.size());
+        for (Map<String, Object> entry : entries) {
+          map.put(
+              toDBValue(keyType, entry.get("key"), nameMapping),
+              toDBValue(valueType, entry.get("value"), nameMapping));
+        }
+        return map;
+      } else {
+        throw new AssertionError("Invalid collection type " + type);
+      }
+    } else if (type.isUserDefined()) {
+      UserDefinedType udt = (UserDefinedType) type.frozen(false);
+      UdtValue udtValue = udt.create();
+      @SuppressWarnings("unchecked")
+      Map<String, Object> object = (Map<String, Object>) value;
+      for (Map.Entry<String, Object> entry : object.entrySet()) {
+        String fieldName = nameMapping.getCqlName(udt, entry.getKey());
+        Column.ColumnType fieldType = udt.fieldType(fieldName);
+        Object fieldValue = toDBValue(fieldType, entry.getValue(), nameMapping);
+        try {
+          fieldValue = fieldType.validate(fieldValue, fieldName);
+        } catch (Column.ValidationException e) {
+          throw udt.validationException(e);
+        }
+        @SuppressWarnings("unchecked")
+        TypeCodec<Object> codec = fieldType.codec();
+        udtValue = udtValue.set(CqlIdentifier.fromInternal(fieldName), fieldValue, codec);
+      }
+      return udtValue;
+    } else if (type.isTuple()) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> mapValue = (Map<String, Object>) value;
+      List<Column.ColumnType> subTypes = type.parameters();
+      Object[] items = new Object[subTypes.size()];
+      for (int i = 0; i < subTypes.size(); i++) {
+        items[i] = toDBValue(subTypes.get(i), mapValue.get("item" + i), nameMapping);
+      }
+      return type.create(items);
+    } else { // primitive
+      return value;
+    }
+  }
+
+  private static Stream<Object> toDBElements(
+      Column.ColumnType elementType, Collection<?> elements, NameMapping nameMapping) {
+    return elements.stream().map(e -> toDBValue(elementType, e, nameMapping));
+  }
+
   private static void format(
       Column.ColumnType type, Object value, NameMapping nameMapping, StringBuilder out) {
     if (type.isCollection()) {
@@ -1,9 +1,15 @@
 package io.stargate.graphql.schema.fetchers.dml;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.condition.Condition;
+import com.datastax.oss.driver.api.querybuilder.insert.Insert;
 import com.datastax.oss.driver.api.querybuilder.relation.Relation;
 import com.datastax.oss.driver.api.querybuilder.term.Term;
+import com.datastax.oss.driver.api.querybuilder.update.Assignment;
+import com.datastax.oss.driver.api.querybuilder.update.Update;
+import com.datastax.oss.driver.api.querybuilder.update.UpdateStart;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import graphql.schema.DataFetchingEnvironment;
 import io.stargate.auth.AuthenticationService;
@@ -13,8 +19,12 @@ import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.NameMapping;
 import io.stargate.graphql.schema.fetchers.CassandraFetcher;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 public abstract class DmlFetcher<ResultT> extends CassandraFetcher<ResultT> {
 
@@ -35,6 +45,10 @@ public abstract class DmlFetcher<ResultT> extends CassandraFetcher<ResultT> {
     this.tableId = CqlIdentifier.fromInternal(this.table.name());
   }
 
+  public Table getTable() {
+    return table;
+  }
+
   protected List<Condition> buildIfConditions(
       Table table, Map<String, Map<String, Object>> columnList) {
     if (columnList == null) {
@@ -88,6 +102,146 @@ public abstract class DmlFetcher<ResultT> extends CassandraFetcher<ResultT> {
     }
   }
 
+  /**
+   * Whether the given field arguments restrict every partition key column with an equality or
+   * {@code IN} relation, in other words whether the resulting query targets a known set of
+   * partitions instead of scanning the table.
+   */
+  public boolean restrictsPartitionKey(Map<String, Object> arguments) {
+    Set<String> restricted = new HashSet<>();
+    Object value = arguments.get("value");
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (entry.getValue() != null) {
+          restricted.add((String) entry.getKey());
+        }
+      }
+    }
+    Object filter = arguments.get("filter");
+    if (filter instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) filter).entrySet()) {
+        Object operators = entry.getValue();
+        if (operators instanceof Map
+            && (((Map<?, ?>) operators).get(FilterOperator.EQUAL.getFieldName()) != null
+                || ((Map<?, ?>) operators).get(FilterOperator.IN.getFieldName()) != null)) {
+          restricted.add((String) entry.getKey());
+        }
+      }
+    }
+    for (Column column : table.partitionKeyColumns()) {
+      if (!restricted.contains(nameMapping.getGraphqlName(table, column))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds an INSERT statement for the given row, honoring the {@code ifNotExists} and {@code
+   * options.ttl} arguments of the field.
+   */
+  protected String buildInsert(Map<String, Object> value, DataFetchingEnvironment environment) {
+    return buildInsert(value, environment, this::toCqlTerm);
+  }
+
+  /**
+   * Same as {@link #buildInsert(Map, DataFetchingEnvironment)}, but the column values are turned
+   * into terms by {@code toTerm}, in the order of the statement.
+   */
+  protected String buildInsert(
+      Map<String, Object> value,
+      DataFetchingEnvironment environment,
+      BiFunction<Column, Object, Term> toTerm) {
+    Preconditions.checkNotNull(value, "Insert statement must contain at least one field");
+
+    Map<CqlIdentifier, Term> insertMap = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry : value.entrySet()) {
+      Column column = getColumn(table, entry.getKey());
+      insertMap.put(
+          CqlIdentifier.fromInternal(column.name()), toTerm.apply(column, entry.getValue()));
+    }
+    Insert insert = QueryBuilder.insertInto(keyspaceId, tableId).valuesByIds(insertMap);
+
+    if (environment.containsArgument("ifNotExists")
+        && environment.getArgument("ifNotExists") != null
+        && (Boolean) environment.getArgument("ifNotExists")) {
+      insert = insert.ifNotExists();
+    }
+    if (environment.containsArgument("options") && environment.getArgument("options") != null) {
+      Map<String, Object> options = environment.getArgument("options");
+      if (options.containsKey("ttl") && options.get("ttl") != null) {
+        insert = insert.usingTtl((Integer) options.get("ttl"));
+      }
+    }
+
+    return insert.asCql();
+  }
+
+  /**
+   * Builds an UPDATE statement for the given row: the primary key columns select the row and the
+   * other columns are assigned. Honors the {@code ifExists}, {@code ifCondition} and {@code
+   * options.ttl} arguments of the field.
+   */
+  protected String buildUpdate(Map<String, Object> value, DataFetchingEnvironment environment) {
+    return buildUpdate(value, environment, this::toCqlTerm);
+  }
+
+  /**
+   * Same as {@link #buildUpdate(Map, DataFetchingEnvironment)}, but the column values are turned
+   * into terms by {@code toTerm}, in the order of the statement.
+   */
+  protected String buildUpdate(
+      Map<String, Object> value,
+      DataFetchingEnvironment environment,
+      BiFunction<Column, Object, Term> toTerm) {
+    UpdateStart updateStart = QueryBuilder.update(keyspaceId, tableId);
+
+    if (environment.containsArgument("options") && environment.getArgument("options") != null) {
+      Map<String, Object> options = environment.getArgument("options");
+      if (options.containsKey("ttl") && options.get("ttl") != null) {
+        updateStart = updateStart.usingTtl((Integer) options.get("ttl"));
+      }
+    }
+
+    List<Assignment> assignments = new ArrayList<>();
+    List<Relation> relations = new ArrayList<>();
+    for (Map.Entry<String, Object> entry : value.entrySet()) {
+      Column column = getColumn(table, entry.getKey());
+      if (!isPrimaryKey(column)) {
+        assignments.add(
+            Assignment.setColumn(
+                CqlIdentifier.fromInternal(column.name()), toTerm.apply(column, entry.getValue())));
+      }
+    }
+    for (Map.Entry<String, Object> entry : value.entrySet()) {
+      Column column = getColumn(table, entry.getKey());
+      if (isPrimaryKey(column)) {
+        relations.add(
+            Relation.column(CqlIdentifier.fromInternal(column.name()))
+                .isEqualTo(toTerm.apply(column, entry.getValue())));
+      }
+    }
+
+    Update update =
+        updateStart
+            .set(assignments)
+            .where(relations)
+            .if_(buildIfConditions(table, environment.getArgument("ifCondition")));
+
+    if (environment.containsArgument("ifExists")
+        && environment.getArgument("ifExists") != null
+        && (Boolean) environment.getArgument("ifExists")) {
+      update = update.ifExists();
+    }
+
+    return update.asCql();
+  }
+
+  private boolean isPrimaryKey(Column column) {
+    return table.partitionKeyColumns().contains(column)
+        || table.clusteringKeyColumns().contains(column);
+  }
+
   protected CqlIdentifier getDBColumnName(Table table, String fieldName) {
     Column column = getColumn(table, fieldName);
     if (column == null) {
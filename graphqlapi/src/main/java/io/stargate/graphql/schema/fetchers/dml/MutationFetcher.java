@@ -27,6 +27,8 @@ import io.stargate.db.datastore.DataStore;
 import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.NameMapping;
 import io.stargate.graphql.web.HttpAwareContext;
+import io.stargate.graphql.web.OperationTimings;
+import io.stargate.graphql.web.OperationTimings.Phase;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -43,6 +45,7 @@ public abstract class MutationFetcher extends DmlFetcher<CompletableFuture<Map<S
   @Override
   protected CompletableFuture<Map<String, Object>> get(
       DataFetchingEnvironment environment, DataStore dataStore) {
+    long start = System.nanoTime();
     String statement = null;
     Exception buildException = null;
 
@@ -55,13 +58,15 @@ public abstract class MutationFetcher extends DmlFetcher<CompletableFuture<Map<S
     } catch (Exception e) {
       buildException = e;
     }
+    long buildEnd = OperationTimings.record(environment, Phase.BUILD, start);
 
     OperationDefinition operation = environment.getOperationDefinition();
 
     if (operation.getDirectives().stream().anyMatch(d -> d.getName().equals(ATOMIC_DIRECTIVE))
         && operation.getSelectionSet().getSelections().size() > 1) {
       // There are more than one mutation in @atomic operation
-      return executeAsBatch(environment, dataStore, statement, buildException);
+      return executeAsBatch(environment, dataStore, statement, buildException)
+          .whenComplete((r, e) -> OperationTimings.record(environment, Phase.EXECUTE, buildEnd));
     }
 
     if (buildException != null) {
@@ -73,6 +78,7 @@ public abstract class MutationFetcher extends DmlFetcher<CompletableFuture<Map<S
     // Execute as a single statement
     return dataStore
         .query(statement)
+        .whenComplete((r, e) -> OperationTimings.record(environment, Phase.EXECUTE, buildEnd))
         .thenApply(rs -> ImmutableMap.of("value", environment.getArgument("value")));
   }
 
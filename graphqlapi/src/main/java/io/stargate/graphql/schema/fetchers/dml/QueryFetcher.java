@@ -29,6 +29,8 @@ import io.stargate.db.datastore.DataStore;
 import io.stargate.db.datastore.ResultSet;
 import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.NameMapping;
+import io.stargate.graphql.web.OperationTimings;
+import io.stargate.graphql.web.OperationTimings.Phase;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -52,9 +54,12 @@ public class QueryFetcher extends DmlFetcher<Map<String, Object>> {
   @Override
   protected Map<String, Object> get(DataFetchingEnvironment environment, DataStore dataStore)
       throws Exception {
+    long start = System.nanoTime();
     String statement = buildQuery(environment);
+    start = OperationTimings.record(environment, Phase.BUILD, start);
     CompletableFuture<ResultSet> rs = dataStore.query(statement);
     ResultSet resultSet = rs.get();
+    start = OperationTimings.record(environment, Phase.EXECUTE, start);
 
     Map<String, Object> result = new HashMap<>();
     result.put(
@@ -68,6 +73,7 @@ public class QueryFetcher extends DmlFetcher<Map<String, Object>> {
       result.put("pageState", Base64.getEncoder().encodeToString(pageState.array()));
     }
 
+    OperationTimings.record(environment, Phase.MAP, start);
     return result;
   }
 
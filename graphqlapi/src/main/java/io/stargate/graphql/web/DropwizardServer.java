@@ -71,7 +71,8 @@ public class DropwizardServer extends Application<Configuration> {
   @Override
   public void run(final Configuration config, final Environment environment) {
 
-    GraphqlCache graphqlCache = new GraphqlCache(persistence, authenticationService);
+    GraphqlCache graphqlCache =
+        new GraphqlCache(persistence, authenticationService, environment.metrics());
     environment
         .jersey()
         .register(
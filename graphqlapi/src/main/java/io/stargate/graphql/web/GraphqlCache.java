@@ -15,8 +15,12 @@
  */
 package io.stargate.graphql.web;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
 import graphql.GraphQL;
 import graphql.execution.AsyncExecutionStrategy;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
 import graphql.schema.GraphQLSchema;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.db.EventListener;
@@ -48,19 +52,32 @@ public class GraphqlCache implements EventListener {
 
   private final Persistence persistence;
   private final AuthenticationService authenticationService;
+  private final Instrumentation dmlInstrumentation;
 
   private final GraphQL ddlGraphql;
   private final String defaultKeyspace;
   private final ConcurrentMap<String, DmlGraphqlReference> dmlGraphqls;
 
-  GraphqlCache(Persistence persistence, AuthenticationService authenticationService) {
+  GraphqlCache(
+      Persistence persistence,
+      AuthenticationService authenticationService,
+      MetricRegistry metricRegistry) {
     this.persistence = persistence;
     this.authenticationService = authenticationService;
-
-    this.ddlGraphql = newGraphql(SchemaFactory.newDdlSchema(persistence, authenticationService));
+    LatencyInstrumentation latencyInstrumentation = new LatencyInstrumentation(metricRegistry);
+    this.dmlInstrumentation =
+        new ChainedInstrumentation(
+            ImmutableList.of(
+                latencyInstrumentation,
+                new QueryCostInstrumentation(authenticationService, metricRegistry)));
+
+    this.ddlGraphql =
+        newGraphql(
+            SchemaFactory.newDdlSchema(persistence, authenticationService), latencyInstrumentation);
     DataStore dataStore = DataStore.create(persistence);
     this.defaultKeyspace = findDefaultKeyspace(dataStore);
-    this.dmlGraphqls = initDmlGraphqls(persistence, dataStore, authenticationService);
+    this.dmlGraphqls =
+        initDmlGraphqls(persistence, dataStore, authenticationService, dmlInstrumentation);
 
     persistence.registerEventListener(this);
   }
@@ -116,13 +133,18 @@ public class GraphqlCache implements EventListener {
   }
 
   private static ConcurrentMap<String, DmlGraphqlReference> initDmlGraphqls(
-      Persistence persistence, DataStore dataStore, AuthenticationService authenticationService) {
+      Persistence persistence,
+      DataStore dataStore,
+      AuthenticationService authenticationService,
+      Instrumentation instrumentation) {
     ConcurrentMap<String, DmlGraphqlReference> map = new ConcurrentHashMap<>();
 
     for (Keyspace keyspace : dataStore.schema().keyspaces()) {
       String keyspaceName = keyspace.name();
       LOG.debug("Prepare GraphQL schema for {}", keyspaceName);
-      map.put(keyspaceName, new DmlGraphqlReference(keyspace, persistence, authenticationService));
+      map.put(
+          keyspaceName,
+          new DmlGraphqlReference(keyspace, persistence, authenticationService, instrumentation));
     }
     return map;
   }
@@ -144,7 +166,9 @@ public class GraphqlCache implements EventListener {
         dmlGraphqls.remove(keyspaceName);
       } else {
         dmlGraphqls.put(
-            keyspaceName, new DmlGraphqlReference(keyspace, persistence, authenticationService));
+            keyspaceName,
+            new DmlGraphqlReference(
+                keyspace, persistence, authenticationService, dmlInstrumentation));
       }
       LOG.debug("Done refreshing GraphQL schema for keyspace {}", keyspaceName);
     } catch (Exception e) {
@@ -254,14 +278,19 @@ public class GraphqlCache implements EventListener {
     private final Keyspace keyspace;
     private final Persistence persistence;
     private final AuthenticationService authenticationService;
+    private final Instrumentation instrumentation;
 
     private volatile GraphQL graphql;
 
     DmlGraphqlReference(
-        Keyspace keyspace, Persistence persistence, AuthenticationService authenticationService) {
+        Keyspace keyspace,
+        Persistence persistence,
+        AuthenticationService authenticationService,
+        Instrumentation instrumentation) {
       this.keyspace = keyspace;
       this.persistence = persistence;
       this.authenticationService = authenticationService;
+      this.instrumentation = instrumentation;
     }
 
     GraphQL get() {
@@ -273,17 +302,20 @@ public class GraphqlCache implements EventListener {
       synchronized (this) {
         if (graphql == null) {
           graphql =
-              newGraphql(SchemaFactory.newDmlSchema(persistence, authenticationService, keyspace));
+              newGraphql(
+                  SchemaFactory.newDmlSchema(persistence, authenticationService, keyspace),
+                  instrumentation);
         }
         return graphql;
       }
     }
   }
 
-  private static GraphQL newGraphql(GraphQLSchema schema) {
+  private static GraphQL newGraphql(GraphQLSchema schema, Instrumentation instrumentation) {
     return GraphQL.newGraphQL(schema)
         // Use parallel execution strategy for mutations (serial is default)
         .mutationExecutionStrategy(new AsyncExecutionStrategy())
+        .instrumentation(instrumentation)
         .build();
   }
 }
@@ -15,9 +15,13 @@
  */
 package io.stargate.graphql.web;
 
+import io.stargate.auth.AuthenticationService;
+import io.stargate.auth.StoredCredentials;
+import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.db.datastore.ResultSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -36,6 +40,11 @@ public class HttpAwareContext {
   // For more information.
   private final BatchContext batchContext = new BatchContext();
 
+  private final OperationTimings timings = new OperationTimings();
+
+  // Resolved from the token on first use, so that the operation validates it only once
+  private volatile StoredCredentials storedCredentials;
+
   public HttpAwareContext(HttpServletRequest request) {
     this.request = request;
   }
@@ -44,16 +53,35 @@ public class HttpAwareContext {
     return request.getHeader("X-Cassandra-Token");
   }
 
+  /**
+   * Returns the credentials for the token of this request. The token is validated on the first call
+   * only, later calls for the same operation reuse the result.
+   */
+  public StoredCredentials getStoredCredentials(AuthenticationService authenticationService)
+      throws UnauthorizedException {
+    StoredCredentials credentials = storedCredentials;
+    if (credentials == null) {
+      credentials = authenticationService.validateToken(getAuthToken());
+      storedCredentials = credentials;
+    }
+    return credentials;
+  }
+
   public BatchContext getBatchContext() {
     return batchContext;
   }
 
+  public OperationTimings getTimings() {
+    return timings;
+  }
+
   /**
    * Encapsulates logic to add multiple statements contained in the same operation that need to be
    * executed in a batch.
    */
   public static class BatchContext {
     private final List<String> statements = new ArrayList<>();
+    private int selections;
     private final CompletableFuture<ResultSet> executionFuture = new CompletableFuture<>();
     private AtomicReference<DataStore> dataStore = new AtomicReference<>();
 
@@ -80,9 +108,18 @@ public class HttpAwareContext {
       executionFuture.completeExceptionally(ex);
     }
 
-    public synchronized int add(String query) {
-      statements.add(query);
-      return statements.size();
+    /** Adds the statement of a selection and returns the number of selections added so far. */
+    public int add(String query) {
+      return add(Collections.singletonList(query));
+    }
+
+    /**
+     * Adds all the statements of a selection (bulk mutations produce more than one) and returns the
+     * number of selections added so far.
+     */
+    public synchronized int add(List<String> queries) {
+      statements.addAll(queries);
+      return ++selections;
     }
 
     /** Sets the data store and returns whether it was already set */
@@ -0,0 +1,282 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.graphql.web;
+
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.whenCompleted;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import graphql.ExecutionResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.validation.ValidationError;
+import io.stargate.db.schema.Table;
+import io.stargate.graphql.schema.fetchers.dml.BulkInsertMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.BulkUpdateMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.DeleteMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.DmlFetcher;
+import io.stargate.graphql.schema.fetchers.dml.InsertMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.QueryFetcher;
+import io.stargate.graphql.schema.fetchers.dml.UpdateMutationFetcher;
+import io.stargate.graphql.web.OperationTimings.Phase;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records where the time of each GraphQL operation goes.
+ *
+ * <p>The following timers are registered:
+ *
+ * <ul>
+ *   <li>{@code latency.operations}, {@code latency.parse}, {@code latency.validation} and {@code
+ *       latency.execution} for the operation as a whole and each GraphQL phase;
+ *   <li>{@code latency.<keyspace>.<table>.<operation type>} for the root fields of DML operations,
+ *       and {@code latency.ddl.<field name>} for the ones of DDL operations;
+ *   <li>{@code latency.fetch.auth|build|execute|map} for the phases of root field fetches (see
+ *       {@link Phase}).
+ * </ul>
+ *
+ * Operations that take longer than {@code stargate.graphql.slow_operation_threshold_ms} (1 second
+ * by default, 0 to disable) are logged with their timing breakdown.
+ */
+public class LatencyInstrumentation extends SimpleInstrumentation {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LatencyInstrumentation.class);
+
+  private static final long SLOW_OPERATION_THRESHOLD_MS =
+      Long.getLong("stargate.graphql.slow_operation_threshold_ms", 1000);
+
+  private final MetricRegistry metricRegistry;
+  private final long slowThresholdNanos;
+
+  private final Timer operations;
+  private final Timer parse;
+  private final Timer validation;
+  private final Timer execution;
+  private final Timer[] fetchPhases;
+
+  LatencyInstrumentation(MetricRegistry metricRegistry) {
+    this(metricRegistry, SLOW_OPERATION_THRESHOLD_MS);
+  }
+
+  @VisibleForTesting
+  LatencyInstrumentation(MetricRegistry metricRegistry, long slowThresholdMs) {
+    this.metricRegistry = metricRegistry;
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    this.operations = metricRegistry.timer(MetricRegistry.name("latency", "operations"));
+    this.parse = metricRegistry.timer(MetricRegistry.name("latency", "parse"));
+    this.validation = metricRegistry.timer(MetricRegistry.name("latency", "validation"));
+    this.execution = metricRegistry.timer(MetricRegistry.name("latency", "execution"));
+    this.fetchPhases = new Timer[Phase.values().length];
+    for (Phase phase : Phase.values()) {
+      fetchPhases[phase.ordinal()] =
+          metricRegistry.timer(MetricRegistry.name("latency", "fetch", phase.name().toLowerCase()));
+    }
+  }
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    Object context = parameters.getExecutionInput().getContext();
+    OperationTimings timings =
+        context instanceof HttpAwareContext ? ((HttpAwareContext) context).getTimings() : null;
+    // Share the instance with the fetchers if possible, so that they can report their phases
+    return new State(timings == null ? new OperationTimings() : timings);
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecution(
+      InstrumentationExecutionParameters parameters) {
+    State state = parameters.getInstrumentationState();
+    long start = System.nanoTime();
+    return whenCompleted(
+        (result, throwable) -> {
+          long elapsed = System.nanoTime() - start;
+          operations.update(elapsed, TimeUnit.NANOSECONDS);
+          recordFetchPhases(state);
+          if (slowThresholdNanos > 0 && elapsed > slowThresholdNanos) {
+            LOG.warn("Slow GraphQL operation: {}", describe(state, elapsed));
+          }
+        });
+  }
+
+  @Override
+  public InstrumentationContext<Document> beginParse(
+      InstrumentationExecutionParameters parameters) {
+    State state = parameters.getInstrumentationState();
+    long start = System.nanoTime();
+    return whenCompleted(
+        (document, throwable) -> {
+          state.timings.parseNanos = System.nanoTime() - start;
+          parse.update(state.timings.parseNanos, TimeUnit.NANOSECONDS);
+        });
+  }
+
+  @Override
+  public InstrumentationContext<List<ValidationError>> beginValidation(
+      InstrumentationValidationParameters parameters) {
+    State state = parameters.getInstrumentationState();
+    long start = System.nanoTime();
+    return whenCompleted(
+        (errors, throwable) -> {
+          state.timings.validationNanos = System.nanoTime() - start;
+          validation.update(state.timings.validationNanos, TimeUnit.NANOSECONDS);
+        });
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+      InstrumentationExecuteOperationParameters parameters) {
+    State state = parameters.getInstrumentationState();
+    long start = System.nanoTime();
+    return whenCompleted(
+        (result, throwable) -> {
+          state.timings.executionNanos = System.nanoTime() - start;
+          execution.update(state.timings.executionNanos, TimeUnit.NANOSECONDS);
+        });
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(
+      InstrumentationFieldFetchParameters parameters) {
+    ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+    // Only root fields map to CQL operations
+    if (stepInfo.getPath().getLevel() != 1
+        || !(stepInfo.getParent().getType() instanceof GraphQLFieldsContainer)) {
+      return super.beginFieldFetch(parameters);
+    }
+    State state = parameters.getInstrumentationState();
+    DataFetcher<?> fetcher =
+        parameters
+            .getExecutionContext()
+            .getGraphQLSchema()
+            .getCodeRegistry()
+            .getDataFetcher(
+                (GraphQLFieldsContainer) stepInfo.getParent().getType(), parameters.getField());
+    String label = label(fetcher, parameters.getField().getName());
+    String path = stepInfo.getPath().toString();
+    Timer timer = metricRegistry.timer(MetricRegistry.name("latency", label));
+
+    long start = System.nanoTime();
+    return whenCompleted(
+        (result, throwable) -> {
+          long elapsed = System.nanoTime() - start;
+          timer.update(elapsed, TimeUnit.NANOSECONDS);
+          state.fields.put(path, String.format("%s (%s) took %s", path, label, millis(elapsed)));
+        });
+  }
+
+  private void recordFetchPhases(State state) {
+    for (AtomicLongArray phases : state.timings.fields().values()) {
+      for (Phase phase : Phase.values()) {
+        long nanos = phases.get(phase.ordinal());
+        if (nanos > 0) {
+          fetchPhases[phase.ordinal()].update(nanos, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+  }
+
+  private static String label(DataFetcher<?> fetcher, String fieldName) {
+    if (fetcher instanceof DmlFetcher) {
+      Table table = ((DmlFetcher<?>) fetcher).getTable();
+      return MetricRegistry.name(table.keyspace(), table.name(), operationType(fetcher));
+    }
+    return MetricRegistry.name("ddl", fieldName);
+  }
+
+  private static String operationType(DataFetcher<?> fetcher) {
+    if (fetcher instanceof QueryFetcher) {
+      return "select";
+    } else if (fetcher instanceof InsertMutationFetcher) {
+      return "insert";
+    } else if (fetcher instanceof BulkInsertMutationFetcher) {
+      return "bulk_insert";
+    } else if (fetcher instanceof UpdateMutationFetcher) {
+      return "update";
+    } else if (fetcher instanceof BulkUpdateMutationFetcher) {
+      return "bulk_update";
+    } else if (fetcher instanceof DeleteMutationFetcher) {
+      return "delete";
+    } else {
+      return "other";
+    }
+  }
+
+  @VisibleForTesting
+  static String describe(State state, long elapsedNanos) {
+    OperationTimings timings = state.timings;
+    StringBuilder builder =
+        new StringBuilder()
+            .append("total=")
+            .append(millis(elapsedNanos))
+            .append(", parse=")
+            .append(millis(timings.parseNanos))
+            .append(", validation=")
+            .append(millis(timings.validationNanos))
+            .append(", execution=")
+            .append(millis(timings.executionNanos));
+    for (Map.Entry<String, String> field : state.fields.entrySet()) {
+      builder.append("; ").append(field.getValue());
+      AtomicLongArray phases = timings.fields().get(field.getKey());
+      if (phases != null) {
+        builder.append(" [");
+        for (Phase phase : Phase.values()) {
+          if (phase.ordinal() > 0) {
+            builder.append(", ");
+          }
+          builder
+              .append(phase.name().toLowerCase())
+              .append('=')
+              .append(millis(phases.get(phase.ordinal())));
+        }
+        builder.append(']');
+      }
+    }
+    return builder.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.1fms", nanos / 1_000_000.0);
+  }
+
+  @VisibleForTesting
+  static class State implements InstrumentationState {
+    final OperationTimings timings;
+    // The description of each root field fetch, by path
+    final ConcurrentMap<String, String> fields = new ConcurrentHashMap<>();
+
+    State(OperationTimings timings) {
+      this.timings = timings;
+    }
+  }
+}
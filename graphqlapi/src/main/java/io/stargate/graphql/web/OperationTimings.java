@@ -0,0 +1,81 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.graphql.web;
+
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The timing breakdown of a single GraphQL operation.
+ *
+ * <p>The GraphQL phases are filled by {@link LatencyInstrumentation}, and the fetchers report how
+ * the time of each root field splits between the {@linkplain Phase fetch phases}.
+ */
+public class OperationTimings implements InstrumentationState {
+
+  /** The phases of a root field fetch. */
+  public enum Phase {
+    /** Token validation and data store creation. */
+    AUTH,
+    /** Building the CQL statements. */
+    BUILD,
+    /** Waiting for the statements to execute. */
+    EXECUTE,
+    /** Converting the CQL rows to GraphQL values. */
+    MAP,
+  }
+
+  volatile long parseNanos;
+  volatile long validationNanos;
+  volatile long executionNanos;
+
+  private final ConcurrentMap<String, AtomicLongArray> fields = new ConcurrentHashMap<>();
+
+  /**
+   * Records the time spent in a phase of the field that is being fetched.
+   *
+   * @param startNanos the value of {@link System#nanoTime()} when the phase started.
+   * @return the value of {@link System#nanoTime()} when the phase ended, which can be used as the
+   *     start of the next phase.
+   */
+  public static long record(DataFetchingEnvironment environment, Phase phase, long startNanos) {
+    long now = System.nanoTime();
+    Object context = environment.getContext();
+    if (context instanceof HttpAwareContext) {
+      OperationTimings timings = ((HttpAwareContext) context).getTimings();
+      if (timings != null) {
+        timings.add(
+            environment.getExecutionStepInfo().getPath().toString(), phase, now - startNanos);
+      }
+    }
+    return now;
+  }
+
+  void add(String path, Phase phase, long nanos) {
+    fields
+        .computeIfAbsent(path, p -> new AtomicLongArray(Phase.values().length))
+        .addAndGet(phase.ordinal(), nanos);
+  }
+
+  /** The time spent in each fetch phase, indexed by {@link Phase#ordinal()}, per field path. */
+  Map<String, AtomicLongArray> fields() {
+    return fields;
+  }
+}
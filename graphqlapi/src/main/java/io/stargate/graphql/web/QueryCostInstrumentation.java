@@ -0,0 +1,300 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.graphql.web;
+
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.whenCompleted;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.validation.ValidationError;
+import io.stargate.auth.AuthenticationService;
+import io.stargate.auth.UnauthorizedException;
+import io.stargate.graphql.schema.fetchers.CassandraFetcher;
+import io.stargate.graphql.schema.fetchers.dml.BulkMutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.MutationFetcher;
+import io.stargate.graphql.schema.fetchers.dml.QueryFetcher;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates the cost of each DML operation before it executes, and rejects the ones that exceed the
+ * configured limits.
+ *
+ * <p>The cost of an operation is the sum of the costs of its root fields (so every alias counts
+ * separately):
+ *
+ * <ul>
+ *   <li>a query costs the number of rows it can return in a page (the smallest of {@code pageSize}
+ *       and {@code limit}), multiplied by {@link #SCAN_MULTIPLIER} if the filters don't restrict
+ *       the full partition key;
+ *   <li>a mutation costs {@link #MUTATION_COST} per row;
+ *   <li>anything else (introspection, conversion warnings) is free.
+ * </ul>
+ *
+ * Two limits can be enforced, both disabled by default:
+ *
+ * <ul>
+ *   <li>{@code stargate.graphql.max_query_cost}: the maximum cost of a single operation;
+ *   <li>{@code stargate.graphql.cost_budget_per_second}: the cost that each role can consume per
+ *       second. It can be overridden for individual roles with {@code
+ *       stargate.graphql.role_cost_budgets}, a comma-separated list of {@code role:budget} pairs.
+ *       Operations that cost more than a second of their role's budget are always rejected. When a
+ *       role runs out of budget, the operation waits up to {@code
+ *       stargate.graphql.cost_budget_max_wait_ms} for it to replenish, and is rejected otherwise.
+ * </ul>
+ */
+public class QueryCostInstrumentation extends SimpleInstrumentation {
+
+  private static final Logger LOG = LoggerFactory.getLogger(QueryCostInstrumentation.class);
+
+  static final long SCAN_MULTIPLIER = 10;
+  static final long MUTATION_COST = 1;
+
+  private static final long MAX_QUERY_COST = Long.getLong("stargate.graphql.max_query_cost", 0);
+  private static final double COST_BUDGET_PER_SECOND =
+      Double.parseDouble(System.getProperty("stargate.graphql.cost_budget_per_second", "0"));
+  private static final String ROLE_COST_BUDGETS =
+      System.getProperty("stargate.graphql.role_cost_budgets", "");
+  private static final long COST_BUDGET_MAX_WAIT_MS =
+      Long.getLong("stargate.graphql.cost_budget_max_wait_ms", 0);
+
+  private final AuthenticationService authenticationService;
+  private final long maxQueryCost;
+  private final double defaultBudget;
+  private final Map<String, Double> roleBudgets;
+  private final long maxWaitMs;
+  private final LoadingCache<String, RateLimiter> budgets;
+
+  private final Histogram costs;
+  private final Meter rejected;
+  private final Meter throttled;
+
+  QueryCostInstrumentation(
+      AuthenticationService authenticationService, MetricRegistry metricRegistry) {
+    this(
+        authenticationService,
+        metricRegistry,
+        MAX_QUERY_COST,
+        COST_BUDGET_PER_SECOND,
+        parseRoleBudgets(ROLE_COST_BUDGETS),
+        COST_BUDGET_MAX_WAIT_MS);
+  }
+
+  @VisibleForTesting
+  QueryCostInstrumentation(
+      AuthenticationService authenticationService,
+      MetricRegistry metricRegistry,
+      long maxQueryCost,
+      double defaultBudget,
+      Map<String, Double> roleBudgets,
+      long maxWaitMs) {
+    this.authenticationService = authenticationService;
+    this.maxQueryCost = maxQueryCost;
+    this.defaultBudget = defaultBudget;
+    this.roleBudgets = roleBudgets;
+    this.maxWaitMs = maxWaitMs;
+    this.budgets =
+        CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build(
+                new CacheLoader<String, RateLimiter>() {
+                  @Override
+                  public RateLimiter load(String role) {
+                    return RateLimiter.create(roleBudgets.getOrDefault(role, defaultBudget));
+                  }
+                });
+
+    this.costs = metricRegistry.histogram(MetricRegistry.name("cost", "operations"));
+    this.rejected = metricRegistry.meter(MetricRegistry.name("cost", "rejected"));
+    this.throttled = metricRegistry.meter(MetricRegistry.name("cost", "throttled"));
+  }
+
+  @Override
+  public InstrumentationContext<List<ValidationError>> beginValidation(
+      InstrumentationValidationParameters parameters) {
+    return whenCompleted(
+        (errors, throwable) -> {
+          if ((errors != null && !errors.isEmpty()) || throwable != null) {
+            return;
+          }
+          long cost = estimateCost(parameters);
+          costs.update(cost);
+
+          if (maxQueryCost > 0 && cost > maxQueryCost) {
+            rejected.mark();
+            throw new AbortExecutionException(
+                String.format(
+                    "The estimated cost of this operation (%d) exceeds the maximum allowed (%d). "
+                        + "Try reducing page sizes or restricting queries by partition key.",
+                    cost, maxQueryCost));
+          }
+          if (cost > 0) {
+            checkBudget(parameters.getContext(), cost);
+          }
+        });
+  }
+
+  private long estimateCost(InstrumentationValidationParameters parameters) {
+    AtomicLong cost = new AtomicLong();
+    QueryTraverser.newQueryTraverser()
+        .schema(parameters.getSchema())
+        .document(parameters.getDocument())
+        .operationName(parameters.getOperation())
+        .variables(parameters.getVariables())
+        .build()
+        .visitPreOrder(
+            new QueryVisitorStub() {
+              @Override
+              public void visitField(QueryVisitorFieldEnvironment environment) {
+                // Only root fields map to CQL operations
+                if (environment.getParentEnvironment() == null) {
+                  cost.addAndGet(estimateCost(parameters, environment));
+                }
+              }
+            });
+    return cost.get();
+  }
+
+  private long estimateCost(
+      InstrumentationValidationParameters parameters, QueryVisitorFieldEnvironment environment) {
+    if (!(environment.getParentType() instanceof GraphQLFieldsContainer)) {
+      return 0;
+    }
+    DataFetcher<?> fetcher =
+        parameters
+            .getSchema()
+            .getCodeRegistry()
+            .getDataFetcher(
+                (GraphQLFieldsContainer) environment.getParentType(),
+                environment.getFieldDefinition());
+
+    if (fetcher instanceof MutationFetcher) {
+      return MUTATION_COST;
+    }
+    if (fetcher instanceof BulkMutationFetcher) {
+      Object values = environment.getArguments().get("values");
+      return values instanceof List ? MUTATION_COST * ((List<?>) values).size() : MUTATION_COST;
+    }
+    if (fetcher instanceof QueryFetcher) {
+      Map<String, Object> arguments = environment.getArguments();
+      long rows = CassandraFetcher.DEFAULT_PAGE_SIZE;
+      Object options = arguments.get("options");
+      if (options instanceof Map) {
+        Object pageSize = ((Map<?, ?>) options).get("pageSize");
+        if (pageSize instanceof Integer) {
+          rows = (Integer) pageSize;
+        }
+        Object limit = ((Map<?, ?>) options).get("limit");
+        if (limit instanceof Integer) {
+          rows = Math.min(rows, (Integer) limit);
+        }
+      }
+      rows = Math.max(rows, 1);
+      return ((QueryFetcher) fetcher).restrictsPartitionKey(arguments)
+          ? rows
+          : rows * SCAN_MULTIPLIER;
+    }
+    return 0;
+  }
+
+  private void checkBudget(Object context, long cost) {
+    if (defaultBudget <= 0 && roleBudgets.isEmpty()) {
+      return;
+    }
+    if (!(context instanceof HttpAwareContext)) {
+      return;
+    }
+    String role;
+    try {
+      role = ((HttpAwareContext) context).getStoredCredentials(authenticationService).getRoleName();
+    } catch (UnauthorizedException e) {
+      // Let the fetchers report the authentication error
+      return;
+    }
+    if (!roleBudgets.containsKey(role) && defaultBudget <= 0) {
+      return;
+    }
+
+    // The rate limiter charges the next caller for an acquisition, so an operation costing more
+    // than a second of budget would always pass on an idle bucket
+    double perSecond = roleBudgets.getOrDefault(role, defaultBudget);
+    if (cost > perSecond) {
+      rejected.mark();
+      throw new AbortExecutionException(
+          String.format(
+              "The estimated cost of this operation (%d) exceeds the query cost budget per second "
+                  + "of role '%s' (%s)",
+              cost, role, perSecond));
+    }
+
+    RateLimiter budget = budgets.getUnchecked(role);
+    int permits = (int) Math.min(cost, Integer.MAX_VALUE);
+    if (budget.tryAcquire(permits)) {
+      return;
+    }
+    if (maxWaitMs > 0 && budget.tryAcquire(permits, maxWaitMs, TimeUnit.MILLISECONDS)) {
+      throttled.mark();
+      return;
+    }
+    rejected.mark();
+    LOG.debug("Rejecting operation of cost {} for role {}: budget exhausted", cost, role);
+    throw new AbortExecutionException(
+        String.format(
+            "The query cost budget for role '%s' is exhausted, try again later (operation cost: %d)",
+            role, cost));
+  }
+
+  @VisibleForTesting
+  static Map<String, Double> parseRoleBudgets(String spec) {
+    if (Strings.isNullOrEmpty(spec)) {
+      return ImmutableMap.of();
+    }
+    ImmutableMap.Builder<String, Double> builder = ImmutableMap.builder();
+    for (Map.Entry<String, String> entry :
+        Splitter.on(',')
+            .trimResults()
+            .omitEmptyStrings()
+            .withKeyValueSeparator(':')
+            .split(spec)
+            .entrySet()) {
+      builder.put(entry.getKey().trim(), Double.parseDouble(entry.getValue().trim()));
+    }
+    return builder.build();
+  }
+}
@@ -2,6 +2,9 @@ package io.stargate.graphql.schema;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -17,17 +20,26 @@ import graphql.execution.AsyncExecutionStrategy;
 import graphql.schema.GraphQLSchema;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.auth.StoredCredentials;
+import io.stargate.db.BatchType;
+import io.stargate.db.BoundStatement;
 import io.stargate.db.Parameters;
 import io.stargate.db.Persistence;
 import io.stargate.db.datastore.DataStore;
+import io.stargate.db.datastore.PreparedStatement;
 import io.stargate.db.datastore.ResultSet;
 import io.stargate.db.schema.Schema;
 import io.stargate.graphql.web.HttpAwareContext;
 import io.stargate.graphql.web.HttpAwareContext.BatchContext;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -54,6 +66,7 @@ public abstract class GraphQlTestBase {
 
   @Captor protected ArgumentCaptor<String> queryCaptor;
   @Captor protected ArgumentCaptor<List<String>> batchCaptor;
+  @Captor protected ArgumentCaptor<BatchType> batchTypeCaptor;
   @Captor protected ArgumentCaptor<Parameters> parametersCaptor;
 
   private MockedStatic<DataStore> dataStoreCreateMock;
@@ -61,6 +74,11 @@ public abstract class GraphQlTestBase {
   // Stores the parameters of the last batch execution
   protected Parameters batchParameters;
 
+  // The executions of prepared statements: one list per execution, with a single statement or the
+  // statements of a batch, each described as its query followed by its bound values
+  protected final List<List<String>> preparedExecutions = new ArrayList<>();
+  protected final List<String> preparedQueries = new ArrayList<>();
+
   @BeforeEach
   public void setupEnvironment() {
     try {
@@ -86,6 +104,23 @@ public abstract class GraphQlTestBase {
                           return CompletableFuture.completedFuture(mock(ResultSet.class));
                         });
 
+                when(dataStore.prepare(anyString()))
+                    .then(
+                        p -> {
+                          preparedQueries.add(p.getArgument(0));
+                          return CompletableFuture.completedFuture(prepared(p.getArgument(0)));
+                        });
+                when(dataStore.batch(anyList(), batchTypeCaptor.capture(), any()))
+                    .then(
+                        b -> {
+                          List<PreparedStatement.Bound> statements = b.getArgument(0);
+                          preparedExecutions.add(
+                              statements.stream()
+                                  .map(GraphQlTestBase::describe)
+                                  .collect(Collectors.toList()));
+                          return CompletableFuture.completedFuture(resultSet);
+                        });
+
                 Schema schema = createCqlSchema();
                 if (schema != null) {
                   when(dataStore.schema()).thenReturn(schema);
@@ -104,6 +139,47 @@ public abstract class GraphQlTestBase {
             .build();
   }
 
+  private PreparedStatement prepared(String query) {
+    return new PreparedStatement() {
+      @Override
+      public String preparedQueryString() {
+        return query;
+      }
+
+      @Override
+      public Bound bind(Object... values) {
+        PreparedStatement statement = this;
+        return new Bound() {
+          @Override
+          public PreparedStatement preparedStatement() {
+            return statement;
+          }
+
+          @Override
+          public List<Object> values() {
+            return Arrays.asList(values);
+          }
+
+          @Override
+          public CompletableFuture<ResultSet> execute(
+              UnaryOperator<Parameters> parametersModifier) {
+            preparedExecutions.add(Collections.singletonList(describe(this)));
+            return CompletableFuture.completedFuture(resultSet);
+          }
+
+          @Override
+          public BoundStatement toPersistenceStatement(ProtocolVersion protocolVersion) {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  private static String describe(PreparedStatement.Bound bound) {
+    return bound.preparedStatement().preparedQueryString() + " " + bound.values();
+  }
+
   @AfterEach
   public void resetMocks() {
     if (dataStoreCreateMock != null) {
@@ -137,6 +213,11 @@ public abstract class GraphQlTestBase {
 
     when(context.getAuthToken()).thenReturn(token);
     when(context.getBatchContext()).thenReturn(batchContext);
+    try {
+      when(context.getStoredCredentials(authenticationService)).thenCallRealMethod();
+    } catch (Exception e) {
+      fail("Unexpected exception while mocking context", e);
+    }
     return graphQl.execute(ExecutionInput.newExecutionInput(query).context(context).build());
   }
 
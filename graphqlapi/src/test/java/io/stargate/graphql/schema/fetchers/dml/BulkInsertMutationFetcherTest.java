@@ -0,0 +1,102 @@
+package io.stargate.graphql.schema.fetchers.dml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import graphql.ExecutionResult;
+import io.stargate.db.BatchType;
+import io.stargate.db.schema.Keyspace;
+import io.stargate.graphql.schema.DmlTestBase;
+import io.stargate.graphql.schema.SampleKeyspaces;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BulkInsertMutationFetcherTest extends DmlTestBase {
+  @Override
+  public Keyspace getKeyspace() {
+    return SampleKeyspaces.LIBRARY;
+  }
+
+  @Test
+  @DisplayName("Bulk inserts should group rows by partition into unlogged batches")
+  public void bulkInsertGroupsByPartitionTest() {
+    assertResponse(
+        "mutation { bulkInsertbooks(values: ["
+            + "{ title: \"a\", author: \"x\" }, "
+            + "{ title: \"b\" }, "
+            + "{ title: \"a\", author: \"y\" }"
+            + "]) { applied, value { title } } }",
+        "{\"bulkInsertbooks\": ["
+            + "{\"applied\": true, \"value\": {\"title\": \"a\"}},"
+            + "{\"applied\": true, \"value\": {\"title\": \"b\"}},"
+            + "{\"applied\": true, \"value\": {\"title\": \"a\"}}"
+            + "]}");
+
+    assertThat(preparedQueries)
+        .containsExactly(
+            "INSERT INTO library.books (title,author) VALUES (?,?)",
+            "INSERT INTO library.books (title) VALUES (?)");
+    assertThat(preparedExecutions)
+        .containsExactly(
+            Arrays.asList(
+                "INSERT INTO library.books (title,author) VALUES (?,?) [a, x]",
+                "INSERT INTO library.books (title,author) VALUES (?,?) [a, y]"),
+            Collections.singletonList("INSERT INTO library.books (title) VALUES (?) [b]"));
+    assertThat(batchTypeCaptor.getValue()).isEqualTo(BatchType.UNLOGGED);
+  }
+
+  @Test
+  @DisplayName("Conditional bulk inserts should execute each row separately")
+  public void bulkInsertIfNotExistsTest() {
+    ExecutionResult result =
+        executeGraphQl(
+            "mutation { bulkInsertbooks(values: [{ title: \"a\" }, { title: \"a\" }], "
+                + "ifNotExists: true, options: { ttl: 30 }) { applied } }");
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(batchTypeCaptor.getAllValues()).isEmpty();
+    assertThat(preparedExecutions)
+        .containsExactly(
+            Collections.singletonList(
+                "INSERT INTO library.books (title) VALUES (?) IF NOT EXISTS USING TTL 30 [a]"),
+            Collections.singletonList(
+                "INSERT INTO library.books (title) VALUES (?) IF NOT EXISTS USING TTL 30 [a]"));
+  }
+
+  @Test
+  @DisplayName("Atomic bulk inserts should be part of the operation's logged batch")
+  public void bulkInsertAtomicTest() {
+    ExecutionResult result =
+        executeGraphQl(
+            "mutation @atomic { "
+                + "m1: bulkInsertbooks(values: [{ title: \"a\" }, { title: \"b\" }]) { applied },"
+                + "m2: insertauthors(value: { author: \"x\", title: \"a\" }) { applied }"
+                + "}");
+    assertThat(result.getErrors()).isEmpty();
+    assertThat(batchCaptor.getValue())
+        .containsExactlyInAnyOrder(
+            "INSERT INTO library.books (title) VALUES ('a')",
+            "INSERT INTO library.books (title) VALUES ('b')",
+            "INSERT INTO library.authors (author,title) VALUES ('x','a')");
+  }
+
+  @Test
+  @DisplayName("Atomic bulk inserts without values should not execute a batch")
+  public void bulkInsertAtomicEmptyTest() {
+    assertResponse(
+        "mutation @atomic { bulkInsertbooks(values: []) { applied } }",
+        "{\"bulkInsertbooks\": []}");
+    assertThat(batchCaptor.getAllValues()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Bulk inserts should fail if the results of a group can't be recorded")
+  public void bulkInsertResultFailureTest() {
+    when(resultSet.currentPageRows()).thenThrow(new IllegalStateException("Unreadable result"));
+
+    assertError(
+        "mutation { bulkInsertbooks(values: [{ title: \"a\" }, { title: \"b\" }]) { applied } }",
+        "Unreadable result");
+  }
+}
@@ -0,0 +1,59 @@
+package io.stargate.graphql.schema.fetchers.dml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import graphql.ExecutionResult;
+import io.stargate.db.BatchType;
+import io.stargate.db.schema.Keyspace;
+import io.stargate.graphql.schema.DmlTestBase;
+import io.stargate.graphql.schema.SampleKeyspaces;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BulkUpdateMutationFetcherTest extends DmlTestBase {
+  @Override
+  public Keyspace getKeyspace() {
+    return SampleKeyspaces.COLLECTIONS;
+  }
+
+  @Test
+  @DisplayName("Bulk updates should bind each row to a prepared update")
+  public void bulkUpdateTest() {
+    ExecutionResult result =
+        executeGraphQl(
+            "mutation { bulkUpdateRegularSetTable(values: ["
+                + "{ k: 1, s: [1, 2] }, "
+                + "{ k: 1, s: [3] }"
+                + "], options: { ttl: 10 }) { applied } }");
+    assertThat(result.getErrors()).isEmpty();
+
+    assertThat(preparedQueries)
+        .containsExactly("UPDATE collections.\"RegularSetTable\" USING TTL 10 SET s=? WHERE k=?");
+    assertThat(preparedExecutions)
+        .containsExactly(
+            Arrays.asList(
+                "UPDATE collections.\"RegularSetTable\" USING TTL 10 SET s=? WHERE k=? [[1, 2], 1]",
+                "UPDATE collections.\"RegularSetTable\" USING TTL 10 SET s=? WHERE k=? [[3], 1]"));
+    assertThat(batchTypeCaptor.getValue()).isEqualTo(BatchType.UNLOGGED);
+  }
+
+  @Test
+  @DisplayName("Conditional bulk updates should execute each row separately")
+  public void bulkUpdateIfExistsTest() {
+    ExecutionResult result =
+        executeGraphQl(
+            "mutation { bulkUpdateRegularSetTable(values: [{ k: 1, s: [1] }, { k: 1, s: [2] }], "
+                + "ifExists: true) { applied } }");
+    assertThat(result.getErrors()).isEmpty();
+
+    assertThat(batchTypeCaptor.getAllValues()).isEmpty();
+    assertThat(preparedExecutions)
+        .containsExactly(
+            Collections.singletonList(
+                "UPDATE collections.\"RegularSetTable\" SET s=? WHERE k=? IF EXISTS [[1], 1]"),
+            Collections.singletonList(
+                "UPDATE collections.\"RegularSetTable\" SET s=? WHERE k=? IF EXISTS [[2], 1]"));
+  }
+}
@@ -0,0 +1,86 @@
+package io.stargate.graphql.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.AsyncExecutionStrategy;
+import io.stargate.db.schema.Keyspace;
+import io.stargate.graphql.schema.DmlTestBase;
+import io.stargate.graphql.schema.SampleKeyspaces;
+import io.stargate.graphql.web.OperationTimings.Phase;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LatencyInstrumentationTest extends DmlTestBase {
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  @Override
+  public Keyspace getKeyspace() {
+    return SampleKeyspaces.LIBRARY;
+  }
+
+  @BeforeEach
+  public void useInstrumentation() {
+    graphQl =
+        GraphQL.newGraphQL(graphQlSchema)
+            .mutationExecutionStrategy(new AsyncExecutionStrategy())
+            .instrumentation(new LatencyInstrumentation(metricRegistry, 0))
+            .build();
+  }
+
+  private ExecutionResult execute(String query) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("X-Cassandra-Token")).thenReturn("mock token");
+    return graphQl.execute(
+        ExecutionInput.newExecutionInput(query).context(new HttpAwareContext(request)).build());
+  }
+
+  @Test
+  @DisplayName("Should record timers per phase and per table operation")
+  public void timersTest() {
+    assertThat(execute("query { books(value: { title: \"a\" }) { values { title } } }").getErrors())
+        .isEmpty();
+    assertThat(
+            execute(
+                    "mutation { "
+                        + "a1: insertbooks(value: { title: \"a\" }) { applied }, "
+                        + "a2: insertbooks(value: { title: \"b\" }) { applied } }")
+                .getErrors())
+        .isEmpty();
+
+    assertThat(metricRegistry.timer("latency.operations").getCount()).isEqualTo(2);
+    assertThat(metricRegistry.timer("latency.parse").getCount()).isEqualTo(2);
+    assertThat(metricRegistry.timer("latency.validation").getCount()).isEqualTo(2);
+    assertThat(metricRegistry.timer("latency.execution").getCount()).isEqualTo(2);
+    assertThat(metricRegistry.timer("latency.library.books.select").getCount()).isEqualTo(1);
+    assertThat(metricRegistry.timer("latency.library.books.insert").getCount()).isEqualTo(2);
+    assertThat(metricRegistry.timer("latency.fetch.auth").getCount()).isEqualTo(3);
+    assertThat(metricRegistry.timer("latency.fetch.build").getCount()).isEqualTo(3);
+    assertThat(metricRegistry.timer("latency.fetch.map").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should describe the timing breakdown of an operation")
+  public void describeTest() {
+    OperationTimings timings = new OperationTimings();
+    timings.parseNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    timings.add("/books", Phase.EXECUTE, TimeUnit.MILLISECONDS.toNanos(12));
+    LatencyInstrumentation.State state = new LatencyInstrumentation.State(timings);
+    state.fields.put("/books", "/books (library.books.select) took 13.0ms");
+
+    assertThat(LatencyInstrumentation.describe(state, TimeUnit.MILLISECONDS.toNanos(15)))
+        .isEqualTo(
+            "total=15.0ms, parse=1.0ms, validation=0.0ms, execution=0.0ms; "
+                + "/books (library.books.select) took 13.0ms "
+                + "[auth=0.0ms, build=0.0ms, execute=12.0ms, map=0.0ms]");
+  }
+}
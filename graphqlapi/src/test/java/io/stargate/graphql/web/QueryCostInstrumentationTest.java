@@ -0,0 +1,106 @@
+package io.stargate.graphql.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.AsyncExecutionStrategy;
+import io.stargate.db.schema.Keyspace;
+import io.stargate.graphql.schema.DmlTestBase;
+import io.stargate.graphql.schema.SampleKeyspaces;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class QueryCostInstrumentationTest extends DmlTestBase {
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  @Override
+  public Keyspace getKeyspace() {
+    return SampleKeyspaces.LIBRARY;
+  }
+
+  private void useInstrumentation(
+      long maxQueryCost, double defaultBudget, Map<String, Double> roleBudgets) {
+    graphQl =
+        GraphQL.newGraphQL(graphQlSchema)
+            .mutationExecutionStrategy(new AsyncExecutionStrategy())
+            .instrumentation(
+                new QueryCostInstrumentation(
+                    authenticationService,
+                    metricRegistry,
+                    maxQueryCost,
+                    defaultBudget,
+                    roleBudgets,
+                    0))
+            .build();
+  }
+
+  @Test
+  @DisplayName("Should record the estimated cost of partition-restricted and scanning queries")
+  public void costTest() {
+    useInstrumentation(0, 0, ImmutableMap.of());
+
+    executeGraphQl("query { books(value: { title: \"a\" }) { values { title } } }");
+    executeGraphQl(
+        "query { books(filter: { title: { in: [\"a\", \"b\"] } }, options: { pageSize: 10 }) "
+            + "{ values { title } } }");
+    executeGraphQl("query { books(options: { pageSize: 10, limit: 5 }) { values { title } } }");
+    executeGraphQl(
+        "query { "
+            + "a1: books { values { title } }, "
+            + "a2: authors(value: { author: \"x\" }) { values { title } } }");
+    executeGraphQl("mutation { insertbooks(value: { title: \"a\" }) { applied } }");
+
+    long[] costs = metricRegistry.histogram("cost.operations").getSnapshot().getValues();
+    assertThat(costs).containsExactlyInAnyOrder(100, 10, 50, 1100, 1);
+  }
+
+  @Test
+  @DisplayName("Should reject operations that exceed the maximum cost")
+  public void maxCostTest() {
+    useInstrumentation(500, 0, ImmutableMap.of());
+
+    assertResponse(
+        "query { books(value: { title: \"a\" }) { values { title } } }",
+        "{\"books\": {\"values\": []}}");
+    assertError(
+        "query { books(filter: { author: { eq: \"x\" } }) { values { title } } }",
+        "exceeds the maximum allowed (500)");
+    assertThat(metricRegistry.meter("cost.rejected").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should reject operations once the role's budget is exhausted")
+  public void roleBudgetTest() {
+    useInstrumentation(0, 0, ImmutableMap.of("mock role name", 1000.0));
+
+    ExecutionResult first = executeGraphQl("query { books { values { title } } }");
+    assertThat(first.getErrors()).isEmpty();
+    assertError(
+        "query { books { values { title } } }",
+        "The query cost budget for role 'mock role name' is exhausted");
+  }
+
+  @Test
+  @DisplayName("Should reject operations that cost more than a second of the role's budget")
+  public void roleBudgetPerSecondTest() {
+    useInstrumentation(0, 0, ImmutableMap.of("mock role name", 10.0));
+
+    assertError(
+        "query { books { values { title } } }",
+        "exceeds the query cost budget per second of role 'mock role name'");
+    assertThat(metricRegistry.meter("cost.rejected").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void parseRoleBudgetsTest() {
+    assertThat(QueryCostInstrumentation.parseRoleBudgets("")).isEmpty();
+    assertThat(QueryCostInstrumentation.parseRoleBudgets("a:10, b : 2.5"))
+        .containsEntry("a", 10.0)
+        .containsEntry("b", 2.5);
+  }
+}
@@ -86,6 +86,18 @@ public interface Persistence {
 
   boolean isInSchemaAgreement();
 
+  /**
+   * Returns a future that completes once the schema agrees across the cluster, or completes
+   * exceptionally if that doesn't happen in time.
+   *
+   * <p>The default implementation polls {@link #isInSchemaAgreement()} on a shared scheduler, with
+   * the same interval and timeout as {@link #waitForSchemaAgreement()}. Implementations should
+   * override it to complete the future when they are notified of schema version changes instead.
+   */
+  default CompletableFuture<Void> schemaAgreementFuture() {
+    return SchemaAgreementTracker.poll(this::isInSchemaAgreement);
+  }
+
   /** Wait for schema to agree across the cluster */
   default void waitForSchemaAgreement() {
     for (int count = 0; count < SCHEMA_AGREEMENT_WAIT_RETRIES; count++) {
@@ -51,6 +51,7 @@ public abstract class Result {
   public final Kind kind;
   private UUID tracingId;
   private @Nullable List<String> warnings;
+  private long executionStartNanos;
 
   private Result(Kind kind) {
     this.kind = kind;
@@ -67,6 +68,15 @@ public abstract class Result {
     return this;
   }
 
+  /**
+   * Sets the {@link System#nanoTime()} at which the persistence started executing the request,
+   * after it waited in the persistence's own queue.
+   */
+  public Result setExecutionStartNanos(long executionStartNanos) {
+    this.executionStartNanos = executionStartNanos;
+    return this;
+  }
+
   public UUID getTracingId() {
     return tracingId;
   }
@@ -75,6 +85,14 @@ public abstract class Result {
     return warnings;
   }
 
+  /**
+   * The {@link System#nanoTime()} at which the persistence started executing the request, or 0 if
+   * the persistence doesn't report it.
+   */
+  public long getExecutionStartNanos() {
+    return executionStartNanos;
+  }
+
   public static class Rows extends Result {
     public final List<List<ByteBuffer>> rows;
     public final ResultMetadata resultMetadata;
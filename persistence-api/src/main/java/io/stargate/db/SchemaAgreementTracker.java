@@ -0,0 +1,157 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db;
+
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tracks the futures returned by {@link Persistence#schemaAgreementFuture()}, for persistence
+ * implementations that get notified when the schema versions of the nodes change.
+ *
+ * <p>Implementations call {@link #onStateChange()} from those notifications, and pending futures
+ * are completed as soon as the schema agrees, instead of polling for it. Futures that are still
+ * pending after {@link Persistence#SCHEMA_AGREEMENT_WAIT_RETRIES} * 200 milliseconds (the time
+ * {@link Persistence#waitForSchemaAgreement()} waits) fail with an {@link IllegalStateException}.
+ */
+public class SchemaAgreementTracker {
+
+  private static final long POLL_INTERVAL_MS = 200;
+
+  private static final long DEFAULT_TIMEOUT_MS =
+      Persistence.SCHEMA_AGREEMENT_WAIT_RETRIES * POLL_INTERVAL_MS;
+
+  // Checks the agreement and completes futures away from the threads delivering notifications
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "schema-agreement");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final BooleanSupplier isInSchemaAgreement;
+  private final long timeoutMillis;
+  private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+  public SchemaAgreementTracker(BooleanSupplier isInSchemaAgreement) {
+    this(isInSchemaAgreement, DEFAULT_TIMEOUT_MS);
+  }
+
+  @VisibleForTesting
+  SchemaAgreementTracker(BooleanSupplier isInSchemaAgreement, long timeoutMillis) {
+    this.isInSchemaAgreement = isInSchemaAgreement;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /** Returns a future that completes once the schema agrees. */
+  public CompletableFuture<Void> future() {
+    if (isInSchemaAgreement.getAsBoolean()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    waiters.add(future);
+    ScheduledFuture<?> timeout =
+        EXECUTOR.schedule(
+            () -> {
+              if (isInSchemaAgreement.getAsBoolean()) {
+                future.complete(null);
+              } else {
+                future.completeExceptionally(
+                    new IllegalStateException(
+                        "Failed to reach schema agreement after "
+                            + timeoutMillis
+                            + " milliseconds."));
+              }
+            },
+            timeoutMillis,
+            TimeUnit.MILLISECONDS);
+    future.whenComplete(
+        (v, t) -> {
+          waiters.remove(future);
+          timeout.cancel(false);
+        });
+
+    // The schema might have agreed between the initial check and the registration of the future
+    onStateChange();
+    return future;
+  }
+
+  /**
+   * Returns a future that completes once the schema agrees, for persistence implementations that
+   * don't get notified of schema version changes: the agreement is checked every 200 milliseconds
+   * on the tracker's scheduler, and the future fails after the same timeout as the tracked ones.
+   */
+  public static CompletableFuture<Void> poll(BooleanSupplier isInSchemaAgreement) {
+    return poll(isInSchemaAgreement, POLL_INTERVAL_MS, DEFAULT_TIMEOUT_MS);
+  }
+
+  @VisibleForTesting
+  static CompletableFuture<Void> poll(
+      BooleanSupplier isInSchemaAgreement, long intervalMillis, long timeoutMillis) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    ScheduledFuture<?> check =
+        EXECUTOR.scheduleWithFixedDelay(
+            () -> {
+              try {
+                if (isInSchemaAgreement.getAsBoolean()) {
+                  future.complete(null);
+                } else if (System.nanoTime() - deadline >= 0) {
+                  future.completeExceptionally(
+                      new IllegalStateException(
+                          "Failed to reach schema agreement after "
+                              + timeoutMillis
+                              + " milliseconds."));
+                }
+              } catch (Throwable t) {
+                future.completeExceptionally(t);
+              }
+            },
+            0,
+            intervalMillis,
+            TimeUnit.MILLISECONDS);
+    future.whenComplete((v, t) -> check.cancel(false));
+    return future;
+  }
+
+  /**
+   * Notifies the tracker that the schema versions, or the set of live nodes, might have changed.
+   */
+  public void onStateChange() {
+    if (!waiters.isEmpty()) {
+      EXECUTOR.execute(this::completeIfInAgreement);
+    }
+  }
+
+  private void completeIfInAgreement() {
+    if (waiters.isEmpty() || !isInSchemaAgreement.getAsBoolean()) {
+      return;
+    }
+    CompletableFuture<Void> future;
+    while ((future = waiters.poll()) != null) {
+      future.complete(null);
+    }
+  }
+}
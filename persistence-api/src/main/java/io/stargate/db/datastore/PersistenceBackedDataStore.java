@@ -87,7 +87,8 @@ class PersistenceBackedDataStore implements DataStore {
 
     return connection
         .batch(new Batch(batchType, statements), executeParameters, queryStartNanos)
-        .thenApply(r -> PersistenceBackedResultSet.create(connection, r, null, executeParameters));
+        .thenCompose(
+            r -> PersistenceBackedResultSet.create(connection, r, null, executeParameters));
   }
 
   private Persistence persistence() {
@@ -137,11 +137,9 @@ class PersistenceBackedPreparedStatement implements PreparedStatement {
 
       connection
           .execute(statement, executeParameters, queryStartNanos)
-          .thenAccept(
-              r ->
-                  successFuture.complete(
-                      PersistenceBackedResultSet.create(
-                          connection, r, statement, executeParameters)))
+          .thenCompose(
+              r -> PersistenceBackedResultSet.create(connection, r, statement, executeParameters))
+          .thenAccept(successFuture::complete)
           .exceptionally(
               ex -> {
                 onException.accept(ex);
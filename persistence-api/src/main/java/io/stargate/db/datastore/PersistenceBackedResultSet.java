@@ -17,6 +17,7 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
@@ -53,7 +54,7 @@ class PersistenceBackedResultSet implements ResultSet {
     }
   }
 
-  static ResultSet create(
+  static CompletableFuture<ResultSet> create(
       Persistence.Connection connection,
       Result result,
       @Nullable BoundStatement statement,
@@ -63,14 +64,17 @@ class PersistenceBackedResultSet implements ResultSet {
         throw new AssertionError(
             "Shouldn't get a 'Prepared' result when executing a prepared statement");
       case SchemaChange:
-        connection.persistence().waitForSchemaAgreement();
-        return ResultSet.empty(true);
+        return connection
+            .persistence()
+            .schemaAgreementFuture()
+            .thenApply(v -> ResultSet.empty(true));
       case Void: // fallthrough on purpose
       case SetKeyspace:
-        return ResultSet.empty();
+        return CompletableFuture.completedFuture(ResultSet.empty());
       case Rows:
-        return new PersistenceBackedResultSet(
-            connection, executeParameters, statement, (Result.Rows) result);
+        return CompletableFuture.completedFuture(
+            new PersistenceBackedResultSet(
+                connection, executeParameters, statement, (Result.Rows) result));
       default:
         throw new AssertionError("Unhandled result type: " + result.kind);
     }
@@ -0,0 +1,64 @@
+package io.stargate.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SchemaAgreementTrackerTest {
+
+  @Test
+  public void shouldCompleteImmediatelyWhenInAgreement() {
+    SchemaAgreementTracker tracker = new SchemaAgreementTracker(() -> true);
+
+    assertThat(tracker.future()).isCompleted();
+  }
+
+  @Test
+  public void shouldCompleteOnStateChangeOnceInAgreement() throws Exception {
+    AtomicBoolean inAgreement = new AtomicBoolean(false);
+    SchemaAgreementTracker tracker = new SchemaAgreementTracker(inAgreement::get, 60_000);
+
+    CompletableFuture<Void> future = tracker.future();
+    tracker.onStateChange();
+    Thread.sleep(50);
+    assertThat(future).isNotDone();
+
+    inAgreement.set(true);
+    tracker.onStateChange();
+    future.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldFailAfterTimeout() {
+    SchemaAgreementTracker tracker = new SchemaAgreementTracker(() -> false, 10);
+
+    assertThatThrownBy(() -> tracker.future().get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Failed to reach schema agreement after 10 milliseconds");
+  }
+
+  @Test
+  public void shouldPollUntilInAgreement() throws Exception {
+    AtomicInteger checks = new AtomicInteger();
+
+    SchemaAgreementTracker.poll(() -> checks.incrementAndGet() >= 3, 10, 60_000)
+        .get(5, TimeUnit.SECONDS);
+    assertThat(checks).hasValue(3);
+  }
+
+  @Test
+  public void shouldFailPollingAfterTimeout() {
+    assertThatThrownBy(
+            () -> SchemaAgreementTracker.poll(() -> false, 5, 20).get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Failed to reach schema agreement after 20 milliseconds");
+  }
+}
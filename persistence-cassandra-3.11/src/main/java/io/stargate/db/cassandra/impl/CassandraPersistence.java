@@ -35,6 +35,7 @@ import io.stargate.db.cassandra.impl.interceptors.DefaultQueryInterceptor;
 import io.stargate.db.cassandra.impl.interceptors.QueryInterceptor;
 import io.stargate.db.datastore.common.AbstractCassandraPersistence;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -63,6 +64,8 @@ import org.apache.cassandra.exceptions.AuthenticationException;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
+import org.apache.cassandra.gms.VersionedValue;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
 import org.apache.cassandra.service.CassandraDaemon;
@@ -108,7 +111,16 @@ public class CassandraPersistence
   private static final int STARTUP_DELAY_MS =
       Integer.getInteger("stargate.startup_delay_ms", 3 * MigrationManager.MIGRATION_DELAY_IN_MS);
 
+  /*
+   * Requests from internal callers (authentication, the REST and GraphQL APIs, health checks) run
+   * on their own executor, so that they don't queue behind client traffic when it saturates the
+   * native transport executor.
+   */
+  private static final int INTERNAL_REQUEST_THREADS =
+      Integer.getInteger("stargate.internal_request_threads", 32);
+
   private LocalAwareExecutorService executor;
+  private LocalAwareExecutorService internalExecutor;
 
   private CassandraDaemon daemon;
   private Authenticator authenticator;
@@ -176,12 +188,19 @@ public class CassandraPersistence
             Integer.MAX_VALUE,
             "transport",
             "Native-Transport-Requests");
+    internalExecutor =
+        SHARED.newExecutor(
+            INTERNAL_REQUEST_THREADS,
+            Integer.MAX_VALUE,
+            "transport",
+            "Native-Transport-Internal-Requests");
 
     // Use special gossip state "X10" to differentiate stargate nodes
     Gossiper.instance.addLocalApplicationState(
         ApplicationState.X10, StorageService.instance.valueFactory.releaseVersion("stargate"));
 
     daemon.start();
+    Gossiper.instance.register(new SchemaVersionsListener());
 
     waitForSchema(STARTUP_DELAY_MS);
 
@@ -231,16 +250,21 @@ public class CassandraPersistence
   }
 
   private <T extends Result> CompletableFuture<T> runOnExecutor(
-      Supplier<T> supplier, boolean captureWarnings) {
+      LocalAwareExecutorService executor, Supplier<T> supplier, boolean captureWarnings) {
     assert executor != null : "This persistence has not been initialized";
     CompletableFuture<T> future = new CompletableFuture<>();
     executor.submit(
         () -> {
+          long start = System.nanoTime();
           if (captureWarnings) ClientWarn.instance.captureWarnings();
           try {
             @SuppressWarnings("unchecked")
             T resultWithWarnings =
-                (T) supplier.get().setWarnings(ClientWarn.instance.getWarnings());
+                (T)
+                    supplier
+                        .get()
+                        .setWarnings(ClientWarn.instance.getWarnings())
+                        .setExecutionStartNanos(start);
             future.complete(resultWithWarnings);
           } catch (Throwable t) {
             JVMStabilityInspector.inspectThrowable(t);
@@ -314,8 +338,49 @@ public class CassandraPersistence
     }
   }
 
+  /** Notifies pending schema agreement futures of the gossip changes that may affect them. */
+  private class SchemaVersionsListener implements IEndpointStateChangeSubscriber {
+    @Override
+    public void onJoin(InetAddress endpoint, EndpointState epState) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void beforeChange(
+        InetAddress endpoint,
+        EndpointState currentState,
+        ApplicationState newStateKey,
+        VersionedValue newValue) {}
+
+    @Override
+    public void onChange(InetAddress endpoint, ApplicationState state, VersionedValue value) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onAlive(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onDead(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRemove(InetAddress endpoint) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRestart(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+  }
+
   private class CassandraConnection extends AbstractConnection {
     private final ClientState clientState;
+    private final LocalAwareExecutorService executor;
 
     private CassandraConnection(@Nonnull ClientInfo clientInfo) {
       this(clientInfo, ClientState.forExternalCalls(clientInfo.remoteAddress()));
@@ -328,6 +393,7 @@ public class CassandraPersistence
     private CassandraConnection(@Nullable ClientInfo clientInfo, ClientState clientState) {
       super(clientInfo);
       this.clientState = clientState;
+      this.executor = clientInfo == null ? internalExecutor : CassandraPersistence.this.executor;
 
       if (!authenticator.requireAuthentication()) {
         clientState.login(AuthenticatedUser.ANONYMOUS_USER);
@@ -356,6 +422,7 @@ public class CassandraPersistence
     private <T extends Result> CompletableFuture<T> executeRequestOnExecutor(
         Parameters parameters, long queryStartNanoTime, Supplier<Request> requestSupplier) {
       return runOnExecutor(
+          executor,
           () -> {
             QueryState queryState = new QueryState(clientState);
             Request request = requestSupplier.get();
@@ -378,7 +445,10 @@ public class CassandraPersistence
                 (T)
                     Conversion.toResult(
                         (ResultMessage) response,
-                        Conversion.toInternal(parameters.protocolVersion()));
+                        Conversion.toInternal(parameters.protocolVersion()),
+                        request instanceof ExecuteMessage
+                            ? ((ExecuteMessage) request).statementId
+                            : null);
             return result;
           },
           parameters.protocolVersion().isGreaterOrEqualTo(ProtocolVersion.V4));
@@ -17,6 +17,8 @@ package io.stargate.db.cassandra.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import io.stargate.db.BatchType;
 import io.stargate.db.Parameters;
@@ -32,6 +34,7 @@ import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -137,6 +140,10 @@ public class Conversion {
     }
   }
 
+  private static final int MAX_CACHED_RESULT_COLUMNS = 10_000;
+  private static final Cache<org.apache.cassandra.utils.MD5Digest, ResultColumns> RESULT_COLUMNS =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RESULT_COLUMNS).build();
+
   private static final Map<Class<? extends AbstractType>, Column.Type> TYPE_MAPPINGS;
 
   static {
@@ -366,21 +373,57 @@ public class Conversion {
     return e;
   }
 
+  /**
+   * Converts the column specs of a result.
+   *
+   * <p>The conversion of the results of prepared statements is cached by prepared statement id.
+   * Cassandra 3.11 has no result metadata id to detect that the columns of a statement changed, but
+   * re-preparing a statement creates new column specs, and all the results of a prepared statement
+   * share the same column specs list, so the cached conversion is only used for the list it was
+   * made from. Other results are converted every time.
+   */
+  private static List<Column> toResultColumns(
+      org.apache.cassandra.utils.MD5Digest preparedId, List<ColumnSpecification> names) {
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    ResultColumns cached = preparedId == null ? null : RESULT_COLUMNS.getIfPresent(preparedId);
+    // The list may have grown after being cached, if the statement added non-serialized columns
+    if (cached != null && cached.names == names && cached.columns.size() == names.size()) {
+      return cached.columns;
+    }
+    List<Column> converted = new ArrayList<>(names.size());
+    names.forEach(
+        c ->
+            converted.add(
+                ImmutableColumn.builder()
+                    .keyspace(c.ksName)
+                    .table(c.cfName)
+                    .name(c.name.toString())
+                    .type(getTypeFromInternal(c.type))
+                    .build()));
+    List<Column> columns = Collections.unmodifiableList(converted);
+    if (preparedId != null) {
+      RESULT_COLUMNS.put(preparedId, new ResultColumns(names, columns));
+    }
+    return columns;
+  }
+
+  private static class ResultColumns {
+    private final List<ColumnSpecification> names;
+    private final List<Column> columns;
+
+    private ResultColumns(List<ColumnSpecification> names, List<Column> columns) {
+      this.names = names;
+      this.columns = columns;
+    }
+  }
+
   public static Result.ResultMetadata toResultMetadata(
       org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
-      org.apache.cassandra.transport.ProtocolVersion version) {
-    List<Column> columns = new ArrayList<>();
-    if (metadata.names != null) {
-      metadata.names.forEach(
-          c ->
-              columns.add(
-                  ImmutableColumn.builder()
-                      .keyspace(c.ksName)
-                      .table(c.cfName)
-                      .name(c.name.toString())
-                      .type(getTypeFromInternal(c.type))
-                      .build()));
-    }
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
+    List<Column> columns = toResultColumns(preparedId, metadata.names);
 
     EnumSet<Result.Flag> flags = EnumSet.noneOf(Result.Flag.class);
 
@@ -435,20 +478,32 @@ public class Conversion {
         change.argTypes);
   }
 
+  /**
+   * Converts a result.
+   *
+   * @param preparedId the id of the prepared statement that was executed, or {@code null} if the
+   *     result is not from the execution of a prepared statement.
+   */
   public static Result toResult(
-      ResultMessage resultMessage, org.apache.cassandra.transport.ProtocolVersion version) {
-    return toResultInternal(resultMessage, version).setTracingId(resultMessage.getTracingId());
+      ResultMessage resultMessage,
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
+    return toResultInternal(resultMessage, version, preparedId)
+        .setTracingId(resultMessage.getTracingId());
   }
 
   public static Result toResultInternal(
-      ResultMessage resultMessage, org.apache.cassandra.transport.ProtocolVersion version) {
+      ResultMessage resultMessage,
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
     switch (resultMessage.kind) {
       case VOID:
         return new Result.Void();
       case ROWS:
         return new Result.Rows(
             ((ResultMessage.Rows) resultMessage).result.rows,
-            toResultMetadata(((ResultMessage.Rows) resultMessage).result.metadata, version));
+            toResultMetadata(
+                ((ResultMessage.Rows) resultMessage).result.metadata, version, preparedId));
       case SET_KEYSPACE:
         return new Result.SetKeyspace(((ResultMessage.SetKeyspace) resultMessage).keyspace);
       case SCHEMA_CHANGE:
@@ -460,7 +515,7 @@ public class Conversion {
         return new Result.Prepared(
             Conversion.toExternal(prepared.statementId),
             null,
-            toResultMetadata(prepared.resultMetadata, null),
+            toResultMetadata(prepared.resultMetadata, null, prepared.statementId),
             toPreparedMetadata(prepared.metadata.names, preparedStatement.partitionKeyBindIndexes));
     }
 
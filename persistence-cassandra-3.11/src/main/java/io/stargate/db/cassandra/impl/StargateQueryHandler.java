@@ -1,5 +1,8 @@
 package io.stargate.db.cassandra.impl;
 
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.stargate.db.cassandra.impl.interceptors.QueryInterceptor;
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -15,14 +18,22 @@ import org.apache.cassandra.cql3.statements.ParsedStatement;
 import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.exceptions.RequestExecutionException;
 import org.apache.cassandra.exceptions.RequestValidationException;
+import org.apache.cassandra.service.ClientState;
 import org.apache.cassandra.service.QueryState;
 import org.apache.cassandra.transport.messages.ResultMessage;
 import org.apache.cassandra.transport.messages.ResultMessage.Prepared;
 import org.apache.cassandra.utils.MD5Digest;
 
 public class StargateQueryHandler implements QueryHandler {
+  private static final int MAX_CACHED_SYSTEM_STATEMENTS = 1000;
+
   private final List<QueryInterceptor> interceptors = new CopyOnWriteArrayList<>();
 
+  // Drivers issue the same few `system.local` and `system.peers` queries, unprepared, on every new
+  // connection and topology refresh. Keep them parsed, keyed by session keyspace and query string.
+  private final Cache<String, ParsedStatement.Prepared> systemStatements =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SYSTEM_STATEMENTS).build();
+
   void register(QueryInterceptor interceptor) {
     this.interceptors.add(interceptor);
   }
@@ -53,8 +64,7 @@ public class StargateQueryHandler implements QueryHandler {
       long queryStartNanoTime)
       throws RequestExecutionException, RequestValidationException {
 
-    ParsedStatement.Prepared p =
-        QueryProcessor.getStatement(queryString, queryState.getClientState());
+    ParsedStatement.Prepared p = getStatement(queryString, queryState.getClientState());
     options.prepare(p.boundNames);
     CQLStatement statement = p.statement;
     if (statement.getBoundTerms() != options.getValues().size()) {
@@ -75,6 +85,18 @@ public class StargateQueryHandler implements QueryHandler {
         : result;
   }
 
+  private ParsedStatement.Prepared getStatement(String queryString, ClientState clientState) {
+    String key = Strings.nullToEmpty(clientState.getRawKeyspace()) + ':' + queryString;
+    ParsedStatement.Prepared p = systemStatements.getIfPresent(key);
+    if (p == null) {
+      p = QueryProcessor.getStatement(queryString, clientState);
+      if (StargateSystemKeyspace.isSystemLocalOrPeers(p.statement)) {
+        systemStatements.put(key, p);
+      }
+    }
+    return p;
+  }
+
   @Override
   public Prepared prepare(String s, QueryState queryState, Map<String, ByteBuffer> customPayload)
       throws RequestValidationException {
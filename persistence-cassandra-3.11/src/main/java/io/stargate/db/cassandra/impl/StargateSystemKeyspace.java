@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.SchemaConstants;
@@ -50,6 +51,9 @@ public class StargateSystemKeyspace {
 
   public static final UUID SCHEMA_VERSION = UUID.fromString("17846767-28a1-4acd-a967-f609ff1375f1");
 
+  // Incremented after every write to the tables, so that cached query results can be invalidated
+  private static final AtomicLong version = new AtomicLong();
+
   public static final CFMetaData Local =
       compile(
           LOCAL_TABLE_NAME,
@@ -149,6 +153,15 @@ public class StargateSystemKeyspace {
         SystemKeyspace.getLocalHostId(),
         Collections.singleton(DatabaseDescriptor.getPartitioner().getMinimumToken().toString()),
         SCHEMA_VERSION);
+    version.incrementAndGet();
+  }
+
+  /**
+   * The current version of the tables content. It changes after every write, so results read while
+   * the version stays the same are still up to date.
+   */
+  public static long version() {
+    return version.get();
   }
 
   public static boolean isSystemLocal(SelectStatement statement) {
@@ -177,16 +190,19 @@ public class StargateSystemKeyspace {
     String req = "INSERT INTO %s.%s (peer, %s) VALUES (?, ?)";
     return executorService.submit(
         (Runnable)
-            () ->
-                executeInternal(
-                    String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME, columnName),
-                    ep,
-                    value));
+            () -> {
+              executeInternal(
+                  String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME, columnName),
+                  ep,
+                  value);
+              version.incrementAndGet();
+            });
   }
 
   public static void removeEndpoint(InetAddress ep) {
     String req = "DELETE FROM %s.%s WHERE peer = ?";
     executeInternal(String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME), ep);
+    version.incrementAndGet();
     forceBlockingFlush(PEERS_TABLE_NAME);
   }
 
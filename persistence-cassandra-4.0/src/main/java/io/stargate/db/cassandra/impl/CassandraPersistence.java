@@ -45,6 +45,9 @@ import org.apache.cassandra.exceptions.AuthenticationException;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
+import org.apache.cassandra.gms.VersionedValue;
+import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
@@ -94,7 +97,16 @@ public class CassandraPersistence
           "stargate.startup_delay_ms",
           3 * 60000); // MigrationManager.MIGRATION_DELAY_IN_MS is private
 
+  /*
+   * Requests from internal callers (authentication, the REST and GraphQL APIs, health checks) run
+   * on their own executor, so that they don't queue behind client traffic when it saturates the
+   * native transport executor.
+   */
+  private static final int INTERNAL_REQUEST_THREADS =
+      Integer.getInteger("stargate.internal_request_threads", 32);
+
   private LocalAwareExecutorService executor;
+  private LocalAwareExecutorService internalExecutor;
 
   private CassandraDaemon daemon;
   private Authenticator authenticator;
@@ -163,12 +175,20 @@ public class CassandraPersistence
             Integer.MAX_VALUE,
             "transport",
             "Native-Transport-Requests");
+    internalExecutor =
+        SHARED.newExecutor(
+            INTERNAL_REQUEST_THREADS,
+            size -> {},
+            Integer.MAX_VALUE,
+            "transport",
+            "Native-Transport-Internal-Requests");
 
     // Use special gossip state "X10" to differentiate stargate nodes
     Gossiper.instance.addLocalApplicationState(
         ApplicationState.X10, StorageService.instance.valueFactory.releaseVersion("stargate"));
 
     daemon.start();
+    Gossiper.instance.register(new SchemaVersionsListener());
 
     waitForSchema(STARTUP_DELAY_MS);
 
@@ -219,16 +239,21 @@ public class CassandraPersistence
   }
 
   private <T extends Result> CompletableFuture<T> runOnExecutor(
-      Supplier<T> supplier, boolean captureWarnings) {
+      LocalAwareExecutorService executor, Supplier<T> supplier, boolean captureWarnings) {
     assert executor != null : "This persistence has not been initialized";
     CompletableFuture<T> future = new CompletableFuture<>();
     executor.submit(
         () -> {
+          long start = System.nanoTime();
           if (captureWarnings) ClientWarn.instance.captureWarnings();
           try {
             @SuppressWarnings("unchecked")
             T resultWithWarnings =
-                (T) supplier.get().setWarnings(ClientWarn.instance.getWarnings());
+                (T)
+                    supplier
+                        .get()
+                        .setWarnings(ClientWarn.instance.getWarnings())
+                        .setExecutionStartNanos(start);
             future.complete(resultWithWarnings);
           } catch (Throwable t) {
             JVMStabilityInspector.inspectThrowable(t);
@@ -302,8 +327,50 @@ public class CassandraPersistence
     }
   }
 
+  /** Notifies pending schema agreement futures of the gossip changes that may affect them. */
+  private class SchemaVersionsListener implements IEndpointStateChangeSubscriber {
+    @Override
+    public void onJoin(InetAddressAndPort endpoint, EndpointState epState) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void beforeChange(
+        InetAddressAndPort endpoint,
+        EndpointState currentState,
+        ApplicationState newStateKey,
+        VersionedValue newValue) {}
+
+    @Override
+    public void onChange(
+        InetAddressAndPort endpoint, ApplicationState state, VersionedValue value) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onAlive(InetAddressAndPort endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onDead(InetAddressAndPort endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRemove(InetAddressAndPort endpoint) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRestart(InetAddressAndPort endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+  }
+
   private class CassandraConnection extends AbstractConnection {
     private final ClientState clientState;
+    private final LocalAwareExecutorService executor;
 
     private CassandraConnection(@Nonnull ClientInfo clientInfo) {
       this(clientInfo, ClientState.forExternalCalls(clientInfo.remoteAddress()));
@@ -316,6 +383,7 @@ public class CassandraPersistence
     private CassandraConnection(@Nullable ClientInfo clientInfo, ClientState clientState) {
       super(clientInfo);
       this.clientState = clientState;
+      this.executor = clientInfo == null ? internalExecutor : CassandraPersistence.this.executor;
 
       if (!authenticator.requireAuthentication()) {
         clientState.login(AuthenticatedUser.ANONYMOUS_USER);
@@ -344,6 +412,7 @@ public class CassandraPersistence
     private <T extends Result> CompletableFuture<T> executeRequestOnExecutor(
         Parameters parameters, long queryStartNanoTime, Supplier<Request> requestSupplier) {
       return runOnExecutor(
+          executor,
           () -> {
             QueryState queryState = new QueryState(clientState);
             Request request = requestSupplier.get();
@@ -370,7 +439,10 @@ public class CassandraPersistence
                 (T)
                     Conversion.toResult(
                         (ResultMessage) response,
-                        Conversion.toInternal(parameters.protocolVersion()));
+                        Conversion.toInternal(parameters.protocolVersion()),
+                        request instanceof ExecuteMessage
+                            ? ((ExecuteMessage) request).statementId
+                            : null);
             return result;
           },
           parameters.protocolVersion().isGreaterOrEqualTo(ProtocolVersion.V4));
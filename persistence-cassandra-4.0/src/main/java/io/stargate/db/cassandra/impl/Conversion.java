@@ -2,6 +2,8 @@ package io.stargate.db.cassandra.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import io.stargate.db.BatchType;
 import io.stargate.db.Parameters;
@@ -13,6 +15,7 @@ import io.stargate.db.schema.ImmutableUserDefinedType;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -52,6 +55,10 @@ public class Conversion {
   private static final NoSpamLogger noSpamLogger =
       NoSpamLogger.getLogger(logger, 5L, TimeUnit.MINUTES);
 
+  private static final int MAX_CACHED_RESULT_COLUMNS = 10_000;
+  private static final Cache<ResultColumnsKey, List<Column>> RESULT_COLUMNS =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RESULT_COLUMNS).build();
+
   private static final Map<Class<? extends AbstractType>, Column.Type> TYPE_MAPPINGS;
 
   static {
@@ -289,21 +296,75 @@ public class Conversion {
     return e;
   }
 
-  public static Result.ResultMetadata toResultMetadata(
-      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
-      org.apache.cassandra.transport.ProtocolVersion version) {
-    List<Column> columns = new ArrayList<>();
-    if (metadata.names != null) {
-      metadata.names.forEach(
+  /**
+   * Converts the column specs of a result.
+   *
+   * <p>The conversion of the results of prepared statements is cached by prepared statement id and
+   * result metadata id (a digest of the column specs, which changes with the columns). Other
+   * results are converted every time.
+   */
+  private static List<Column> toResultColumns(
+      org.apache.cassandra.utils.MD5Digest preparedId,
+      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata) {
+    List<ColumnSpecification> names = metadata.names;
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    ResultColumnsKey key =
+        preparedId == null || metadata.getResultMetadataId() == null
+            ? null
+            : new ResultColumnsKey(preparedId, metadata.getResultMetadataId());
+    List<Column> columns = key == null ? null : RESULT_COLUMNS.getIfPresent(key);
+    // The list may have grown after being cached, if the statement added non-serialized columns
+    if (columns == null || columns.size() != names.size()) {
+      List<Column> converted = new ArrayList<>(names.size());
+      names.forEach(
           c ->
-              columns.add(
+              converted.add(
                   ImmutableColumn.builder()
                       .keyspace(c.ksName)
                       .table(c.cfName)
                       .name(c.name.toString())
                       .type(getTypeFromInternal(c.type))
                       .build()));
+      columns = Collections.unmodifiableList(converted);
+      if (key != null) {
+        RESULT_COLUMNS.put(key, columns);
+      }
+    }
+    return columns;
+  }
+
+  private static class ResultColumnsKey {
+    private final org.apache.cassandra.utils.MD5Digest preparedId;
+    private final org.apache.cassandra.utils.MD5Digest resultMetadataId;
+
+    private ResultColumnsKey(
+        org.apache.cassandra.utils.MD5Digest preparedId,
+        org.apache.cassandra.utils.MD5Digest resultMetadataId) {
+      this.preparedId = preparedId;
+      this.resultMetadataId = resultMetadataId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof ResultColumnsKey)) return false;
+      ResultColumnsKey that = (ResultColumnsKey) o;
+      return preparedId.equals(that.preparedId) && resultMetadataId.equals(that.resultMetadataId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * preparedId.hashCode() + resultMetadataId.hashCode();
     }
+  }
+
+  public static Result.ResultMetadata toResultMetadata(
+      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
+    List<Column> columns = toResultColumns(preparedId, metadata);
 
     EnumSet<Result.Flag> flags = EnumSet.noneOf(Result.Flag.class);
     metadata.getFlags().forEach(f -> flags.add(Result.Flag.fromId(f.ordinal() + 1)));
@@ -352,14 +413,24 @@ public class Conversion {
         change.argTypes);
   }
 
+  /**
+   * Converts a result.
+   *
+   * @param preparedId the id of the prepared statement that was executed, or {@code null} if the
+   *     result is not from the execution of a prepared statement.
+   */
   public static Result toResult(
-      ResultMessage resultMessage, org.apache.cassandra.transport.ProtocolVersion version) {
-    return toResultInternal(resultMessage, version)
+      ResultMessage resultMessage,
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
+    return toResultInternal(resultMessage, version, preparedId)
         .setTracingId(ReflectionUtils.getTracingId(resultMessage));
   }
 
   private static Result toResultInternal(
-      ResultMessage resultMessage, org.apache.cassandra.transport.ProtocolVersion version) {
+      ResultMessage resultMessage,
+      org.apache.cassandra.transport.ProtocolVersion version,
+      org.apache.cassandra.utils.MD5Digest preparedId) {
 
     switch (resultMessage.kind) {
       case VOID:
@@ -367,7 +438,8 @@ public class Conversion {
       case ROWS:
         return new Result.Rows(
             ((ResultMessage.Rows) resultMessage).result.rows,
-            toResultMetadata(((ResultMessage.Rows) resultMessage).result.metadata, version));
+            toResultMetadata(
+                ((ResultMessage.Rows) resultMessage).result.metadata, version, preparedId));
       case SET_KEYSPACE:
         return new Result.SetKeyspace(((ResultMessage.SetKeyspace) resultMessage).keyspace);
       case SCHEMA_CHANGE:
@@ -379,7 +451,7 @@ public class Conversion {
         return new Result.Prepared(
             Conversion.toExternal(prepared.statementId),
             Conversion.toExternal(prepared.resultMetadataId),
-            toResultMetadata(prepared.resultMetadata, null),
+            toResultMetadata(prepared.resultMetadata, null, prepared.statementId),
             toPreparedMetadata(
                 prepared.metadata.names,
                 preparedStatement.statement.getPartitionKeyBindVariableIndexes()));
@@ -1,5 +1,8 @@
 package io.stargate.db.cassandra.impl;
 
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.stargate.db.cassandra.impl.interceptors.QueryInterceptor;
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -19,8 +22,15 @@ import org.apache.cassandra.transport.messages.ResultMessage;
 import org.apache.cassandra.utils.MD5Digest;
 
 public class StargateQueryHandler implements QueryHandler {
+  private static final int MAX_CACHED_SYSTEM_STATEMENTS = 1000;
+
   private final List<QueryInterceptor> interceptors = new CopyOnWriteArrayList<>();
 
+  // Drivers issue the same few `system.local` and `system.peers` queries, unprepared, on every new
+  // connection and topology refresh. Keep them parsed, keyed by session keyspace and query string.
+  private final Cache<String, CQLStatement> systemStatements =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SYSTEM_STATEMENTS).build();
+
   void register(QueryInterceptor interceptor) {
     this.interceptors.add(interceptor);
   }
@@ -44,7 +54,19 @@ public class StargateQueryHandler implements QueryHandler {
 
   @Override
   public CQLStatement parse(String s, QueryState queryState, QueryOptions queryOptions) {
-    return QueryProcessor.instance.parse(s, queryState, queryOptions);
+    String keyspace = queryOptions.getKeyspace();
+    if (keyspace == null) {
+      keyspace = queryState.getClientState().getRawKeyspace();
+    }
+    String key = Strings.nullToEmpty(keyspace) + ':' + s;
+    CQLStatement statement = systemStatements.getIfPresent(key);
+    if (statement == null) {
+      statement = QueryProcessor.instance.parse(s, queryState, queryOptions);
+      if (StargateSystemKeyspace.isSystemLocalOrPeers(statement)) {
+        systemStatements.put(key, statement);
+      }
+    }
+    return statement;
   }
 
   @Override
@@ -10,6 +10,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLStatement;
 import org.apache.cassandra.cql3.QueryProcessor;
@@ -43,6 +44,9 @@ public class StargateSystemKeyspace {
 
   public static final UUID SCHEMA_VERSION = UUID.fromString("17846767-28a1-4acd-a967-f609ff1375f1");
 
+  // Incremented after every write to the tables, so that cached query results can be invalidated
+  private static final AtomicLong version = new AtomicLong();
+
   public static final TableMetadata Local =
       parse(
               LOCAL_TABLE_NAME,
@@ -183,6 +187,15 @@ public class StargateSystemKeyspace {
         SystemKeyspace.getLocalHostId(),
         Collections.singleton(DatabaseDescriptor.getPartitioner().getMinimumToken().toString()),
         SCHEMA_VERSION);
+    version.incrementAndGet();
+  }
+
+  /**
+   * The current version of the tables content. It changes after every write, so results read while
+   * the version stays the same are still up to date.
+   */
+  public static long version() {
+    return version.get();
   }
 
   public static boolean isSystemPeers(SelectStatement statement) {
@@ -221,6 +234,7 @@ public class StargateSystemKeyspace {
         ep.address,
         ep.port,
         value);
+    version.incrementAndGet();
   }
 
   public static synchronized void updatePeerNativeAddress(
@@ -237,6 +251,7 @@ public class StargateSystemKeyspace {
         ep.port,
         address.address,
         address.port);
+    version.incrementAndGet();
   }
 
   public static synchronized void removeEndpoint(InetAddressAndPort ep) {
@@ -247,6 +262,7 @@ public class StargateSystemKeyspace {
             "DELETE FROM %s.%s WHERE peer = ? AND peer_port = ?",
             SYSTEM_KEYSPACE_NAME, PEERS_V2_TABLE_NAME);
     executeInternal(req, ep.address, ep.port);
+    version.incrementAndGet();
     forceBlockingFlush(PEERS_TABLE_NAME, PEERS_V2_TABLE_NAME);
   }
 
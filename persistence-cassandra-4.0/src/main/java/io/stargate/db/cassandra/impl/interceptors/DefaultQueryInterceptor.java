@@ -4,6 +4,7 @@ import static io.stargate.db.cassandra.impl.StargateSystemKeyspace.isSystemLocal
 import static io.stargate.db.cassandra.impl.StargateSystemKeyspace.isSystemPeers;
 import static io.stargate.db.cassandra.impl.StargateSystemKeyspace.isSystemPeersV2;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
 import io.stargate.db.EventListener;
 import io.stargate.db.cassandra.impl.StargateSystemKeyspace;
@@ -16,6 +17,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLStatement;
@@ -34,6 +36,7 @@ import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.QueryState;
 import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.transport.messages.ResultMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +49,8 @@ import org.slf4j.LoggerFactory;
 public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointStateChangeSubscriber {
   private static final Logger logger = LoggerFactory.getLogger(DefaultQueryInterceptor.class);
 
+  private static final int MAX_INTERCEPTED_STATEMENTS = 1000;
+
   private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
   private final Set<InetAddressAndPort> liveStargateNodes = Sets.newConcurrentHashSet();
 
@@ -55,6 +60,15 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
   private final Set<InetAddressAndPort> endpointsPendingJoinedNotification =
       ConcurrentHashMap.newKeySet();
 
+  // Statements are compared by identity: prepared statements are reused as is, and the query
+  // handler reuses the parsed statements of unprepared `system.local` and `system.peers` queries.
+  private final ConcurrentMap<SelectStatement, InterceptedStatement> interceptedStatements =
+      CacheBuilder.newBuilder()
+          .weakKeys()
+          .maximumSize(MAX_INTERCEPTED_STATEMENTS)
+          .<SelectStatement, InterceptedStatement>build()
+          .asMap();
+
   @Override
   public void initialize() {
     Schema.instance.load(StargateSystemKeyspace.metadata());
@@ -74,25 +88,45 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     }
 
     SelectStatement selectStatement = (SelectStatement) statement;
+    InterceptedStatement intercepted =
+        interceptedStatements.computeIfAbsent(
+            selectStatement, s -> new InterceptedStatement(toStargateStatement(s)));
+
+    // Only results without bound values or paging are reused, which covers what drivers issue
+    // when connecting and refreshing their topology.
+    boolean cacheable = options.getValues().isEmpty() && options.getPagingState() == null;
+    long version = StargateSystemKeyspace.version();
+    if (cacheable) {
+      Snapshot snapshot = intercepted.snapshot;
+      if (snapshot != null && snapshot.isValid(version, options)) {
+        return new ResultMessage.Rows(
+            new ResultSet(selectStatement.getResultMetadata(), snapshot.rows));
+      }
+    }
+
+    ResultMessage.Rows rows = intercepted.statement.execute(state, options, queryStartNanoTime);
+    if (cacheable && (options.getPageSize() <= 0 || rows.result.size() < options.getPageSize())) {
+      intercepted.snapshot = new Snapshot(version, options.getProtocolVersion(), rows.result.rows);
+    }
+    return new ResultMessage.Rows(
+        new ResultSet(selectStatement.getResultMetadata(), rows.result.rows));
+  }
+
+  private static SelectStatement toStargateStatement(SelectStatement selectStatement) {
     TableMetadata tableMetadata = StargateSystemKeyspace.Local;
     if (isSystemPeers(selectStatement)) tableMetadata = StargateSystemKeyspace.Peers;
     else if (isSystemPeersV2(selectStatement)) tableMetadata = StargateSystemKeyspace.PeersV2;
-    SelectStatement interceptStatement =
-        new SelectStatement(
-            tableMetadata,
-            selectStatement.bindVariables,
-            selectStatement.parameters,
-            selectStatement.getSelection(),
-            selectStatement.getRestrictions(),
-            false,
-            null,
-            null,
-            null,
-            null);
-
-    ResultMessage.Rows rows = interceptStatement.execute(state, options, queryStartNanoTime);
-    return new ResultMessage.Rows(
-        new ResultSet(selectStatement.getResultMetadata(), rows.result.rows));
+    return new SelectStatement(
+        tableMetadata,
+        selectStatement.bindVariables,
+        selectStatement.parameters,
+        selectStatement.getSelection(),
+        selectStatement.getRestrictions(),
+        false,
+        null,
+        null,
+        null,
+        null);
   }
 
   @Override
@@ -302,4 +336,32 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     VersionedValue value = epState.getApplicationState(ApplicationState.X10);
     return value != null && value.value.equals("stargate");
   }
+
+  /** A statement rewritten to read the Stargate system keyspace, and its last complete result. */
+  private static class InterceptedStatement {
+    private final SelectStatement statement;
+    private volatile Snapshot snapshot;
+
+    private InterceptedStatement(SelectStatement statement) {
+      this.statement = statement;
+    }
+  }
+
+  private static class Snapshot {
+    private final long version;
+    private final ProtocolVersion protocolVersion;
+    private final List<List<ByteBuffer>> rows;
+
+    private Snapshot(long version, ProtocolVersion protocolVersion, List<List<ByteBuffer>> rows) {
+      this.version = version;
+      this.protocolVersion = protocolVersion;
+      this.rows = Collections.unmodifiableList(rows);
+    }
+
+    private boolean isValid(long currentVersion, QueryOptions options) {
+      return version == currentVersion
+          && protocolVersion == options.getProtocolVersion()
+          && (options.getPageSize() <= 0 || rows.size() < options.getPageSize());
+    }
+  }
 }
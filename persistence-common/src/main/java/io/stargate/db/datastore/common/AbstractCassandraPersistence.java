@@ -1,13 +1,17 @@
 package io.stargate.db.datastore.common;
 
 import com.google.common.base.Joiner;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.stargate.db.AuthenticatedUser;
 import io.stargate.db.ClientInfo;
 import io.stargate.db.Persistence;
+import io.stargate.db.SchemaAgreementTracker;
 import io.stargate.db.schema.Schema;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +45,9 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
   // listener callback.
   private volatile Schema schema;
 
+  private final SchemaAgreementTracker schemaAgreement =
+      new SchemaAgreementTracker(this::isInSchemaAgreement);
+
   protected AbstractCassandraPersistence(String name) {
     this.name = name;
     this.schemaConverter = newSchemaConverter();
@@ -113,6 +120,32 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
     return schemaConverter.convertCassandraSchema(currentInternalSchema());
   }
 
+  /**
+   * Must be called by implementations whenever the schema version of a node, or the set of live
+   * nodes, might have changed (typically from gossip notifications), so that pending {@link
+   * #schemaAgreementFuture()} futures complete as soon as the schema agrees.
+   */
+  protected void onSchemaVersionsChange() {
+    schemaAgreement.onStateChange();
+  }
+
+  @Override
+  public CompletableFuture<Void> schemaAgreementFuture() {
+    return schemaAgreement.future();
+  }
+
+  @Override
+  public void waitForSchemaAgreement() {
+    try {
+      Uninterruptibles.getUninterruptibly(schemaAgreementFuture());
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new RuntimeException(cause);
+    }
+  }
+
   public final void destroy() {
     destroyPersistence();
     unregisterInternalSchemaListener();
@@ -21,6 +21,7 @@ import io.stargate.db.datastore.common.AbstractCassandraPersistence;
 import io.stargate.db.dse.impl.interceptors.DefaultQueryInterceptor;
 import io.stargate.db.dse.impl.interceptors.ProxyProtocolQueryInterceptor;
 import io.stargate.db.dse.impl.interceptors.QueryInterceptor;
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,6 +50,8 @@ import org.apache.cassandra.exceptions.AuthenticationException;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
+import org.apache.cassandra.gms.VersionedValue;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
@@ -186,6 +189,8 @@ public class DsePersistence
     Gossiper.instance.addLocalApplicationState(
         ApplicationState.X10, StorageService.instance.valueFactory.dsefsState("stargate"));
 
+    Gossiper.instance.register(new SchemaVersionsListener());
+
     waitForSchema(STARTUP_DELAY_MS);
 
     interceptor = new DefaultQueryInterceptor();
@@ -309,6 +314,46 @@ public class DsePersistence
     return ClientState.forExternalCalls(clientInfo.remoteAddress(), null);
   }
 
+  /** Notifies pending schema agreement futures of the gossip changes that may affect them. */
+  private class SchemaVersionsListener implements IEndpointStateChangeSubscriber {
+    @Override
+    public void onJoin(InetAddress endpoint, EndpointState epState) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void beforeChange(
+        InetAddress endpoint,
+        EndpointState currentState,
+        ApplicationState newStateKey,
+        VersionedValue newValue) {}
+
+    @Override
+    public void onChange(InetAddress endpoint, ApplicationState state, VersionedValue value) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onAlive(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onDead(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRemove(InetAddress endpoint) {
+      onSchemaVersionsChange();
+    }
+
+    @Override
+    public void onRestart(InetAddress endpoint, EndpointState state) {
+      onSchemaVersionsChange();
+    }
+  }
+
   private class DseConnection extends AbstractConnection {
     private final ClientState clientState;
     private final ServerConnection fakeServerConnection;
@@ -405,7 +450,10 @@ public class DsePersistence
                             Conversion.toResult(
                                 (ResultMessage) response,
                                 Conversion.toInternal(parameters.protocolVersion()),
-                                ClientWarn.instance.getWarnings());
+                                ClientWarn.instance.getWarnings(),
+                                request instanceof ExecuteMessage
+                                    ? ((ExecuteMessage) request).statementId
+                                    : null);
                     return result;
                   } finally {
                     ClientWarn.instance.resetWarnings();
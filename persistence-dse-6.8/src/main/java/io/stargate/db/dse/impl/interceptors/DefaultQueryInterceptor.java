@@ -3,6 +3,7 @@ package io.stargate.db.dse.impl.interceptors;
 import static io.stargate.db.dse.impl.StargateSystemKeyspace.SYSTEM_KEYSPACE_NAME;
 import static io.stargate.db.dse.impl.StargateSystemKeyspace.isSystemLocalOrPeers;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
 import io.reactivex.Single;
 import io.stargate.db.EventListener;
@@ -16,6 +17,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 import org.apache.cassandra.cql3.CQLStatement;
@@ -44,6 +46,8 @@ import org.slf4j.LoggerFactory;
 public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointStateChangeSubscriber {
   private static final Logger logger = LoggerFactory.getLogger(DefaultQueryInterceptor.class);
 
+  private static final int MAX_INTERCEPTED_STATEMENTS = 1000;
+
   private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
   private final Set<InetAddress> liveStargateNodes = Sets.newConcurrentHashSet();
 
@@ -52,6 +56,14 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
   // for clients.
   private final Set<InetAddress> endpointsPendingJoinedNotification = ConcurrentHashMap.newKeySet();
 
+  // The statements rewritten to read the Stargate system keyspace, by original query string, so
+  // that the queries drivers issue on every connection are only parsed and prepared once.
+  private final ConcurrentMap<String, SelectStatement> interceptedStatements =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_INTERCEPTED_STATEMENTS)
+          .<String, SelectStatement>build()
+          .asMap();
+
   @Override
   public void initialize() {
     StargateSystemKeyspace.initialize();
@@ -77,16 +89,13 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     listeners.add(listener);
   }
 
-  private static Single<ResultMessage> interceptSystemLocalOrPeers(
+  private Single<ResultMessage> interceptSystemLocalOrPeers(
       CQLStatement statement, QueryState state, QueryOptions options, long queryStartNanoTime) {
     SelectStatement selectStatement = ((SelectStatement) statement);
 
-    // Re-parse so that we can intercept and replace the keyspace.
-    SelectStatement.Raw rawStatement =
-        (SelectStatement.Raw) QueryProcessor.parseStatement(selectStatement.queryString);
-    rawStatement.setKeyspace(SYSTEM_KEYSPACE_NAME);
-
-    SelectStatement interceptStatement = rawStatement.prepare(state.getClientState());
+    SelectStatement interceptStatement =
+        interceptedStatements.computeIfAbsent(
+            selectStatement.queryString, q -> toStargateStatement(q, state));
     Single<ResultMessage.Rows> rows =
         interceptStatement.execute(state, options, queryStartNanoTime);
     return rows.map(
@@ -95,6 +104,14 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
                 new ResultSet(selectStatement.getResultMetadata(), r.result.rows)));
   }
 
+  private static SelectStatement toStargateStatement(String queryString, QueryState state) {
+    // Re-parse so that we can intercept and replace the keyspace.
+    SelectStatement.Raw rawStatement =
+        (SelectStatement.Raw) QueryProcessor.parseStatement(queryString);
+    rawStatement.setKeyspace(SYSTEM_KEYSPACE_NAME);
+    return rawStatement.prepare(state.getClientState());
+  }
+
   @Override
   public void onJoin(InetAddress endpoint, EndpointState state) {
     if (!isStargateNode(state)) {
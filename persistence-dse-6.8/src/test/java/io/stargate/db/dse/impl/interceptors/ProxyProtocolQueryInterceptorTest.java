@@ -282,6 +282,7 @@ public class ProxyProtocolQueryInterceptorTest extends BaseDseTest {
     return Conversion.toResult(
         interceptor.interceptQuery(statement, queryState, null, null, 0).blockingGet(),
         ProtocolVersion.V4,
+        null,
         null);
   }
 }